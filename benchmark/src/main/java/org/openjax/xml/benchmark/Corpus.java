@@ -0,0 +1,158 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The fixed corpus of documents of the benchmarks, which are generated
+ * deterministically in memory, so that the benchmarks run offline and
+ * results are comparable across runs.
+ */
+public enum Corpus {
+  /** A small order document of about 1 KB. */
+  SMALL {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      records(random, builder, 4);
+    }
+  },
+  /** A document of order records of about 64 KB. */
+  MEDIUM {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      records(random, builder, 204);
+    }
+  },
+  /** A document of order records of about 16 MB. */
+  HUGE {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      records(random, builder, 52000);
+    }
+  },
+  /**
+   * A document of about 64 KB, of which the elements and attributes are
+   * qualified with many prefixes that are redeclared in nested scopes.
+   */
+  NAMESPACE {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      builder.append("<ns0:root");
+      for (int i = 0; i < 8; ++i)
+        builder.append(" xmlns:ns").append(i).append("=\"urn:example:ns").append(i).append('"');
+
+      builder.append('>');
+      for (int i = 0; i < 280; ++i) {
+        final int p = i % 8;
+        final int q = (i + 3) % 8;
+        builder.append("<ns").append(p).append(":group xmlns:ns").append(q).append("=\"urn:example:group").append(i).append("\" ns").append(q).append(":id=\"").append(i).append("\">");
+        for (int j = 0; j < 4; ++j)
+          builder.append("<ns").append(q).append(":item ns").append(p).append(":ref=\"").append(random.nextInt(1000)).append("\">").append(word(random)).append("</ns").append(q).append(":item>");
+
+        builder.append("</ns").append(p).append(":group>");
+      }
+
+      builder.append("</ns0:root>");
+    }
+  },
+  /**
+   * A document of about 64 KB of empty elements with many attributes, some of
+   * which contain entity and character references.
+   */
+  ATTRIBUTE {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      builder.append("<rows>");
+      for (int i = 0; i < 340; ++i) {
+        builder.append("<row");
+        for (int j = 0; j < 12; ++j) {
+          builder.append(" a").append(j).append("=\"").append(word(random));
+          if (j % 4 == 0)
+            builder.append(" &amp; &#x20AC;");
+
+          builder.append('"');
+        }
+
+        builder.append("/>");
+      }
+
+      builder.append("</rows>");
+    }
+  },
+  /**
+   * A document of about 256 KB of long paragraphs of character data, with
+   * entity references and CDATA sections.
+   */
+  TEXT {
+    @Override
+    void generate(final Random random, final StringBuilder builder) {
+      builder.append("<article><title>").append(word(random)).append("</title>");
+      for (int i = 0; i < 64; ++i) {
+        builder.append("<p>");
+        for (int j = 0; j < 600; ++j) {
+          builder.append(word(random)).append(' ');
+          if (j % 100 == 99)
+            builder.append("&lt;tag&gt; &amp; caf\u00e9 ");
+        }
+
+        builder.append("<![CDATA[if (a < b && b > c) return;]]></p>");
+      }
+
+      builder.append("</article>");
+    }
+  };
+
+  private static final String[] words = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do", "eiusmod", "tempor"};
+
+  private static String word(final Random random) {
+    return words[random.nextInt(words.length)];
+  }
+
+  private static void records(final Random random, final StringBuilder builder, final int count) {
+    builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<orders>\n");
+    for (int i = 0; i < count; ++i) {
+      builder.append("  <order id=\"").append(i).append("\" type=\"").append(random.nextBoolean() ? "rush" : "standard").append("\">\n");
+      builder.append("    <header><customerId>c-").append(random.nextInt(100000)).append("</customerId><date>2019-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10)).append("</date></header>\n");
+      builder.append("    <items>\n");
+      for (int j = 0, n = 1 + random.nextInt(3); j < n; ++j)
+        builder.append("      <item sku=\"s").append(random.nextInt(10000)).append("\" quantity=\"").append(1 + random.nextInt(9)).append("\">").append(word(random)).append(' ').append(word(random)).append("</item>\n");
+
+      builder.append("    </items>\n");
+      builder.append("    <!-- ").append(word(random)).append(" -->\n");
+      builder.append("    <note>").append(word(random)).append(" &amp; ").append(word(random)).append("</note>\n");
+      builder.append("  </order>\n");
+    }
+
+    builder.append("</orders>\n");
+  }
+
+  abstract void generate(Random random, StringBuilder builder);
+
+  /**
+   * Returns a new copy of the UTF-8 bytes of the document of this
+   * {@link Corpus}, which is generated from the same seed on each invocation.
+   *
+   * @return A new copy of the UTF-8 bytes of the document.
+   */
+  public byte[] getBytes() {
+    final StringBuilder builder = new StringBuilder();
+    generate(new Random(ordinal()), builder);
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
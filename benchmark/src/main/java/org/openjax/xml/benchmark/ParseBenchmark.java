@@ -0,0 +1,207 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.SAXParser;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjax.xml.dom.DOMParsers;
+import org.openjax.xml.sax.BlockReader;
+import org.openjax.xml.sax.FastSAXHandler;
+import org.openjax.xml.sax.FastSAXParser;
+import org.openjax.xml.sax.FlyweightSAXHandler;
+import org.openjax.xml.sax.SAXParsers;
+import org.openjax.xml.sax.SymbolTable;
+import org.openjax.xml.sax.Utf8BlockReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Throughput of a full parse of each document of the {@link Corpus}, with
+ * {@link FastSAXParser} (lenient and strict, with a {@link FlyweightSAXHandler}
+ * and a {@link FastSAXHandler}), Xerces SAX via {@link SAXParsers}, the JDK
+ * StAX implementation, and DOM via {@link DOMParsers}. Each operation parses
+ * one document, so the allocation per document is reported by the
+ * {@code gc.alloc.rate.norm} metric of the JMH GC profiler (i.e.
+ * {@code -prof gc}).
+ * <p>
+ * Each handler counts the names and the lengths of the values it receives, so
+ * that the parse cannot be eliminated as dead code.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+  private static final class FlyweightHandler extends FlyweightSAXHandler {
+    private long count;
+
+    @Override
+    public boolean startElement(final CharSequence prefix, final CharSequence localName) {
+      count += localName.length();
+      return true;
+    }
+
+    @Override
+    public boolean attribute(final CharSequence prefix, final CharSequence localName, final CharSequence value) {
+      count += value.length();
+      return true;
+    }
+
+    @Override
+    public boolean characters(final BlockReader in, final int off, final int len) {
+      count += len;
+      return true;
+    }
+  }
+
+  private static final class QNameHandler extends FastSAXHandler {
+    private long count;
+
+    private QNameHandler(final SymbolTable symbols) {
+      super(symbols);
+    }
+
+    @Override
+    public boolean startElement(final QName name, final Map<QName,String> attributes) {
+      count += name.getLocalPart().length();
+      if (attributes != null)
+        for (final String value : attributes.values())
+          count += value.length();
+
+      return true;
+    }
+
+    @Override
+    public boolean characters(final BlockReader in, final int off, final int len) {
+      count += len;
+      return true;
+    }
+  }
+
+  private static final class SAXHandler extends DefaultHandler {
+    private long count;
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+      count += localName.length();
+      for (int i = 0, len = attributes.getLength(); i < len; ++i)
+        count += attributes.getValue(i).length();
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) {
+      count += length;
+    }
+  }
+
+  @Param({"SMALL", "MEDIUM", "HUGE", "NAMESPACE", "ATTRIBUTE", "TEXT"})
+  private Corpus corpus;
+
+  private byte[] bytes;
+  private final SymbolTable symbols = new SymbolTable();
+  private SAXParser saxParser;
+  private XMLInputFactory staxFactory;
+  private DocumentBuilder documentBuilder;
+
+  @Setup
+  public void setup() throws SAXException {
+    bytes = corpus.getBytes();
+    saxParser = SAXParsers.newParser(false);
+    staxFactory = XMLInputFactory.newInstance();
+    documentBuilder = DOMParsers.newDocumentBuilder();
+  }
+
+  @Benchmark
+  public long fastSaxFlyweight() throws IOException, SAXException {
+    final FlyweightHandler handler = new FlyweightHandler();
+    FastSAXParser.parse(new Utf8BlockReader(bytes), handler);
+    return handler.count;
+  }
+
+  @Benchmark
+  public long fastSaxFlyweightStrict() throws IOException, SAXException {
+    final FlyweightHandler handler = new FlyweightHandler();
+    FastSAXParser.parse(new Utf8BlockReader(bytes), handler, true);
+    return handler.count;
+  }
+
+  @Benchmark
+  public long fastSaxQName() throws IOException, SAXException {
+    final QNameHandler handler = new QNameHandler(symbols);
+    FastSAXParser.parse(new Utf8BlockReader(bytes), handler);
+    return handler.count;
+  }
+
+  @Benchmark
+  public long xercesSax() throws IOException, SAXException {
+    final SAXHandler handler = new SAXHandler();
+    saxParser.parse(new InputSource(new ByteArrayInputStream(bytes)), handler);
+    return handler.count;
+  }
+
+  @Benchmark
+  public long jdkStax() throws XMLStreamException {
+    final XMLStreamReader reader = staxFactory.createXMLStreamReader(new ByteArrayInputStream(bytes));
+    long count = 0;
+    while (reader.hasNext()) {
+      final int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        count += reader.getLocalName().length();
+        for (int i = 0, len = reader.getAttributeCount(); i < len; ++i)
+          count += reader.getAttributeValue(i).length();
+      }
+      else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+        count += reader.getTextLength();
+      }
+    }
+
+    reader.close();
+    return count;
+  }
+
+  @Benchmark
+  public Document dom() throws IOException, SAXException {
+    return documentBuilder.parse(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,117 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjax.xml.dom.DOMParsers;
+import org.openjax.xml.sax.FastSAXParser;
+import org.openjax.xml.sax.SymbolTable;
+import org.openjax.xml.sax.Utf8BlockReader;
+import org.openjax.xml.sax.XmlPathHandler;
+import org.openjax.xml.sax.XmlPathMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Throughput of routing a document by a few simple paths, with a DOM via
+ * {@link DOMParsers} and compiled XPath expressions, and with a single
+ * streaming pass of an {@link XmlPathMatcher} over {@link FastSAXParser}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+  private static final String[] paths = {"/orders/order/header/customerId", "/orders/order[@type='rush']/@id", "//note"};
+
+  private static final class RouteHandler extends XmlPathHandler {
+    private long count;
+
+    private RouteHandler(final XmlPathMatcher matcher, final SymbolTable symbols) {
+      super(matcher, symbols);
+    }
+
+    @Override
+    public boolean match(final int expression, final String value) {
+      count += value.length();
+      return true;
+    }
+  }
+
+  @Param({"SMALL", "MEDIUM"})
+  private Corpus corpus;
+
+  private byte[] bytes;
+  private DocumentBuilder documentBuilder;
+  private XPathExpression[] expressions;
+  private RouteHandler handler;
+
+  @Setup
+  public void setup() throws XPathExpressionException {
+    bytes = corpus.getBytes();
+    documentBuilder = DOMParsers.newDocumentBuilder();
+    expressions = new XPathExpression[paths.length];
+    for (int i = 0; i < paths.length; ++i)
+      expressions[i] = XPathFactory.newInstance().newXPath().compile(paths[i]);
+
+    handler = new RouteHandler(XmlPathMatcher.compile(paths), new SymbolTable());
+  }
+
+  @Benchmark
+  public long domXPath() throws IOException, SAXException, XPathExpressionException {
+    final Document document = documentBuilder.parse(new ByteArrayInputStream(bytes));
+    long count = 0;
+    for (final XPathExpression expression : expressions) {
+      final NodeList nodes = (NodeList)expression.evaluate(document, XPathConstants.NODESET);
+      for (int i = 0, len = nodes.getLength(); i < len; ++i)
+        count += nodes.item(i).getTextContent().length();
+    }
+
+    return count;
+  }
+
+  @Benchmark
+  public long streaming() throws IOException, SAXException {
+    handler.reset();
+    handler.count = 0;
+    FastSAXParser.parse(new Utf8BlockReader(bytes), handler);
+    return handler.count;
+  }
+}
@@ -0,0 +1,40 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event of a lookup of an entity in an {@link org.openjax.xml.sax.XmlCatalog}.
+ */
+@Name("org.openjax.xml.CatalogLookup")
+@Label("XML Catalog Lookup")
+@Category({"OpenJAX", "XML"})
+@Description("A lookup of an entity in an XmlCatalog")
+@StackTrace(false)
+final class CatalogLookupEvent extends Event {
+  @Label("System ID")
+  String systemId;
+
+  @Label("Hit")
+  boolean hit;
+}
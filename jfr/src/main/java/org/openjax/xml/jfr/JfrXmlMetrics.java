@@ -0,0 +1,133 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.jfr;
+
+import org.openjax.xml.sax.XmlMetrics;
+
+import jdk.jfr.EventType;
+
+/**
+ * An {@link XmlMetrics} that commits JDK Flight Recorder events, which is
+ * registered as a {@link java.util.ServiceLoader} provider, and is thereby
+ * active when this module is on the class path.
+ * <p>
+ * This {@link XmlMetrics} is only enabled while at least one of its event
+ * types is enabled in a running recording, whereby the parsing stack does not
+ * count events or read the clock otherwise. An event is begun before the work
+ * that it describes, so that its duration is that of the work, and is only
+ * populated and committed if it is to be recorded.
+ *
+ * @see ParseEvent
+ * @see ValidationEvent
+ * @see SchemaResolutionEvent
+ * @see CatalogLookupEvent
+ */
+public class JfrXmlMetrics implements XmlMetrics {
+  private static final EventType parseEventType = EventType.getEventType(ParseEvent.class);
+  private static final EventType validationEventType = EventType.getEventType(ValidationEvent.class);
+  private static final EventType schemaResolutionEventType = EventType.getEventType(SchemaResolutionEvent.class);
+  private static final EventType catalogLookupEventType = EventType.getEventType(CatalogLookupEvent.class);
+
+  @Override
+  public boolean isEnabled() {
+    return parseEventType.isEnabled() || validationEventType.isEnabled() || schemaResolutionEventType.isEnabled() || catalogLookupEventType.isEnabled();
+  }
+
+  @Override
+  public Object beginParse() {
+    if (!parseEventType.isEnabled())
+      return null;
+
+    final ParseEvent event = new ParseEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void parsed(final Object context, final long units, final long events, final long elements, final long nanos) {
+    if (context == null)
+      return;
+
+    final ParseEvent event = (ParseEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.units = units;
+      event.events = events;
+      event.elements = elements;
+      event.elementsPerSecond = nanos > 0 ? elements * 1e9 / nanos : 0;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginValidation() {
+    if (!validationEventType.isEnabled())
+      return null;
+
+    final ValidationEvent event = new ValidationEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void validated(final Object context, final String systemId, final boolean valid, final long nanos) {
+    if (context == null)
+      return;
+
+    final ValidationEvent event = (ValidationEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.systemId = systemId;
+      event.valid = valid;
+      event.commit();
+    }
+  }
+
+  @Override
+  public Object beginSchemaResolution() {
+    if (!schemaResolutionEventType.isEnabled())
+      return null;
+
+    final SchemaResolutionEvent event = new SchemaResolutionEvent();
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void schemasResolved(final Object context, final String systemId, final int documents, final long nanos) {
+    if (context == null)
+      return;
+
+    final SchemaResolutionEvent event = (SchemaResolutionEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.systemId = systemId;
+      event.documents = documents;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void catalogLookup(final String systemId, final boolean hit) {
+    final CatalogLookupEvent event = new CatalogLookupEvent();
+    if (event.isEnabled()) {
+      event.systemId = systemId;
+      event.hit = hit;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Event of a document that was parsed with
+ * {@link org.openjax.xml.sax.FastSAXParser}, the duration of which is that of
+ * the parse.
+ */
+@Name("org.openjax.xml.Parse")
+@Label("XML Parse")
+@Category({"OpenJAX", "XML"})
+@Description("A document that was parsed with FastSAXParser")
+@StackTrace(false)
+final class ParseEvent extends Event {
+  @Label("Units")
+  @Description("The number of units that were scanned, which are bytes for UTF-8 input, and chars otherwise")
+  long units;
+
+  @Label("Events")
+  @Description("The number of events that were reported to the handler")
+  long events;
+
+  @Label("Elements")
+  @Description("The number of elements that were started")
+  long elements;
+
+  @Label("Elements per Second")
+  @Frequency
+  double elementsPerSecond;
+}
@@ -0,0 +1,80 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.jfr;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.openjax.xml.sax.FastSAXParser;
+import org.openjax.xml.sax.FasterSAXHandler;
+import org.openjax.xml.sax.XmlMetrics;
+import org.xml.sax.SAXException;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrXmlMetricsTest {
+  @Test
+  public void testServiceLoader() {
+    assertTrue(XmlMetrics.get() instanceof JfrXmlMetrics);
+  }
+
+  @Test
+  public void testDisabled() {
+    assertFalse(XmlMetrics.get().isEnabled());
+    try (final Recording recording = new Recording()) {
+      recording.enable("org.openjax.xml.Parse");
+      recording.start();
+      assertTrue(XmlMetrics.get().isEnabled());
+      recording.stop();
+    }
+
+    assertFalse(XmlMetrics.get().isEnabled());
+  }
+
+  @Test
+  public void testParseEvent() throws IOException, SAXException {
+    final Path path = Files.createTempFile("jfr", ".jfr");
+    try (final Recording recording = new Recording()) {
+      recording.enable("org.openjax.xml.Parse");
+      recording.start();
+      FastSAXParser.parse("<a><b/><c>text</c></a>".getBytes(StandardCharsets.UTF_8), new FasterSAXHandler() {
+      });
+      recording.stop();
+      recording.dump(path);
+
+      final List<RecordedEvent> events = RecordingFile.readAllEvents(path).stream().filter(e -> "org.openjax.xml.Parse".equals(e.getEventType().getName())).collect(Collectors.toList());
+      assertEquals(1, events.size());
+      final RecordedEvent event = events.get(0);
+      assertEquals(22, event.getLong("units"));
+      assertEquals(6, event.getLong("events"));
+      assertEquals(3, event.getLong("elements"));
+      assertTrue(event.getDuration().toNanos() > 0);
+    }
+    finally {
+      Files.delete(path);
+    }
+  }
+}
@@ -0,0 +1,438 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A {@link Reader} that pulls its input in large blocks, which are scanned in
+ * place by {@link FastSAXParser#parse(BlockReader,FasterSAXHandler)} with an
+ * index cursor.
+ * <p>
+ * Names and values of parse events are reported to a {@link FasterSAXHandler}
+ * as offsets into the current block, which are valid only for the duration of
+ * the callback. An offset can be dereferenced with
+ * {@link #toString(int,int)}, or by positioning this {@link Reader} at the
+ * offset and reading the data from it.
+ *
+ * @see FastSAXParser#parse(BlockReader,FasterSAXHandler)
+ * @see CharBlockReader
+ */
+public abstract class BlockReader extends Reader {
+  /** The maximum length of a character reference (i.e. {@code "&#x10FFFF;"}). */
+  static final int MAX_REFERENCE_LENGTH = 10;
+
+  /** The index of the next unit to be read from the block. */
+  int position;
+  /** The index after the last valid unit in the block. */
+  int limit;
+
+  private int lines;
+  private int lineStart;
+  /** The number of units that were discarded before the current block. */
+  private long discarded;
+
+  /**
+   * Returns the unit at the specified index of the current block.
+   *
+   * @param index The index.
+   * @return The unit at the specified index of the current block.
+   */
+  abstract int at(int index);
+
+  /**
+   * Discards the units of the current block before the specified index,
+   * shifting the remaining units to the start of the block, and reads more
+   * units into the freed space of the block.
+   *
+   * @param keep The index of the first unit to keep.
+   * @return The number of units that were read, {@code 0} if no more units are
+   *         available at the moment (i.e. for input that is fed incrementally),
+   *         or {@code -1} if the end of the input has been reached.
+   * @throws IOException If an I/O error has occurred.
+   */
+  abstract int refill(int keep) throws IOException;
+
+  /**
+   * Discards the units of the current block before the specified index, and
+   * reads more units into the block.
+   *
+   * @param keep The index of the first unit to keep.
+   * @return The number of units that were read, {@code 0} if no more units are
+   *         available at the moment, or {@code -1} if the end of the input has
+   *         been reached.
+   * @throws IOException If an I/O error has occurred.
+   */
+  final int fill(final int keep) throws IOException {
+    for (int i = indexOf('\n', 0, keep); i < keep; i = indexOf('\n', i + 1, keep)) {
+      ++lines;
+      lineStart = i + 1;
+    }
+
+    lineStart -= keep;
+    discarded += keep;
+    position = position > keep ? position - keep : 0;
+    return refill(keep);
+  }
+
+  /**
+   * Clears the position, the limit and the line tracking of this
+   * {@link BlockReader}, so it can be reused for new input.
+   */
+  final void clear() {
+    position = 0;
+    limit = 0;
+    lines = 0;
+    lineStart = 0;
+    discarded = 0;
+  }
+
+  /**
+   * Returns the offset of the unit at the specified index of the current block
+   * from the start of the input.
+   *
+   * @param index The index.
+   * @return The offset of the unit at the specified index of the current block
+   *         from the start of the input.
+   */
+  final long getOffset(final int index) {
+    return discarded + index;
+  }
+
+  /**
+   * Positions this {@link Reader} at the specified index of the current block.
+   *
+   * @param index The index.
+   */
+  final void seek(final int index) {
+    position = index;
+  }
+
+  /**
+   * Returns the line number of the unit at the specified index of the current
+   * block.
+   *
+   * @param index The index.
+   * @return The line number of the unit at the specified index of the current
+   *         block.
+   */
+  final int getLineNumber(final int index) {
+    int line = lines + 1;
+    for (int i = 0; i < index; ++i)
+      if (at(i) == '\n')
+        ++line;
+
+    return line;
+  }
+
+  /**
+   * Returns the column number of the unit at the specified index of the
+   * current block.
+   *
+   * @param index The index.
+   * @return The column number of the unit at the specified index of the
+   *         current block.
+   */
+  final int getColumnNumber(final int index) {
+    int start = lineStart;
+    for (int i = 0; i < index; ++i)
+      if (at(i) == '\n')
+        start = i + 1;
+
+    return index - start + 1;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified unit in the
+   * current block between the specified indexes.
+   *
+   * @param ch The unit to find.
+   * @param from The index at which to start the search.
+   * @param to The index at which to end the search.
+   * @return The index of the first occurrence of the specified unit, or
+   *         {@code to} if the unit does not occur.
+   */
+  int indexOf(final int ch, int from, final int to) {
+    for (; from < to; ++from)
+      if (at(from) == ch)
+        return from;
+
+    return to;
+  }
+
+  /**
+   * Returns the index of the first occurrence of any of the specified units in
+   * the current block between the specified indexes.
+   *
+   * @param ch0 The first unit to find.
+   * @param ch1 The second unit to find.
+   * @param ch2 The third unit to find.
+   * @param from The index at which to start the search.
+   * @param to The index at which to end the search.
+   * @return The index of the first occurrence of any of the specified units, or
+   *         {@code to} if none of the units occur.
+   */
+  int indexOf(final int ch0, final int ch1, final int ch2, int from, final int to) {
+    for (int ch; from < to; ++from)
+      if ((ch = at(from)) == ch0 || ch == ch1 || ch == ch2)
+        return from;
+
+    return to;
+  }
+
+  /**
+   * Tests whether each unit of the data in the current block at the specified
+   * offset and length is exactly one {@code char}, in which case the data can
+   * be accessed with {@link #at(int)} without being decoded.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @return Whether each unit of the data in the current block at the specified
+   *         offset and length is exactly one {@code char}.
+   */
+  boolean isCharAligned(final int off, final int len) {
+    return true;
+  }
+
+  /**
+   * Decodes the data in the current block at the specified offset and length
+   * into the specified {@code char[]}.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @param dst The destination {@code char[]}, which must have a length of at
+   *          least {@code len}.
+   * @return The number of chars that were decoded.
+   */
+  int toChars(final int off, final int len, final char[] dst) {
+    for (int i = 0; i < len; ++i)
+      dst[i] = (char)at(off + i);
+
+    return len;
+  }
+
+  /**
+   * Returns the index before the specified end index at which the data in the
+   * current block starting at the specified start index ends with a complete
+   * character.
+   *
+   * @param start The index of the start of the data.
+   * @param end The index after the end of the data.
+   * @return The index before the specified end index at which the data in the
+   *         current block starting at the specified start index ends with a
+   *         complete character.
+   */
+  int boundary(final int start, final int end) {
+    return end > start && Character.isHighSurrogate((char)at(end - 1)) ? end - 1 : end;
+  }
+
+  /**
+   * Appends the data in the current block at the specified offset and length
+   * to the specified {@link StringBuilder}.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @param builder The {@link StringBuilder}.
+   */
+  void append(final int off, final int len, final StringBuilder builder) {
+    for (int i = off, end = off + len; i < end; ++i)
+      builder.append((char)at(i));
+  }
+
+  /**
+   * Returns a string of the data in the current block at the specified offset
+   * and length.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @return A string of the data in the current block at the specified offset
+   *         and length.
+   * @throws IndexOutOfBoundsException If the specified offset and length
+   *           exceed the bounds of the current block.
+   */
+  public abstract String toString(int off, int len);
+
+  /**
+   * Returns a string of the data in the current block at the specified offset
+   * and length, with the predefined entity references (i.e. {@code &amp;})
+   * and the character references (i.e. {@code &#x20AC;}) decoded. The data
+   * is only copied if it contains a {@code '&'} character. References that are
+   * not predefined or not well-formed are retained as is.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @return A string of the data in the current block at the specified offset
+   *         and length, with the predefined entity references and the character
+   *         references decoded.
+   * @throws IndexOutOfBoundsException If the specified offset and length
+   *           exceed the bounds of the current block.
+   */
+  public String toUnescapedString(final int off, final int len) {
+    final int end = off + len;
+    return indexOf('&', off, end) == end ? toString(off, len) : unescape(off, len, new StringBuilder(len)).toString();
+  }
+
+  /**
+   * Appends the data in the current block at the specified offset and length
+   * to the specified {@link StringBuilder}, with the predefined entity
+   * references (i.e. {@code &amp;}) and the character references (i.e.
+   * {@code &#x20AC;}) decoded. References that are not predefined or not
+   * well-formed are retained as is.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @param builder The {@link StringBuilder}.
+   * @return The specified {@link StringBuilder}.
+   * @throws NullPointerException If the specified {@link StringBuilder} is
+   *           null.
+   * @throws IndexOutOfBoundsException If the specified offset and length
+   *           exceed the bounds of the current block.
+   */
+  public StringBuilder unescape(final int off, final int len, final StringBuilder builder) {
+    final int end = off + len;
+    int from = off;
+    for (int i = off; (i = indexOf('&', i, end)) < end; ++i) {
+      int semicolon = i + 1;
+      for (final int max = Math.min(end, i + MAX_REFERENCE_LENGTH); semicolon < max && at(semicolon) != ';'; ++semicolon);
+      final int codePoint;
+      if (semicolon == end || at(semicolon) != ';' || (codePoint = reference(i + 1, semicolon)) == -1)
+        continue;
+
+      append(from, i - from, builder);
+      builder.appendCodePoint(codePoint);
+      from = (i = semicolon) + 1;
+    }
+
+    append(from, end - from, builder);
+    return builder;
+  }
+
+  /**
+   * Returns the code point of the reference with the name between the
+   * specified indexes, or {@code -1} if the reference is not a predefined
+   * entity reference or a valid character reference. A valid character
+   * reference has ASCII digits, and refers to a legal character of XML.
+   *
+   * @param start The index of the start of the name (after the {@code '&'}).
+   * @param end The index of the end of the name (the {@code ';'}).
+   * @return The code point of the reference with the name between the
+   *         specified indexes, or {@code -1} if the reference is not a
+   *         predefined entity reference or a valid character reference.
+   */
+  final int reference(final int start, final int end) {
+    final int len = end - start;
+    if (len < 2)
+      return -1;
+
+    final int ch = at(start);
+    if (ch != '#') {
+      if (len == 2)
+        return at(start + 1) != 't' ? -1 : ch == 'l' ? '<' : ch == 'g' ? '>' : -1;
+
+      if (len == 3)
+        return ch == 'a' && at(start + 1) == 'm' && at(start + 2) == 'p' ? '&' : -1;
+
+      if (len == 4)
+        return ch == 'q' && regionMatches(start, 4, "quot") ? '"' : ch == 'a' && regionMatches(start, 4, "apos") ? '\'' : -1;
+
+      return -1;
+    }
+
+    final int radix;
+    int i = start + 1;
+    if (at(i) == 'x') {
+      radix = 16;
+      ++i;
+    }
+    else {
+      radix = 10;
+    }
+
+    if (i == end)
+      return -1;
+
+    int codePoint = 0;
+    for (int digit; i < end; ++i) {
+      if ((digit = digit(at(i), radix)) == -1 || (codePoint = codePoint * radix + digit) > Character.MAX_CODE_POINT)
+        return -1;
+    }
+
+    return isChar(codePoint) ? codePoint : -1;
+  }
+
+  /**
+   * Returns the value of the specified ASCII digit in the specified radix.
+   * Unlike {@link Character#digit(int,int)}, digits other than {@code [0-9]},
+   * {@code [a-f]} and {@code [A-F]} are not accepted.
+   *
+   * @param ch The character.
+   * @param radix The radix, which is {@code 10} or {@code 16}.
+   * @return The value of the specified ASCII digit in the specified radix, or
+   *         {@code -1} if the character is not a digit in the radix.
+   */
+  private static int digit(final int ch, final int radix) {
+    if ('0' <= ch && ch <= '9')
+      return ch - '0';
+
+    if (radix == 16) {
+      if ('a' <= ch && ch <= 'f')
+        return ch - 'a' + 10;
+
+      if ('A' <= ch && ch <= 'F')
+        return ch - 'A' + 10;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Tests whether the specified code point is a legal character of XML (i.e.
+   * {@code #x9 | #xA | #xD | [#x20-#xD7FF] | [#xE000-#xFFFD] |
+   * [#x10000-#x10FFFF]}).
+   *
+   * @param codePoint The code point.
+   * @return Whether the specified code point is a legal character of XML.
+   * @see <a href="https://www.w3.org/TR/xml/#NT-Char">Char</a>
+   */
+  private static boolean isChar(final int codePoint) {
+    return codePoint < 0x20 ? codePoint == 0x9 || codePoint == 0xA || codePoint == 0xD : codePoint <= 0xD7FF || 0xE000 <= codePoint && codePoint <= 0xFFFD || 0x10000 <= codePoint && codePoint <= 0x10FFFF;
+  }
+
+  /**
+   * Tests whether the data in the current block at the specified offset and
+   * length is equal to the specified {@link CharSequence}.
+   *
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @param str The {@link CharSequence} to compare.
+   * @return Whether the data in the current block at the specified offset and
+   *         length is equal to the specified {@link CharSequence}.
+   * @throws NullPointerException If the specified {@link CharSequence} is
+   *           null.
+   */
+  public boolean regionMatches(final int off, final int len, final CharSequence str) {
+    if (len != str.length())
+      return false;
+
+    for (int i = 0; i < len; ++i)
+      if (at(off + i) != str.charAt(i))
+        return false;
+
+    return true;
+  }
+}
@@ -0,0 +1,947 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.libj.lang.ObjectUtil;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Scanning engine over the blocks of a {@link BlockReader}.
+ * <p>
+ * Each invocation of {@link #next()} scans one complete markup construct into
+ * the token fields of this instance, with names and values as offsets into the
+ * current block of the {@link BlockReader}. If a construct does not fit into
+ * the current block, the block is refilled from the start of the construct,
+ * and the construct is scanned again. Token offsets are therefore only valid
+ * until the next invocation of {@link #next()}.
+ * <p>
+ * Character data is not limited by the size of the block: a run of character
+ * data that is cut off by the end of the block is reported in consecutive
+ * {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS} tokens,
+ * which are split before a complete character or reference.
+ * <p>
+ * If the {@link BlockReader} has no more input available at the moment (i.e.
+ * {@link BlockReader#refill(int)} returns {@code 0}), {@link #next()} returns
+ * {@link #NEED_INPUT}, and the scan resumes with the incomplete construct on
+ * the next invocation of {@link #next()}.
+ * <p>
+ * In strict mode, the scanner additionally checks the well-formedness of the
+ * elements and attributes: the balance of start and end tags, the uniqueness
+ * of attribute names, the characters of element and attribute names, and the
+ * syntax of attribute specifications (i.e. that values are quoted). Names are
+ * checked against the {@code NameStartChar} and {@code NameChar} productions
+ * of XML 1.0 for ASCII and UTF-16 units, and the non-ASCII bytes of UTF-8
+ * encoded names are accepted as is. The content of a skipped element (see
+ * {@link #skipElement()}) is not checked.
+ */
+final class BlockScanner {
+  /**
+   * Returned by the scan methods when the current block ends mid-construct,
+   * and by {@link #next()} when no more input is available at the moment.
+   */
+  static final int NEED_INPUT = -1;
+  /** The number of attributes up to which the attribute names are compared pairwise in strict mode. */
+  private static final int LINEAR_ATTRIBUTES = 8;
+
+  private static final byte NAME_CHAR = 1;
+  private static final byte NAME_START_CHAR = 2;
+  /** The {@link #NAME_CHAR} and {@link #NAME_START_CHAR} flags of ASCII. */
+  private static final byte[] asciiNameChars = new byte[0x80];
+
+  static {
+    for (int ch = 'a'; ch <= 'z'; ++ch)
+      asciiNameChars[ch] = asciiNameChars[ch - 'a' + 'A'] = NAME_START_CHAR | NAME_CHAR;
+
+    asciiNameChars[':'] = asciiNameChars['_'] = NAME_START_CHAR | NAME_CHAR;
+    for (int ch = '0'; ch <= '9'; ++ch)
+      asciiNameChars[ch] = NAME_CHAR;
+
+    asciiNameChars['-'] = asciiNameChars['.'] = NAME_CHAR;
+  }
+
+  static boolean isWhitespace(final int ch) {
+    return ch == ' ' || ch == '\n' || ch == '\r' || ch == '\t';
+  }
+
+  /**
+   * Tests whether the specified non-ASCII UTF-16 unit is a
+   * {@code NameStartChar}, or a {@code NameChar} if {@code start} is
+   * {@code false}, as per the XML 1.0 (Fifth Edition) specification.
+   * Surrogates are accepted, since the supplementary code points in the range
+   * of {@code NameStartChar} are not distinguished.
+   */
+  private static boolean isNameChar(final int ch, final boolean start) {
+    if (ch >= 0xC0 && ch <= 0x2FF)
+      return ch != 0xD7 && ch != 0xF7;
+
+    if (ch >= 0x370 && ch <= 0x1FFF)
+      return ch != 0x37E;
+
+    if (ch >= 0x2070 && ch <= 0x218F || ch >= 0x2C00 && ch <= 0x2FEF || ch >= 0x3001 && ch <= 0xDFFF || ch >= 0xF900 && ch <= 0xFDCF || ch >= 0xFDF0 && ch <= 0xFFFD || ch == 0x200C || ch == 0x200D)
+      return true;
+
+    return !start && (ch == 0xB7 || ch >= 0x300 && ch <= 0x36F || ch == 0x203F || ch == 0x2040);
+  }
+
+  private BlockReader in;
+  private boolean utf8;
+  private int pos;
+  private boolean eof;
+  /** The depth of the element that is being skipped, or {@code 0}. */
+  private int skipDepth;
+
+  /** The offset of the name, or of the data of the current token. */
+  int off;
+  /** The length of the prefix of the name, including the {@code ':'}. */
+  int prefixLen;
+  /** The length of the local part of the name. */
+  int localPartLen;
+  /** The length of the data of the current token. */
+  int len;
+  /** Whether the current start tag is an empty-element tag. */
+  boolean empty;
+  /**
+   * The attributes of the current token, as consecutive tuples of
+   * {@code offset, prefixLen, localPartLen, skip, valueLen}.
+   */
+  int[] attributes = new int[5 * 8];
+  /** The number of attributes of the current token. */
+  int attributeCount;
+  /** Whether the content of the current element has been skipped. */
+  boolean skipped;
+
+  /** Whether well-formedness is checked. */
+  private boolean strict;
+  /** The units of the names of the open elements, in strict mode. */
+  private int[] openNames;
+  /** The open-addressing hash table of the attributes of the current start tag, in strict mode. */
+  private int[] attributeTable = {};
+  /**
+   * The end indexes of the names in {@link #openNames} by depth, where the
+   * name of the element at depth {@code d} starts at the end index of depth
+   * {@code d - 1}.
+   */
+  private int[] openNameEnds;
+  private int depth;
+
+  /**
+   * Creates a new {@link BlockScanner} for the specified {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   */
+  BlockScanner(final BlockReader in) {
+    reset(in);
+  }
+
+  /**
+   * Creates a new {@link BlockScanner} that is not bound to a
+   * {@link BlockReader}, which must be bound with {@link #reset(BlockReader)}
+   * before the first scan.
+   */
+  BlockScanner() {
+  }
+
+  /**
+   * Binds this {@link BlockScanner} to the specified {@link BlockReader}, and
+   * resets the state of the scan, retaining the allocated token buffers.
+   *
+   * @param in The {@link BlockReader}.
+   */
+  void reset(final BlockReader in) {
+    reset(in, false);
+  }
+
+  /**
+   * Binds this {@link BlockScanner} to the specified {@link BlockReader}, and
+   * resets the state of the scan, retaining the allocated token buffers.
+   *
+   * @param in The {@link BlockReader}.
+   * @param strict Whether well-formedness is checked.
+   */
+  void reset(final BlockReader in, final boolean strict) {
+    this.in = in;
+    this.utf8 = in instanceof Utf8BlockReader;
+    this.pos = in.position;
+    this.eof = false;
+    this.skipDepth = 0;
+    this.skipped = false;
+    this.attributeCount = 0;
+    this.strict = strict;
+    this.depth = 0;
+    if (strict && openNames == null) {
+      openNames = new int[256];
+      openNameEnds = new int[16];
+    }
+  }
+
+  /**
+   * Releases the {@link BlockReader} of this {@link BlockScanner}, which must
+   * be bound again with {@link #reset(BlockReader)} before the next scan.
+   */
+  void release() {
+    this.in = null;
+  }
+
+  /**
+   * Scans the next markup construct.
+   *
+   * @return The event type of the construct, as one of
+   *         {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *         START_ELEMENT}, {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *         END_ELEMENT},
+   *         {@link javax.xml.stream.XMLStreamConstants#PROCESSING_INSTRUCTION
+   *         PROCESSING_INSTRUCTION},
+   *         {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS},
+   *         {@link javax.xml.stream.XMLStreamConstants#CDATA CDATA},
+   *         {@link javax.xml.stream.XMLStreamConstants#COMMENT COMMENT},
+   *         {@link javax.xml.stream.XMLStreamConstants#DTD DTD},
+   *         {@link javax.xml.stream.XMLStreamConstants#END_DOCUMENT
+   *         END_DOCUMENT}, or {@link #NEED_INPUT} if no more input is
+   *         available at the moment.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If a parsing error has occurred.
+   */
+  int next() throws IOException, SAXParseException {
+    skipped = false;
+    if (eof)
+      return END_DOCUMENT;
+
+    int type;
+    while ((type = scan()) == NEED_INPUT) {
+      final int read = in.fill(pos);
+      pos = 0;
+      if (read == -1) {
+        eof = true;
+        if (strict && depth > 0)
+          throw newSAXParseException("Expected end tag </" + openName() + ">", in.limit);
+
+        return END_DOCUMENT;
+      }
+
+      if (read == 0)
+        return NEED_INPUT;
+    }
+
+    return type;
+  }
+
+  private int scan() throws SAXParseException {
+    final BlockReader in = this.in;
+    final int limit = in.limit;
+    for (int i = pos;;) {
+      final int text = i;
+      i = in.indexOf('<', i, limit);
+
+      if (i > text)
+        return scanText(text, i, limit);
+
+      if (i + 1 >= limit) {
+        pos = i;
+        return NEED_INPUT;
+      }
+
+      final int ch = in.at(i + 1);
+      final int type;
+      final int next;
+      if (ch == '/')
+        type = scanEndTag(i, limit);
+      else if (ch == '?')
+        type = scanDeclaration(i, limit);
+      else if (ch != '!')
+        type = scanStartTag(i, limit);
+      else if (i + 3 >= limit)
+        type = NEED_INPUT;
+      else if (in.at(i + 2) == '-' && in.at(i + 3) == '-')
+        type = scanComment(i, limit);
+      else if (in.at(i + 2) != '[')
+        type = scanDoctype(i, limit);
+      else if ((next = skipSection(i, limit)) < 0)
+        type = NEED_INPUT;
+      else if (isCData(i, next))
+        type = CDATA;
+      else {
+        i = next;
+        continue;
+      }
+
+      if (type == NEED_INPUT)
+        pos = i;
+
+      return type;
+    }
+  }
+
+  /**
+   * Scans the character data between the specified indexes into {@link #off}
+   * and {@link #len}. If the character data is cut off by the end of the block,
+   * only the units before the last incomplete character or reference are
+   * scanned, and the remainder is scanned with the next block.
+   *
+   * @param start The index of the start of the character data.
+   * @param end The index after the end of the character data.
+   * @param limit The limit of the block.
+   * @return {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS},
+   *         or {@link #NEED_INPUT} if no complete character is in the block.
+   */
+  private int scanText(final int start, int end, final int limit) {
+    if (end == limit) {
+      final BlockReader in = this.in;
+      for (int i = end - 1, min = Math.max(start, end - BlockReader.MAX_REFERENCE_LENGTH); i >= min; --i) {
+        final int ch = in.at(i);
+        if (ch == ';')
+          break;
+
+        if (ch == '&') {
+          end = i;
+          break;
+        }
+      }
+
+      if ((end = in.boundary(start, end)) == start) {
+        pos = start;
+        return NEED_INPUT;
+      }
+    }
+
+    off = start;
+    len = end - start;
+    pos = end;
+    return CHARACTERS;
+  }
+
+  private boolean isCData(final int start, final int end) {
+    if (end - start < 12 || !in.regionMatches(start + 3, 6, "CDATA["))
+      return false;
+
+    off = start + 9;
+    len = end - 3 - off;
+    pos = end;
+    return true;
+  }
+
+  private int scanStartTag(final int start, final int limit) throws SAXParseException {
+    final BlockReader in = this.in;
+    final int end = indexOfTagEnd(start + 1, limit);
+    if (end == NEED_INPUT)
+      return NEED_INPUT;
+
+    final boolean strict = this.strict;
+    final int i = strict ? scanCheckedName(start + 1, end) : scanName(start + 1, end);
+    if (i == start + 1)
+      throw newSAXParseException("Expected element name", start + 1);
+
+    empty = in.at(end - 1) == '/';
+    if (strict) {
+      scanAttributes(i, empty ? end - 1 : end, true);
+      checkAttributes();
+      if (!empty)
+        push(start + 1, i);
+    }
+    else {
+      scanAttributes(i, empty ? end - 1 : end, false);
+    }
+
+    pos = end + 1;
+    return START_ELEMENT;
+  }
+
+  private int scanEndTag(final int start, final int limit) throws SAXParseException {
+    final BlockReader in = this.in;
+    final int end = in.indexOf('>', start + 2, limit);
+    if (end == limit)
+      return NEED_INPUT;
+
+    final int i = scanName(start + 2, end);
+    if (strict)
+      checkEndTag(i, end);
+
+    pos = end + 1;
+    return END_ELEMENT;
+  }
+
+  private int scanDeclaration(final int start, final int limit) throws SAXParseException {
+    final BlockReader in = this.in;
+    int end = start + 2;
+    for (int ch1 = '\0', ch0; true; ch1 = ch0, ++end) {
+      if (end == limit)
+        return NEED_INPUT;
+
+      ch0 = in.at(end);
+      if (ch0 == '>' && ch1 == '?')
+        break;
+    }
+
+    scanAttributes(scanName(start + 2, end - 1), end - 1, false);
+    pos = end + 1;
+    return PROCESSING_INSTRUCTION;
+  }
+
+  private int scanComment(final int start, final int limit) {
+    final BlockReader in = this.in;
+    int end = start + 6;
+    while (true) {
+      if ((end = in.indexOf('>', end, limit)) == limit)
+        return NEED_INPUT;
+
+      if (in.at(end - 1) == '-' && in.at(end - 2) == '-')
+        break;
+
+      ++end;
+    }
+
+    off = start + 4;
+    len = end - 2 - off;
+    pos = end + 1;
+    return COMMENT;
+  }
+
+  private int scanDoctype(final int start, final int limit) {
+    final BlockReader in = this.in;
+    int end = start + 2;
+    for (int depth = 0, quote = 0, ch; true; ++end) {
+      if (end == limit)
+        return NEED_INPUT;
+
+      ch = in.at(end);
+      if (quote != 0) {
+        if (ch == quote)
+          quote = 0;
+      }
+      else if (ch == '"' || ch == '\'') {
+        quote = ch;
+      }
+      else if (ch == '[') {
+        ++depth;
+      }
+      else if (ch == ']') {
+        --depth;
+      }
+      else if (ch == '>' && depth <= 0) {
+        break;
+      }
+    }
+
+    off = start + 2;
+    len = end - off;
+    pos = end + 1;
+    return DTD;
+  }
+
+  /**
+   * Skips the {@code <![...]]>} section (i.e. {@code CDATA}) at the specified
+   * index.
+   *
+   * @param start The index of the {@code '<'} character.
+   * @param limit The limit of the block.
+   * @return The index after the section, or {@code -1} if the end of the
+   *         section is not in the current block.
+   */
+  private int skipSection(final int start, final int limit) {
+    final BlockReader in = this.in;
+    for (int end = start + 3, ch2 = '\0', ch1 = '\0', ch0; end < limit; ch2 = ch1, ch1 = ch0, ++end) {
+      ch0 = in.at(end);
+      if (ch0 == '>' && ch1 == ']' && ch2 == ']')
+        return end + 1;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Scans the name at the specified index into {@link #off},
+   * {@link #prefixLen} and {@link #localPartLen}.
+   *
+   * @param i The index of the start of the name.
+   * @param end The end index of the construct.
+   * @return The index after the name.
+   */
+  private int scanName(int i, final int end) {
+    final BlockReader in = this.in;
+    final int start = i;
+    int prefixLen = 0;
+    for (int ch; i < end && !isWhitespace(ch = in.at(i)) && ch != '/' && ch != '>' && ch != '='; ++i)
+      if (ch == ':' && prefixLen == 0)
+        prefixLen = i - start + 1;
+
+    off = start;
+    this.prefixLen = prefixLen;
+    localPartLen = i - start - prefixLen;
+    return i;
+  }
+
+  /**
+   * Scans the attributes between the specified indexes into
+   * {@link #attributes} and {@link #attributeCount}.
+   *
+   * @param i The index after the name of the tag.
+   * @param end The index of the end of the attributes.
+   * @param strict Whether the syntax of the attribute specifications and the
+   *          characters of the attribute names are checked.
+   * @throws SAXParseException If {@code strict} is {@code true}, and an
+   *           attribute specification is not well-formed.
+   */
+  private void scanAttributes(int i, final int end, final boolean strict) throws SAXParseException {
+    final BlockReader in = this.in;
+    final int nameOff = off;
+    final int namePrefixLen = prefixLen;
+    final int nameLocalPartLen = localPartLen;
+    attributeCount = 0;
+    while (true) {
+      final int separator = i;
+      while (i < end && isWhitespace(in.at(i)))
+        ++i;
+
+      if (i >= end)
+        break;
+
+      if (strict && i == separator)
+        throw newSAXParseException("Expected whitespace", i);
+
+      final int start = i;
+      if (strict) {
+        if ((i = scanCheckedName(i, end)) == start)
+          throw newSAXParseException("Expected attribute name", i);
+      }
+      else if ((i = scanName(i, end)) == start) {
+        ++i;
+        continue;
+      }
+
+      int j = i;
+      while (j < end && isWhitespace(in.at(j)))
+        ++j;
+
+      if (j == end || in.at(j) != '=') {
+        if (strict)
+          throw newSAXParseException("Expected '=' after attribute name", j);
+
+        i = j;
+        continue;
+      }
+
+      while (++j < end && isWhitespace(in.at(j)));
+      if (j == end) {
+        if (strict)
+          throw newSAXParseException("Expected attribute value", j);
+
+        break;
+      }
+
+      final int quote = in.at(j);
+      final int value;
+      if (quote == '"' || quote == '\'') {
+        if (strict) {
+          if ((j = in.indexOf(quote, '<', '<', value = j + 1, end)) == end)
+            throw newSAXParseException("Expected closing quote of attribute value", j);
+
+          if (in.at(j) == '<')
+            throw newSAXParseException("Unexpected '<' in attribute value", j);
+        }
+        else {
+          j = in.indexOf(quote, value = j + 1, end);
+        }
+
+        i = j + 1;
+      }
+      else if (strict) {
+        throw newSAXParseException("Expected quoted attribute value", j);
+      }
+      else {
+        value = j;
+        while (j < end && !isWhitespace(in.at(j)))
+          ++j;
+
+        i = j;
+      }
+
+      final int index = attributeCount++ * 5;
+      if (index == attributes.length)
+        attributes = Arrays.copyOf(attributes, index * 2);
+
+      attributes[index] = start;
+      attributes[index + 1] = prefixLen;
+      attributes[index + 2] = localPartLen;
+      attributes[index + 3] = value - start - prefixLen - localPartLen;
+      attributes[index + 4] = j - value;
+    }
+
+    off = nameOff;
+    prefixLen = namePrefixLen;
+    localPartLen = nameLocalPartLen;
+  }
+
+  /**
+   * Skips the content and the end tag of the current element, counting only
+   * the depth of nested elements. The end tag of the current element is
+   * scanned into {@link #off}, {@link #prefixLen} and {@link #localPartLen}.
+   * The skipped content is discarded from the {@link BlockReader} as the scan
+   * proceeds, and therefore need not fit into a single block.
+   * <p>
+   * If no more input is available at the moment, this method returns
+   * {@code false} with {@link #isSkipping()} being {@code true}, and the skip
+   * is resumed with the next invocation of this method.
+   *
+   * @return {@code true} if the end tag of the current element was reached, or
+   *         {@code false} if the end of the input was reached, or if no more
+   *         input is available at the moment.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If, in strict mode, the end tag does not match
+   *           the start tag of the current element, or if the end of the
+   *           input is reached before the end tag.
+   */
+  boolean skipElement() throws IOException, SAXParseException {
+    final BlockReader in = this.in;
+    for (int depth = skipDepth == 0 ? 1 : skipDepth, i = pos, end;;) {
+      final int limit = in.limit;
+      if ((i = in.indexOf('<', i, limit)) + 3 >= limit) {
+        end = NEED_INPUT;
+      }
+      else {
+        final int ch = in.at(i + 1);
+        if (ch == '/') {
+          if ((end = in.indexOf('>', i + 2, limit)) == limit)
+            end = NEED_INPUT;
+          else if (--depth == 0) {
+            final int name = scanName(i + 2, end);
+            if (strict)
+              checkEndTag(name, end);
+
+            pos = end + 1;
+            skipDepth = 0;
+            return skipped = true;
+          }
+        }
+        else if (ch == '?') {
+          end = indexOfEnd('?', 1, i + 2, limit);
+        }
+        else if (ch != '!') {
+          if ((end = indexOfTagEnd(i + 1, limit)) != NEED_INPUT && in.at(end - 1) != '/')
+            ++depth;
+        }
+        else if (in.at(i + 2) == '-' && in.at(i + 3) == '-') {
+          end = indexOfEnd('-', 2, i + 4, limit);
+        }
+        else if (in.at(i + 2) == '[') {
+          end = skipSection(i, limit);
+          if (end != NEED_INPUT)
+            --end;
+        }
+        else {
+          end = indexOfTagEnd(i + 2, limit);
+        }
+      }
+
+      if (end != NEED_INPUT) {
+        i = end + 1;
+        continue;
+      }
+
+      final int read = in.fill(i);
+      if (read == -1) {
+        eof = true;
+        skipDepth = 0;
+        if (strict)
+          throw newSAXParseException("Expected end tag </" + openName() + ">", in.limit);
+
+        return false;
+      }
+
+      i = 0;
+      if (read == 0) {
+        pos = 0;
+        skipDepth = depth;
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Returns the offset of the next unit to be scanned from the start of the
+   * input.
+   *
+   * @return The offset of the next unit to be scanned from the start of the
+   *         input.
+   */
+  long getOffset() {
+    return in.getOffset(pos);
+  }
+
+  /**
+   * Returns whether the skip of the current element with
+   * {@link #skipElement()} is waiting for more input.
+   *
+   * @return Whether the skip of the current element with
+   *         {@link #skipElement()} is waiting for more input.
+   */
+  boolean isSkipping() {
+    return skipDepth != 0;
+  }
+
+  /**
+   * Returns the index of the {@code '>'} character that is preceded by at least
+   * the specified number of the specified character (i.e. {@code "-->"}), at
+   * or after the specified index.
+   *
+   * @param ch The character preceding the {@code '>'} character.
+   * @param count The number of characters preceding the {@code '>'} character.
+   * @param i The index at which to start the search.
+   * @param limit The limit of the block.
+   * @return The index of the {@code '>'} character, or {@link #NEED_INPUT} if
+   *         it is not in the current block.
+   */
+  private int indexOfEnd(final int ch, final int count, int i, final int limit) {
+    final BlockReader in = this.in;
+    for (int run = 0, ch0; i < limit; ++i) {
+      if ((ch0 = in.at(i)) == ch)
+        ++run;
+      else if (ch0 == '>' && run >= count)
+        return i;
+      else
+        run = 0;
+    }
+
+    return NEED_INPUT;
+  }
+
+  /**
+   * Returns the index of the {@code '>'} character that ends the tag at the
+   * specified index, skipping over quoted values.
+   *
+   * @param i The index at which to start the search.
+   * @param limit The limit of the block.
+   * @return The index of the {@code '>'} character that ends the tag, or
+   *         {@link #NEED_INPUT} if it is not in the current block.
+   */
+  private int indexOfTagEnd(int i, final int limit) {
+    final BlockReader in = this.in;
+    for (int ch; (i = in.indexOf('>', '"', '\'', i, limit)) < limit; ++i) {
+      if ((ch = in.at(i)) == '>')
+        return i;
+
+      if ((i = in.indexOf(ch, i + 1, limit)) == limit)
+        break;
+    }
+
+    return NEED_INPUT;
+  }
+
+  /**
+   * Scans the name at the specified index into {@link #off},
+   * {@link #prefixLen} and {@link #localPartLen}, like
+   * {@link #scanName(int,int)}, and checks its characters.
+   *
+   * @param i The index of the start of the name.
+   * @param end The end index of the construct.
+   * @return The index after the name.
+   * @throws SAXParseException If a character of the name is not a
+   *           {@code NameChar}, or the first character is not a
+   *           {@code NameStartChar}.
+   */
+  private int scanCheckedName(int i, final int end) throws SAXParseException {
+    final BlockReader in = this.in;
+    final int start = i;
+    int prefixLen = 0;
+    for (int ch, type; i < end; ++i) {
+      if ((ch = in.at(i)) < 0x80) {
+        if ((type = asciiNameChars[ch]) == 0) {
+          if (isWhitespace(ch) || ch == '/' || ch == '>' || ch == '=')
+            break;
+
+          throw newSAXParseException("Illegal character in name: '" + (char)ch + "'", i);
+        }
+
+        if (i == start && (type & NAME_START_CHAR) == 0)
+          throw newSAXParseException("Illegal character at start of name: '" + (char)ch + "'", i);
+
+        if (ch == ':' && prefixLen == 0)
+          prefixLen = i - start + 1;
+      }
+      else if (!utf8 && !isNameChar(ch, i == start)) {
+        throw newSAXParseException("Illegal character in name: '" + (char)ch + "'", i);
+      }
+    }
+
+    off = start;
+    this.prefixLen = prefixLen;
+    localPartLen = i - start - prefixLen;
+    return i;
+  }
+
+  /**
+   * Checks that the names of the attributes of the current start tag are
+   * unique. The names are compared pairwise for up to
+   * {@link #LINEAR_ATTRIBUTES} attributes, and are otherwise looked up in an
+   * open-addressing hash table, so that the check is linear in the number of
+   * attributes.
+   *
+   * @throws SAXParseException If an attribute name occurs more than once.
+   */
+  private void checkAttributes() throws SAXParseException {
+    final int[] attributes = this.attributes;
+    final int count = attributeCount * 5;
+    if (attributeCount <= LINEAR_ATTRIBUTES) {
+      for (int a = 5; a < count; a += 5)
+        for (int b = 0; b < a; b += 5)
+          checkAttribute(a, b);
+
+      return;
+    }
+
+    final int size = Integer.highestOneBit(attributeCount) << 2;
+    if (attributeTable.length < size)
+      attributeTable = new int[size];
+    else
+      Arrays.fill(attributeTable, 0, size, 0);
+
+    final BlockReader in = this.in;
+    final int[] table = attributeTable;
+    final int mask = size - 1;
+    for (int a = 0; a < count; a += 5) {
+      final int off = attributes[a];
+      final int len = attributes[a + 1] + attributes[a + 2];
+      int hash = 0;
+      for (int i = 0; i < len; ++i)
+        hash = 31 * hash + in.at(off + i);
+
+      // The entries are the indexes of the attributes plus 1, whereby 0 is empty
+      for (int i = (hash ^ hash >>> 16) & mask;; i = (i + 1) & mask) {
+        final int entry = table[i];
+        if (entry == 0) {
+          table[i] = a + 1;
+          break;
+        }
+
+        checkAttribute(a, entry - 1);
+      }
+    }
+  }
+
+  /**
+   * Checks that the name of the attribute at the specified index differs from
+   * the name of the attribute at the other specified index.
+   *
+   * @param a The index of the attribute in {@link #attributes}.
+   * @param b The index of the preceding attribute in {@link #attributes}.
+   * @throws SAXParseException If the names are equal.
+   */
+  private void checkAttribute(final int a, final int b) throws SAXParseException {
+    final int[] attributes = this.attributes;
+    final int len = attributes[a + 1] + attributes[a + 2];
+    if (attributes[b + 1] + attributes[b + 2] != len)
+      return;
+
+    final BlockReader in = this.in;
+    final int off = attributes[a];
+    final int other = attributes[b];
+    int i = 0;
+    while (i < len && in.at(off + i) == in.at(other + i))
+      ++i;
+
+    if (i == len)
+      throw newSAXParseException("Attribute \"" + in.toString(off, len) + "\" is specified more than once", off);
+  }
+
+  /**
+   * Pushes the units of the element name between the specified indexes onto
+   * the stack of open elements.
+   *
+   * @param start The index of the start of the name.
+   * @param end The index after the end of the name.
+   */
+  private void push(final int start, final int end) {
+    final BlockReader in = this.in;
+    if (depth + 1 == openNameEnds.length)
+      openNameEnds = Arrays.copyOf(openNameEnds, openNameEnds.length * 2);
+
+    int j = openNameEnds[depth];
+    final int nameEnd = j + end - start;
+    if (nameEnd > openNames.length)
+      openNames = Arrays.copyOf(openNames, Math.max(openNames.length * 2, nameEnd));
+
+    for (int i = start; i < end; ++i, ++j)
+      openNames[j] = in.at(i);
+
+    openNameEnds[++depth] = nameEnd;
+  }
+
+  /**
+   * Checks that the end tag with the name at {@link #off} matches the start
+   * tag of the innermost open element, which is popped off the stack of open
+   * elements.
+   *
+   * @param i The index after the name of the end tag.
+   * @param end The index of the {@code '>'} of the end tag.
+   * @throws SAXParseException If the end tag does not match the start tag of
+   *           the innermost open element, or if no element is open.
+   */
+  private void checkEndTag(int i, final int end) throws SAXParseException {
+    final BlockReader in = this.in;
+    final int len = i - off;
+    if (depth == 0)
+      throw newSAXParseException("Unexpected end tag </" + in.toString(off, len) + ">", off);
+
+    final int start = openNameEnds[depth - 1];
+    final int nameEnd = openNameEnds[depth];
+    boolean matches = nameEnd - start == len;
+    for (int j = 0; matches && j < len; ++j)
+      matches = openNames[start + j] == in.at(off + j);
+
+    if (!matches)
+      throw newSAXParseException("Expected end tag </" + openName() + ">, but found </" + in.toString(off, len) + ">", off);
+
+    while (i < end && isWhitespace(in.at(i)))
+      ++i;
+
+    if (i < end)
+      throw newSAXParseException("Expected '>'", i);
+
+    --depth;
+  }
+
+  /**
+   * Returns the name of the innermost open element.
+   *
+   * @return The name of the innermost open element.
+   */
+  private String openName() {
+    final int start = openNameEnds[depth - 1];
+    final int len = openNameEnds[depth] - start;
+    if (!utf8) {
+      final char[] chars = new char[len];
+      for (int i = 0; i < len; ++i)
+        chars[i] = (char)openNames[start + i];
+
+      return new String(chars);
+    }
+
+    final byte[] bytes = new byte[len];
+    for (int i = 0; i < len; ++i)
+      bytes[i] = (byte)openNames[start + i];
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  SAXParseException newSAXParseException(final String message, final int index) {
+    return new SAXParseException(message, null, ObjectUtil.simpleIdentityString(in), in.getLineNumber(index), in.getColumnNumber(index));
+  }
+}
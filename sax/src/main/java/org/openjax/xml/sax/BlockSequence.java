@@ -0,0 +1,119 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+/**
+ * A reusable {@link CharSequence} view of a region of the current block of a
+ * {@link BlockReader}.
+ * <p>
+ * The view does not copy the data of the region: {@link #charAt(int)} reads
+ * directly from the block, unless the region contains multi-byte UTF-8
+ * sequences, in which case the region is decoded once into a buffer that is
+ * reused by this instance. A {@link String} is only allocated by
+ * {@link #toString()}.
+ * <p>
+ * <b>Note:</b> A {@link BlockSequence} is a flyweight that is rebound to the
+ * next region by the parser, and is therefore only valid for the duration of
+ * the callback in which it was provided. To retain the data, call
+ * {@link #toString()}.
+ *
+ * @see FlyweightSAXHandler
+ */
+public final class BlockSequence implements CharSequence {
+  BlockReader in;
+  int off;
+  int len;
+  private int length = -1;
+  private char[] chars;
+  private boolean aligned;
+
+  BlockSequence() {
+  }
+
+  /**
+   * Binds this view to the specified region of the current block of the
+   * specified {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the region.
+   * @param len The length of the region, in units of the {@link BlockReader}.
+   * @return This {@link BlockSequence}.
+   */
+  BlockSequence set(final BlockReader in, final int off, final int len) {
+    this.in = in;
+    this.off = off;
+    this.len = len;
+    this.length = -1;
+    return this;
+  }
+
+  private int decode() {
+    if (aligned = in.isCharAligned(off, len))
+      return length = len;
+
+    if (chars == null || chars.length < len)
+      chars = new char[Math.max(len, chars == null ? 16 : chars.length * 2)];
+
+    return length = in.toChars(off, len, chars);
+  }
+
+  @Override
+  public int length() {
+    return length != -1 ? length : decode();
+  }
+
+  @Override
+  public char charAt(final int index) {
+    if (index < 0 || index >= length())
+      throw new IndexOutOfBoundsException("index (" + index + ") out of range [0, " + length + ")");
+
+    return aligned ? (char)in.at(off + index) : chars[index];
+  }
+
+  @Override
+  public CharSequence subSequence(final int start, final int end) {
+    if (start < 0 || end > length() || start > end)
+      throw new IndexOutOfBoundsException("start (" + start + "), end (" + end + "), length (" + length + ")");
+
+    return aligned ? in.toString(off + start, end - start) : new String(chars, start, end - start);
+  }
+
+  /**
+   * Tests whether the data of this view is equal to the specified
+   * {@link CharSequence}, without allocating a {@link String}.
+   *
+   * @param str The {@link CharSequence} to compare.
+   * @return Whether the data of this view is equal to the specified
+   *         {@link CharSequence}.
+   * @throws NullPointerException If the specified {@link CharSequence} is
+   *           null.
+   */
+  public boolean contentEquals(final CharSequence str) {
+    return in.regionMatches(off, len, str);
+  }
+
+  /**
+   * Returns a new {@link String} of the data of this view, which remains valid
+   * after the callback in which this view was provided.
+   *
+   * @return A new {@link String} of the data of this view.
+   */
+  @Override
+  public String toString() {
+    return length() == 0 ? "" : aligned ? in.toString(off, len) : new String(chars, 0, length);
+  }
+}
@@ -63,15 +63,15 @@ public class CachedInputSource extends InputSource implements AutoCloseable, LSI
    *           not have a byte stream or character stream.
    */
   private static ReplayReader getReader(final InputSource inputSource) {
-    if (inputSource.getCharacterStream() instanceof ReplayReader)
-      return (ReplayReader)inputSource.getCharacterStream();
+    if (inputSource.getCharacterStream() instanceof CachedReader)
+      return (CachedReader)inputSource.getCharacterStream();
 
     if (inputSource.getCharacterStream() != null)
-      return new ReplayReader(inputSource.getCharacterStream());
+      return new CachedReader(inputSource.getCharacterStream());
 
     if (inputSource.getByteStream() != null)
       // FIXME: Determine the encoding from the element declaration
-      return new ReplayReader(new InputStreamReader(inputSource.getByteStream()));
+      return new CachedReader(new InputStreamReader(inputSource.getByteStream()));
 
     throw new IllegalArgumentException("InputSource has null CharacterStream and ByteStream");
   }
@@ -0,0 +1,169 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A {@link BlockReader} that pulls its input from an underlying {@link Reader}
+ * in blocks of {@code char[]}.
+ * <p>
+ * A block is grown if a single markup construct (i.e. a tag, comment, or
+ * DOCTYPE) does not fit into it.
+ */
+public class CharBlockReader extends BlockReader {
+  private static final int DEFAULT_BLOCK_SIZE = 65536;
+
+  private final Reader in;
+  private char[] block;
+
+  /**
+   * Creates a new {@link CharBlockReader} with the specified {@link Reader}
+   * and a default block size.
+   *
+   * @param in The underlying {@link Reader}.
+   * @throws NullPointerException If the specified {@link Reader} is null.
+   */
+  public CharBlockReader(final Reader in) {
+    this(in, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a new {@link CharBlockReader} with the specified {@link Reader}
+   * and block size.
+   *
+   * @param in The underlying {@link Reader}.
+   * @param blockSize The initial size of the block.
+   * @throws NullPointerException If the specified {@link Reader} is null.
+   * @throws IllegalArgumentException If the specified block size is less than
+   *           {@code 1}.
+   */
+  public CharBlockReader(final Reader in, final int blockSize) {
+    this.in = Objects.requireNonNull(in);
+    if (blockSize < 1)
+      throw new IllegalArgumentException("blockSize (" + blockSize + ") must be positive");
+
+    this.block = new char[blockSize];
+  }
+
+  /**
+   * Creates a new {@link CharBlockReader} with the specified chars as the
+   * single block, which is scanned in place without being copied.
+   *
+   * @param chars The chars.
+   * @param len The number of chars in the block.
+   */
+  CharBlockReader(final char[] chars, final int len) {
+    this.in = null;
+    this.block = chars;
+    this.limit = len;
+  }
+
+  /**
+   * Rebinds this {@link CharBlockReader}, which must have been created with
+   * {@link #CharBlockReader(char[],int)}, to the specified chars as the single
+   * block, so that the reader can be reused for another block.
+   *
+   * @param chars The chars.
+   * @param len The number of chars in the block.
+   * @return This {@link CharBlockReader}.
+   */
+  CharBlockReader rebind(final char[] chars, final int len) {
+    this.block = chars;
+    this.limit = len;
+    this.position = 0;
+    return this;
+  }
+
+  @Override
+  final int at(final int index) {
+    return block[index];
+  }
+
+  @Override
+  final int refill(final int keep) throws IOException {
+    final int remaining = limit - keep;
+    if (keep > 0)
+      System.arraycopy(block, keep, block, 0, remaining);
+    else if (in != null && remaining == block.length)
+      block = Arrays.copyOf(block, block.length * 2);
+
+    limit = remaining;
+    if (in == null)
+      return -1;
+
+    final int read = in.read(block, limit, block.length - limit);
+    if (read > 0)
+      limit += read;
+
+    return read;
+  }
+
+  @Override
+  public String toString(final int off, final int len) {
+    return new String(block, off, len);
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (position == limit && fill(position) == -1)
+      return -1;
+
+    return block[position++];
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+
+    if (position == limit && fill(position) == -1)
+      return -1;
+
+    final int read = Math.min(len, limit - position);
+    System.arraycopy(block, position, cbuf, off, read);
+    position += read;
+    return read;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    if (n <= 0)
+      return 0;
+
+    if (position == limit && fill(position) == -1)
+      return 0;
+
+    final int skipped = (int)Math.min(n, limit - position);
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    return position < limit || in != null && in.ready();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (in != null)
+      in.close();
+  }
+}
@@ -0,0 +1,140 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+import java.io.IOException;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * Delivers the events of a stream of concatenated XML documents to a
+ * {@link FasterSAXHandler}, bracketing the events of each document with
+ * {@link FasterSAXHandler#startDocument()} and
+ * {@link FasterSAXHandler#endDocument()}.
+ * <p>
+ * A document ends when its root element is closed, or when an XML declaration
+ * (i.e. {@code <?xml version="1.0"?>}) is encountered outside of the root
+ * element of an open document. The next document starts with the first event
+ * after the end of the previous document, except for whitespace, which is not
+ * delivered between documents. Accordingly, comments and processing
+ * instructions after the root element of a document are delivered as part of
+ * the next document.
+ */
+final class DocumentSplitter {
+  private final FasterSAXHandler handler;
+  private int depth;
+  private boolean open;
+
+  /**
+   * Creates a new {@link DocumentSplitter} for the specified
+   * {@link FasterSAXHandler}.
+   *
+   * @param handler The {@link FasterSAXHandler}.
+   */
+  DocumentSplitter(final FasterSAXHandler handler) {
+    this.handler = handler;
+  }
+
+  /**
+   * Delivers the specified event of the specified {@link BlockScanner} to the
+   * {@link FasterSAXHandler}, preceded by
+   * {@link FasterSAXHandler#endDocument()} and
+   * {@link FasterSAXHandler#startDocument()} at the boundaries of the
+   * documents.
+   *
+   * @param in The {@link BlockReader}.
+   * @param scanner The {@link BlockScanner}.
+   * @param event The event.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If a parsing error has occurred.
+   */
+  boolean handle(final BlockReader in, final BlockScanner scanner, final int event) throws IOException, SAXParseException {
+    if (open && depth == 0 && event == PROCESSING_INSTRUCTION && scanner.prefixLen + scanner.localPartLen == 3 && in.regionMatches(scanner.off, 3, "xml") && !endDocument())
+      return false;
+
+    if (!open) {
+      if (event == CHARACTERS && isWhitespace(in, scanner.off, scanner.len))
+        return true;
+
+      open = true;
+      if (!handler.startDocument())
+        return false;
+    }
+
+    if (!FastSAXParser.handle(in, scanner, event, handler))
+      return false;
+
+    if (event == START_ELEMENT) {
+      if (!scanner.empty && !scanner.skipped) {
+        ++depth;
+        return true;
+      }
+    }
+    else if (event != END_ELEMENT || --depth > 0) {
+      return true;
+    }
+
+    return depth > 0 || endDocument();
+  }
+
+  /**
+   * Accounts for the end of the element that was closed by the
+   * {@link FasterSAXHandler#endElement()} callback after the resumption of a
+   * skip with {@link BlockScanner#skipElement()}, and delivers
+   * {@link FasterSAXHandler#endDocument()} if it is the root element.
+   *
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  boolean endElement() throws IOException {
+    return --depth > 0 || endDocument();
+  }
+
+  /**
+   * Delivers {@link FasterSAXHandler#endDocument()} if a document is open.
+   *
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  boolean endDocument() throws IOException {
+    if (!open)
+      return true;
+
+    open = false;
+    depth = 0;
+    return handler.endDocument();
+  }
+
+  /**
+   * Resets this {@link DocumentSplitter} for another stream.
+   */
+  void reset() {
+    open = false;
+    depth = 0;
+  }
+
+  private static boolean isWhitespace(final BlockReader in, final int off, final int len) {
+    for (int i = off, end = off + len; i < end; ++i)
+      if (!BlockScanner.isWhitespace(in.at(i)))
+        return false;
+
+    return true;
+  }
+}
@@ -18,7 +18,7 @@ package org.openjax.xml.sax;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -28,38 +28,50 @@ import javax.xml.namespace.QName;
 /**
  * Fast handler for parsing events from {@link FastSAXParser}, which declares
  * callback methods that provide actual string names and values.
+ * <p>
+ * When parsing a {@link BlockReader}, names and values are dereferenced
+ * directly from the block, and the handler need not be created with a
+ * {@link Reader}.
+ * <p>
+ * Names are allocated as new {@link String} instances for each occurrence,
+ * unless the handler is created with a {@link SymbolTable}, in which case
+ * canonical names and {@link QName} instances are obtained from the table.
+ * <p>
+ * Attribute values are reported with the predefined entity references (i.e.
+ * {@code &amp;}) and the character references (i.e. {@code &#x20AC;})
+ * decoded. A value is only copied for decoding if it contains a {@code '&'}
+ * character.
  *
  * @see FastSAXParser
  * @see FasterSAXHandler
+ * @see FlyweightSAXHandler
  */
 public abstract class FastSAXHandler implements FasterSAXHandler {
   private static final class Element {
-    private final String prefix;
-    private final String localName;
-
-    private Element(final String prefix, final String localName) {
-      this.prefix = prefix;
-      this.localName = localName;
-    }
-
-    private String namespace;
+    private String prefix;
+    private String localName;
     private QName name;
+    /** The number of entries in the namespace context before this element. */
+    private int namespaceMark;
+  }
 
-    private Map<String,String> prefixToNamespace;
-
-    private Map<String,String> prefixToNamespace() {
-      return prefixToNamespace == null ? prefixToNamespace = new HashMap<>() : prefixToNamespace;
-    }
+  protected Reader reader;
+  private final SymbolTable symbols;
 
-    private ArrayList<String[]> attributes;
+  /** The open elements, which are reused by depth. */
+  private Element[] stack = new Element[16];
+  private int depth;
 
-    private ArrayList<String[]> attributes() {
-      return attributes == null ? attributes = new ArrayList<>() : attributes;
-    }
-  }
+  /** The namespace context, as consecutive pairs of {@code prefix, namespace}. */
+  private String[] namespaces = new String[2 * 8];
+  private int namespaceCount;
 
-  protected Reader reader;
-  private ArrayList<Element> stack;
+  /**
+   * The attributes of the current element, as consecutive tuples of
+   * {@code prefix, localName, value}.
+   */
+  private String[] attributes = new String[3 * 8];
+  private int attributeCount;
 
   /**
    * Creates a new {@link FastSAXHandler} with the specified input stream.
@@ -68,44 +80,125 @@ public abstract class FastSAXHandler implements FasterSAXHandler {
    * @throws NullPointerException If the specified input stream is null.
    */
   public FastSAXHandler(final Reader reader) {
+    this(reader, null);
+  }
+
+  /**
+   * Creates a new {@link FastSAXHandler} with the specified input stream and
+   * {@link SymbolTable}, from which the names, namespaces and {@link QName}
+   * instances are obtained.
+   *
+   * @param reader The input stream.
+   * @param symbols The {@link SymbolTable}, or {@code null} to allocate a new
+   *          {@link String} for each name.
+   * @throws NullPointerException If the specified input stream is null.
+   */
+  public FastSAXHandler(final Reader reader, final SymbolTable symbols) {
     this.reader = Objects.requireNonNull(reader);
+    this.symbols = symbols;
   }
 
   /**
    * Creates a new {@link FastSAXHandler} with a null input stream.
    */
   protected FastSAXHandler() {
+    this((SymbolTable)null);
+  }
+
+  /**
+   * Creates a new {@link FastSAXHandler} with a null input stream and the
+   * specified {@link SymbolTable}, from which the names, namespaces and
+   * {@link QName} instances are obtained. The {@link SymbolTable} can be shared
+   * by handlers of concurrent parses.
+   *
+   * @param symbols The {@link SymbolTable}, or {@code null} to allocate a new
+   *          {@link String} for each name.
+   */
+  protected FastSAXHandler(final SymbolTable symbols) {
+    this.symbols = symbols;
   }
 
   private static final int DEFAULT_BUFFER_SIZE = 64;
   private static final double RESIZE_FACTOR = 1.5;
   private char[] buf = new char[DEFAULT_BUFFER_SIZE];
+  /** The reader of {@link #buf}, which unescapes the references in values. */
+  private final CharBlockReader unescaper = new CharBlockReader(buf, 0);
 
-  @SuppressWarnings("unused")
-  private String read(final Reader in, final int len) throws IOException {
+  private char[] buf(final int len) {
     if (len >= buf.length) {
       final char[] resized = new char[RESIZE_FACTOR < 0 ? len - (int)RESIZE_FACTOR : (int)((len + 1) * RESIZE_FACTOR)];
       System.arraycopy(buf, 0, resized, 0, buf.length);
       buf = resized;
     }
 
+    return buf;
+  }
+
+  private String read(final Reader in, final int len, final boolean symbol) throws IOException {
+    final char[] buf = buf(len);
     in.read(buf, 0, len);
-    return new String(buf, 0, len);
+    return symbol && symbols != null ? symbols.getSymbol(buf, 0, len) : new String(buf, 0, len);
   }
 
-  private String lookupNamespace(final String prefix) {
-    if (stack != null) {
-      for (int i = stack.size() - 1; i >= 0; --i) {
-        final Element element = stack.get(i);
-        final String namespace;
-        if (element.prefixToNamespace != null && (namespace = element.prefixToNamespace.get(prefix)) != null)
-          return namespace;
+  private String readValue(final Reader in, final int len, final boolean symbol) throws IOException {
+    final char[] buf = buf(len);
+    in.read(buf, 0, len);
+    for (int i = 0; i < len; ++i) {
+      if (buf[i] == '&') {
+        final String unescaped = unescaper.rebind(buf, len).toUnescapedString(0, len);
+        return symbol && symbols != null ? symbols.getSymbol(unescaped) : unescaped;
       }
     }
 
+    return symbol && symbols != null ? symbols.getSymbol(buf, 0, len) : new String(buf, 0, len);
+  }
+
+  private String symbol(final BlockReader in, final int off, final int len) {
+    return symbols != null ? symbols.getSymbol(in, off, len) : in.toString(off, len);
+  }
+
+  private String value(final BlockReader in, final int off, final int len, final boolean symbol) {
+    final int end = off + len;
+    if (in.indexOf('&', off, end) == end)
+      return symbol ? symbol(in, off, len) : in.toString(off, len);
+
+    final String unescaped = in.unescape(off, len, new StringBuilder(len)).toString();
+    return symbol && symbols != null ? symbols.getSymbol(unescaped) : unescaped;
+  }
+
+  private QName name(final String namespaceURI, final String localPart, final String prefix) {
+    return symbols != null ? symbols.getQName(namespaceURI, localPart, prefix) : new QName(namespaceURI, localPart, prefix);
+  }
+
+  /**
+   * Returns the namespace bound to the specified prefix in the namespace
+   * context, which is scanned from the innermost declaration outwards.
+   * Prefixes are compared by identity first, which is sufficient for the
+   * canonical prefixes of a {@link SymbolTable}.
+   *
+   * @param prefix The prefix.
+   * @return The namespace bound to the specified prefix, or {@code null} if
+   *         the prefix is not bound.
+   */
+  private String lookupNamespace(final String prefix) {
+    final String[] namespaces = this.namespaces;
+    for (int i = namespaceCount - 2; i >= 0; i -= 2) {
+      final String declared = namespaces[i];
+      if (declared == prefix || declared.equals(prefix))
+        return namespaces[i + 1];
+    }
+
     return null;
   }
 
+  private void declareNamespace(final String prefix, final String namespace) {
+    if (namespaceCount == namespaces.length)
+      namespaces = Arrays.copyOf(namespaces, namespaceCount * 2);
+
+    namespaces[namespaceCount++] = prefix;
+    namespaces[namespaceCount++] = namespace;
+  }
+
   private boolean inDeclaration;
 
   @Override
@@ -120,6 +213,12 @@ public abstract class FastSAXHandler implements FasterSAXHandler {
     return true;
   }
 
+  @Override
+  public final boolean startDeclaration(final BlockReader in, final int off, final int nameLen) throws IOException {
+    inDeclaration = true;
+    return true;
+  }
+
   @Override
   public final boolean attribute(final int prefixLen, final int localPartLen, final int skip, final int valueLen) throws IOException {
     if (inDeclaration)
@@ -127,71 +226,111 @@ public abstract class FastSAXHandler implements FasterSAXHandler {
 
     final String prefix;
     if (prefixLen > 0) {
-      prefix = read(reader, prefixLen - 1);
+      prefix = read(reader, prefixLen - 1, true);
       reader.read();
     }
     else {
-      prefix = null;
+      prefix = "";
     }
 
-    final String localName = read(reader, localPartLen);
+    final String localName = read(reader, localPartLen, true);
     reader.skip(skip);
-    final String value = read(reader, valueLen);
-    final Element element = stack.get(stack.size() - 1);
-    if (prefixLen == 0 && "xmlns".equals(localName)) {
-      element.prefixToNamespace().put("", value);
-    }
-    else if ("xmlns".equals(prefix)) {
-      element.prefixToNamespace().put(localName, value);
-    }
+    attribute(prefix, localName, readValue(reader, valueLen, isNamespace(prefix, localName)));
+    return true;
+  }
+
+  @Override
+  public final boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) throws IOException {
+    if (inDeclaration)
+      return true;
 
-    element.attributes().add(new String[] {prefix != null ? prefix : "", localName, value});
+    final String prefix = prefixLen > 0 ? symbol(in, off, prefixLen - 1) : "";
+    final int localNameOff = off + prefixLen;
+    final String localName = symbol(in, localNameOff, localPartLen);
+    final int valueOff = localNameOff + localPartLen + skip;
+    attribute(prefix, localName, value(in, valueOff, valueLen, isNamespace(prefix, localName)));
     return true;
   }
 
+  private static boolean isNamespace(final String prefix, final String localName) {
+    return prefix.length() == 0 ? "xmlns".equals(localName) : "xmlns".equals(prefix);
+  }
+
+  private void attribute(final String prefix, final String localName, final String value) {
+    if (prefix.length() == 0 && "xmlns".equals(localName))
+      declareNamespace("", value);
+    else if ("xmlns".equals(prefix))
+      declareNamespace(localName, value);
+
+    if (attributeCount == attributes.length)
+      attributes = Arrays.copyOf(attributes, attributeCount * 2);
+
+    attributes[attributeCount++] = prefix;
+    attributes[attributeCount++] = localName;
+    attributes[attributeCount++] = value;
+  }
+
   @Override
   public final boolean startElement(final int prefixLen, final int localPartLen) throws IOException {
     final String prefix;
     if (prefixLen > 0) {
-      prefix = read(reader, prefixLen - 1);
+      prefix = read(reader, prefixLen - 1, true);
       reader.read();
     }
     else {
       prefix = "";
     }
 
-    if (stack == null)
-      stack = new ArrayList<>();
+    startElement(prefix, read(reader, localPartLen, true));
+    return true;
+  }
 
-    stack.add(new Element(prefix, read(reader, localPartLen)));
+  @Override
+  public final boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) throws IOException {
+    startElement(prefixLen > 0 ? symbol(in, off, prefixLen - 1) : "", symbol(in, off + prefixLen, localPartLen));
     return true;
   }
 
+  private void startElement(final String prefix, final String localName) {
+    if (depth == stack.length)
+      stack = Arrays.copyOf(stack, depth * 2);
+
+    Element element = stack[depth];
+    if (element == null)
+      element = stack[depth] = new Element();
+
+    ++depth;
+    element.prefix = prefix;
+    element.localName = localName;
+    element.namespaceMark = namespaceCount;
+    attributeCount = 0;
+  }
+
   @Override
   public final boolean startElement() throws IOException {
-    final Element element = stack.get(stack.size() - 1);
-    if (element.namespace == null)
-      element.namespace = lookupNamespace(element.prefix);
-
+    final Element element = stack[depth - 1];
     final Map<QName,String> attributes;
-    if (element.attributes == null) {
+    if (attributeCount == 0) {
       attributes = null;
     }
     else {
+      final String[] tuples = this.attributes;
       attributes = new HashMap<>();
-      for (final String[] attribute : element.attributes) {
-        final QName key = new QName(lookupNamespace(attribute[0]), attribute[1], attribute[0]);
-        attributes.put(key, attribute[2]);
-      }
+      for (int i = 0; i < attributeCount; i += 3)
+        attributes.put(name(lookupNamespace(tuples[i]), tuples[i + 1], tuples[i]), tuples[i + 2]);
+
+      attributeCount = 0;
     }
 
-    element.name = new QName(element.namespace, element.localName, element.prefix);
+    element.name = name(lookupNamespace(element.prefix), element.localName, element.prefix);
     return startElement(element.name, attributes);
   }
 
   @Override
   public final boolean endElement() throws IOException {
-    return endElement(stack.remove(stack.size() - 1).name);
+    final Element element = stack[--depth];
+    namespaceCount = element.namespaceMark;
+    return endElement(element.name);
   }
 
   /**
@@ -221,9 +360,24 @@ public abstract class FastSAXHandler implements FasterSAXHandler {
    * parsing invocation.
    */
   public void reset() {
-    if (this.stack != null)
-      this.stack.clear();
-
+    this.depth = 0;
+    this.namespaceCount = 0;
+    this.attributeCount = 0;
     this.inDeclaration = false;
   }
+
+  /**
+   * Resets the local variables in this handler, and binds it to the specified
+   * input stream, so it can be used in another parsing invocation. The
+   * allocated buffers and stacks are retained, and are thereby warm for the
+   * next parsing invocation.
+   *
+   * @param reader The input stream, or {@code null} if the handler is used to
+   *          parse a {@link BlockReader}.
+   * @see FastSAXHandlerPool
+   */
+  public void reset(final Reader reader) {
+    reset();
+    this.reader = reader;
+  }
 }
\ No newline at end of file
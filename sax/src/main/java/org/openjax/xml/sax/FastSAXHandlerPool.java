@@ -0,0 +1,101 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.Reader;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe pool of {@link FastSAXHandler} instances, which are
+ * {@linkplain FastSAXHandler#reset(Reader) reset} and reused across parsing
+ * invocations, so that the buffers and stacks of the handlers remain warm.
+ * <p>
+ * A handler is obtained with {@link #acquire(Reader)}, which returns an idle
+ * handler of the pool, or a new handler from the {@link Supplier} if the pool
+ * is empty. A handler is returned to the pool with
+ * {@link #release(FastSAXHandler)}, and is discarded if the pool is full.
+ *
+ * @param <H> The type parameter of the {@link FastSAXHandler}.
+ */
+public final class FastSAXHandlerPool<H extends FastSAXHandler> {
+  private final Supplier<? extends H> supplier;
+  private final ArrayBlockingQueue<H> idle;
+
+  /**
+   * Creates a new {@link FastSAXHandlerPool} with the specified
+   * {@link Supplier} of new handlers and capacity.
+   *
+   * @param supplier The {@link Supplier} of new handlers.
+   * @param capacity The maximum number of idle handlers that are retained by
+   *          the pool.
+   * @throws NullPointerException If the specified {@link Supplier} is null.
+   * @throws IllegalArgumentException If the specified capacity is less than
+   *           {@code 1}.
+   */
+  public FastSAXHandlerPool(final Supplier<? extends H> supplier, final int capacity) {
+    this.supplier = Objects.requireNonNull(supplier);
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity (" + capacity + ") must be positive");
+
+    this.idle = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Returns an idle handler of this pool, or a new handler from the
+   * {@link Supplier} if the pool is empty, bound to the specified input stream.
+   *
+   * @param reader The input stream, or {@code null} if the handler is used to
+   *          parse a {@link BlockReader}.
+   * @return An idle handler of this pool, or a new handler from the
+   *         {@link Supplier} if the pool is empty.
+   * @throws NullPointerException If the {@link Supplier} returns null.
+   */
+  public H acquire(final Reader reader) {
+    H handler = idle.poll();
+    if (handler == null)
+      handler = Objects.requireNonNull(supplier.get());
+
+    handler.reset(reader);
+    return handler;
+  }
+
+  /**
+   * Returns the specified handler to this pool. The handler is reset and
+   * unbound from its input stream, and is discarded if the pool is full. The
+   * handler must not be used after it is released.
+   *
+   * @param handler The handler.
+   * @return {@code true} if the handler was retained by this pool, or
+   *         {@code false} if it was discarded.
+   * @throws NullPointerException If the specified handler is null.
+   */
+  public boolean release(final H handler) {
+    handler.reset(null);
+    return idle.offer(handler);
+  }
+
+  /**
+   * Returns the number of idle handlers in this pool.
+   *
+   * @return The number of idle handlers in this pool.
+   */
+  public int size() {
+    return idle.size();
+  }
+}
@@ -16,8 +16,14 @@
 
 package org.openjax.xml.sax;
 
+import static javax.xml.stream.XMLStreamConstants.*;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
 
 import org.libj.lang.ObjectUtil;
 import org.xml.sax.SAXParseException;
@@ -28,13 +34,56 @@ import org.xml.sax.SAXParseException;
  * This parser performs as few operations as necessary to parse well-formed XML
  * documents.
  * <p>
+ * The scanning state and the blocks of the parse methods for
+ * {@link BlockReader}s and UTF-8 encoded input are retained in a thread-local
+ * context, and reused by subsequent parse invocations on the same thread,
+ * which avoids the per-document allocation of the block for streams of many
+ * small documents. A block that has grown beyond its initial size to fit a
+ * large construct is not retained.
+ * <p>
  * <b>Note:</b> This parser does not perform any validation.
  *
  * @see FasterSAXHandler
+ * @see ParallelSAXParser
  */
 public final class FastSAXParser {
   private static final int DEFAULT_READ_LIMIT = 8192;
 
+  /**
+   * The reusable scanning state and block of the parse invocations on a
+   * thread.
+   */
+  private static final class Context {
+    private final BlockScanner scanner = new BlockScanner();
+    private Utf8BlockReader stream;
+    private boolean inUse;
+
+    private Context acquire() {
+      // A handler may parse another document from a callback on the same thread
+      final Context context = inUse ? new Context() : this;
+      context.inUse = true;
+      return context;
+    }
+
+    private Utf8BlockReader stream(final InputStream in) {
+      if (stream == null)
+        return stream = new Utf8BlockReader(in);
+
+      stream.reset(in);
+      return stream;
+    }
+
+    private void release() {
+      scanner.release();
+      if (stream != null)
+        stream.reset(null);
+
+      inUse = false;
+    }
+  }
+
+  private static final ThreadLocal<Context> context = ThreadLocal.withInitial(Context::new);
+
   private static boolean q(final boolean inDeclaration, final int ch) {
     return ch == '"' || inDeclaration && ch == '\'';
   }
@@ -45,6 +94,13 @@ public final class FastSAXParser {
    * <p>
    * <b>Note:</b> The provided input stream must support
    * {@link Reader#mark(int)}.
+   * <p>
+   * <b>Note:</b> If the provided input stream is a {@link BlockReader}, this
+   * method delegates to {@link #parse(BlockReader,FasterSAXHandler)}. If the
+   * specified {@link FasterSAXHandler} relies on the callbacks with a
+   * {@link BlockReader} (i.e. {@link FasterSAXHandler#requiresBlockReader()}
+   * returns {@code true}), the input stream is read through a
+   * {@link CharBlockReader}.
    *
    * @param in The {@link Reader} input stream.
    * @param handler The {@link FasterSAXHandler}.
@@ -58,6 +114,16 @@ public final class FastSAXParser {
    * @see org.libj.io.ReplayReader
    */
   public static void parse(final Reader in, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    if (in instanceof BlockReader) {
+      parse((BlockReader)in, handler);
+      return;
+    }
+
+    if (handler.requiresBlockReader()) {
+      parse(new CharBlockReader(in), handler);
+      return;
+    }
+
     char skipToNext = '\0';
     boolean inElement = false;
     int startElem = -1;
@@ -217,6 +283,346 @@ public final class FastSAXParser {
     handler.endDocument();
   }
 
+  /**
+   * Parse the data provided by the {@link BlockReader}, and handle parse events
+   * with the specified {@link FasterSAXHandler}.
+   * <p>
+   * The input is pulled in large blocks, which are scanned in place with an
+   * index cursor. Names and values are reported to the offset callbacks of the
+   * {@link FasterSAXHandler} (i.e.
+   * {@link FasterSAXHandler#startElement(BlockReader,int,int,int)}), which, by
+   * default, position the {@link BlockReader} at the offset and delegate to the
+   * length callbacks (i.e. {@link FasterSAXHandler#startElement(int,int)}).
+   * Handlers that are bound to the {@link BlockReader} thereby receive the same
+   * events as with {@link #parse(Reader,FasterSAXHandler)}, without the need
+   * for {@link Reader#mark(int)}, {@link Reader#reset()}, or
+   * {@link Reader#skip(long)} on the underlying stream.
+   * <p>
+   * In addition, character data and CDATA sections are reported to
+   * {@link FasterSAXHandler#characters(BlockReader,int,int)} and
+   * {@link FasterSAXHandler#cdata(BlockReader,int,int)}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link BlockReader} or
+   *           {@link FasterSAXHandler} is null.
+   */
+  public static void parse(final BlockReader in, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    parse(in, handler, false);
+  }
+
+  /**
+   * Parse the data provided by the {@link BlockReader}, and handle parse events
+   * with the specified {@link FasterSAXHandler}, optionally checking the
+   * well-formedness of the elements and attributes.
+   * <p>
+   * In strict mode, a {@link SAXParseException} with the line and column of the
+   * offending construct is thrown if a start tag and end tag do not match, if
+   * an element is not closed at the end of the input, if an attribute name
+   * occurs more than once in a start tag, if an element or attribute name
+   * contains a character that is not allowed in a name, or if an attribute
+   * specification is not of the form {@code name="value"} (i.e. the value is
+   * not quoted). Events that precede the offending construct have already been
+   * delivered to the {@link FasterSAXHandler}. The content of elements skipped
+   * with {@link FasterSAXHandler#skipElement()} is not checked.
+   * <p>
+   * <b>Note:</b> Strict mode does not check the rest of the well-formedness
+   * constraints of XML (i.e. character data outside of the root element, or
+   * the syntax of comments and processing instructions), and does not validate
+   * the document.
+   *
+   * @param in The {@link BlockReader}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @param strict Whether the well-formedness of the elements and attributes
+   *          is checked.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed, or,
+   *           in strict mode, if it is not well-formed.
+   * @throws NullPointerException If the specified {@link BlockReader} or
+   *           {@link FasterSAXHandler} is null.
+   * @see #parse(BlockReader,FasterSAXHandler)
+   */
+  public static void parse(final BlockReader in, final FasterSAXHandler handler, final boolean strict) throws IOException, SAXParseException {
+    Objects.requireNonNull(in);
+    final Context context = FastSAXParser.context.get().acquire();
+    try {
+      parse(in, context.scanner, handler, strict);
+    }
+    finally {
+      context.release();
+    }
+  }
+
+  private static void parse(final BlockReader in, final BlockScanner scanner, final FasterSAXHandler handler, final boolean strict) throws IOException, SAXParseException {
+    scanner.reset(in, strict);
+    final XmlMetrics metrics = Metrics.enabled();
+    if (metrics != null) {
+      parse(in, scanner, handler, metrics);
+      return;
+    }
+
+    if (!handler.startDocument())
+      return;
+
+    for (int event; (event = scanner.next()) != END_DOCUMENT;)
+      if (!handle(in, scanner, event, handler))
+        return;
+
+    handler.endDocument();
+  }
+
+  /**
+   * Parses the document, and reports the counts of events and elements to the
+   * specified {@link XmlMetrics}. This loop is separate, so that the loop for
+   * absent or disabled metrics is not burdened with the counters.
+   */
+  private static void parse(final BlockReader in, final BlockScanner scanner, final FasterSAXHandler handler, final XmlMetrics metrics) throws IOException, SAXParseException {
+    final Object context = metrics.beginParse();
+    final long start = System.nanoTime();
+    final long offset = scanner.getOffset();
+    long events = 0;
+    long elements = 0;
+    try {
+      if (!handler.startDocument())
+        return;
+
+      for (int event; (event = scanner.next()) != END_DOCUMENT;) {
+        ++events;
+        if (event == START_ELEMENT)
+          ++elements;
+
+        if (!handle(in, scanner, event, handler))
+          return;
+      }
+
+      handler.endDocument();
+    }
+    finally {
+      metrics.parsed(context, scanner.getOffset() - offset, events, elements, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Parse the UTF-8 encoded data provided by the {@link InputStream}, and
+   * handle parse events with the specified {@link FasterSAXHandler}.
+   * <p>
+   * Markup is scanned on the raw bytes of the stream, and only the names and
+   * values that the {@link FasterSAXHandler} dereferences are decoded. All
+   * offsets and lengths reported to the {@link FasterSAXHandler} are in units
+   * of bytes.
+   *
+   * @param in The {@link InputStream}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link InputStream} or
+   *           {@link FasterSAXHandler} is null.
+   * @see Utf8BlockReader
+   */
+  public static void parse(final InputStream in, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    parse(in, handler, false);
+  }
+
+  /**
+   * Parse the UTF-8 encoded data provided by the {@link InputStream}, and
+   * handle parse events with the specified {@link FasterSAXHandler},
+   * optionally checking the well-formedness of the elements and attributes, as
+   * described in {@link #parse(BlockReader,FasterSAXHandler,boolean)}.
+   *
+   * @param in The {@link InputStream}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @param strict Whether the well-formedness of the elements and attributes
+   *          is checked.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed, or,
+   *           in strict mode, if it is not well-formed.
+   * @throws NullPointerException If the specified {@link InputStream} or
+   *           {@link FasterSAXHandler} is null.
+   * @see Utf8BlockReader
+   */
+  public static void parse(final InputStream in, final FasterSAXHandler handler, final boolean strict) throws IOException, SAXParseException {
+    Objects.requireNonNull(in);
+    final Context context = FastSAXParser.context.get().acquire();
+    try {
+      parse(context.stream(in), context.scanner, handler, strict);
+    }
+    finally {
+      context.release();
+    }
+  }
+
+  /**
+   * Parse the UTF-8 encoded data in the remaining bytes of the specified
+   * {@link ByteBuffer}, and handle parse events with the specified
+   * {@link FasterSAXHandler}.
+   * <p>
+   * The {@link ByteBuffer} is scanned in place, and only the names and values
+   * that the {@link FasterSAXHandler} dereferences are decoded. All offsets
+   * and lengths reported to the {@link FasterSAXHandler} are in units of
+   * bytes. The position of the specified {@link ByteBuffer} is not modified.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link ByteBuffer} or
+   *           {@link FasterSAXHandler} is null.
+   * @see Utf8BlockReader
+   */
+  public static void parse(final ByteBuffer buffer, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    parse(new Utf8BlockReader(buffer), handler);
+  }
+
+  /**
+   * Parse the UTF-8 encoded data in the specified {@code byte[]}, and handle
+   * parse events with the specified {@link FasterSAXHandler}.
+   * <p>
+   * The {@code byte[]} is scanned in place, and only the names and values that
+   * the {@link FasterSAXHandler} dereferences are decoded. All offsets and
+   * lengths reported to the {@link FasterSAXHandler} are in units of bytes.
+   *
+   * @param bytes The {@code byte[]}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@code byte[]} or
+   *           {@link FasterSAXHandler} is null.
+   * @see Utf8BlockReader
+   */
+  public static void parse(final byte[] bytes, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    parse(new Utf8BlockReader(bytes), handler);
+  }
+
+  /**
+   * Parse the UTF-8 encoded file at the specified {@link Path}, and handle
+   * parse events with the specified {@link FasterSAXHandler}.
+   * <p>
+   * The file is memory-mapped and scanned in place, in consecutive mapped
+   * windows for files larger than the window size. All offsets and lengths
+   * reported to the {@link FasterSAXHandler} are in units of bytes.
+   *
+   * @param path The {@link Path} of the file.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link Path} or
+   *           {@link FasterSAXHandler} is null.
+   * @see MappedBlockReader
+   */
+  public static void parse(final Path path, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    try (final MappedBlockReader in = new MappedBlockReader(path)) {
+      parse(in, handler);
+    }
+  }
+
+  /**
+   * Parse the stream of concatenated XML documents provided by the
+   * {@link BlockReader}, and handle parse events with the specified
+   * {@link FasterSAXHandler}.
+   * <p>
+   * The events of each document are bracketed by
+   * {@link FasterSAXHandler#startDocument()} and
+   * {@link FasterSAXHandler#endDocument()}. A document ends when its root
+   * element is closed, or when an XML declaration is encountered outside of the
+   * root element of an open document, and the next document starts with the
+   * next event that is not whitespace. Comments and processing instructions
+   * after the root element of a document are therefore delivered as part of
+   * the next document. The documents are scanned in the same blocks, and
+   * returning {@code false} from {@link FasterSAXHandler#endDocument()} stops
+   * the parsing of the stream.
+   *
+   * @param in The {@link BlockReader}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link BlockReader} or
+   *           {@link FasterSAXHandler} is null.
+   * @see #parse(BlockReader,FasterSAXHandler)
+   */
+  public static void parseDocuments(final BlockReader in, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    final DocumentSplitter splitter = new DocumentSplitter(Objects.requireNonNull(handler));
+    final Context context = FastSAXParser.context.get().acquire();
+    try {
+      parseDocuments(in, context.scanner, splitter);
+    }
+    finally {
+      context.release();
+    }
+  }
+
+  /**
+   * Parse the stream of concatenated UTF-8 encoded XML documents provided by
+   * the {@link InputStream}, and handle parse events with the specified
+   * {@link FasterSAXHandler}. All offsets and lengths reported to the
+   * {@link FasterSAXHandler} are in units of bytes.
+   *
+   * @param in The {@link InputStream}.
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link InputStream} or
+   *           {@link FasterSAXHandler} is null.
+   * @see #parseDocuments(BlockReader,FasterSAXHandler)
+   */
+  public static void parseDocuments(final InputStream in, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    Objects.requireNonNull(in);
+    final DocumentSplitter splitter = new DocumentSplitter(Objects.requireNonNull(handler));
+    final Context context = FastSAXParser.context.get().acquire();
+    try {
+      parseDocuments(context.stream(in), context.scanner, splitter);
+    }
+    finally {
+      context.release();
+    }
+  }
+
+  private static void parseDocuments(final BlockReader in, final BlockScanner scanner, final DocumentSplitter splitter) throws IOException, SAXParseException {
+    scanner.reset(in);
+    for (int event; (event = scanner.next()) != END_DOCUMENT;)
+      if (!splitter.handle(in, scanner, event))
+        return;
+
+    splitter.endDocument();
+  }
+
+  static boolean handle(final BlockReader in, final BlockScanner scanner, final int event, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    switch (event) {
+      case START_ELEMENT:
+        if (!handler.startElement(in, scanner.off, scanner.prefixLen, scanner.localPartLen) || !attributes(in, scanner, handler) || !handler.startElement())
+          return false;
+
+        if (scanner.empty)
+          return handler.endElement();
+
+        return !handler.skipElement() || !scanner.skipElement() || handler.endElement();
+      case END_ELEMENT:
+        return handler.endElement();
+      case PROCESSING_INSTRUCTION:
+        return handler.startDeclaration(in, scanner.off, scanner.prefixLen + scanner.localPartLen) && attributes(in, scanner, handler) && handler.endDeclaration();
+      case CHARACTERS:
+        return handler.characters(in, scanner.off, scanner.len);
+      case CDATA:
+        return handler.cdata(in, scanner.off, scanner.len);
+      case COMMENT:
+        return handler.comment(in, scanner.off, scanner.len);
+      case DTD:
+        return handler.doctype(in, scanner.off, scanner.len);
+      default:
+        throw new IllegalStateException("Unexpected event: " + event);
+    }
+  }
+
+  private static boolean attributes(final BlockReader in, final BlockScanner scanner, final FasterSAXHandler handler) throws IOException {
+    final int[] attributes = scanner.attributes;
+    for (int i = 0, len = scanner.attributeCount * 5; i < len; i += 5)
+      if (!handler.attribute(in, attributes[i], attributes[i + 1], attributes[i + 2], attributes[i + 3], attributes[i + 4]))
+        return false;
+
+    return true;
+  }
+
   private FastSAXParser() {
   }
 }
\ No newline at end of file
@@ -28,11 +28,33 @@ import java.io.IOException;
  * that is being parsed. Implementations of this interface are expected to
  * possess a reference to the source {@link java.io.Reader} to be able to
  * re-read the contents.
+ * <p>
+ * When parsing a {@link BlockReader}, the parser invokes the offset callback
+ * methods (i.e. {@link #startElement(BlockReader,int,int,int)}), which provide
+ * the offsets of names and values in the current block of the
+ * {@link BlockReader}. The default implementations of these methods position
+ * the {@link BlockReader} at the offset, and delegate to the respective length
+ * callback methods. Implementations can override the offset callback methods
+ * to dereference the names and values directly from the block.
  *
  * @see FastSAXParser
  * @see FastSAXHandler
  */
 public interface FasterSAXHandler {
+  /**
+   * Returns whether this handler relies on the offset callback methods, which
+   * are only invoked when parsing a {@link BlockReader}. If this method
+   * returns {@code true},
+   * {@link FastSAXParser#parse(java.io.Reader,FasterSAXHandler)} parses a
+   * {@link java.io.Reader} that is not a {@link BlockReader} through a
+   * {@link CharBlockReader}.
+   *
+   * @return Whether this handler relies on the offset callback methods.
+   */
+  default boolean requiresBlockReader() {
+    return false;
+  }
+
   /**
    * Called when the start of the document is encountered.
    *
@@ -65,6 +87,22 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Called when a declaration element is encountered (i.e. {@code '<?xml'}) in
+   * a {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the name of the element in the current block.
+   * @param nameLen The length of the name of the element, sans {@code <?} and
+   *          {@code ?>} (i.e. {@code 'xml'}).
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean startDeclaration(final BlockReader in, final int off, final int nameLen) throws IOException {
+    in.seek(off);
+    return startDeclaration(nameLen);
+  }
+
   /**
    * Called when an declaration end tag is encountered (i.e. {@code '?>'}).
    *
@@ -87,6 +125,23 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Callback method for DOCTYPE blocks (i.e. {@code <!DOCTYPE [ ]>}) in a
+   * {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the {@code DOCTYPE [ ]} string in the current
+   *          block.
+   * @param doctypeLen The length of the {@code DOCTYPE [ ]} string, sans
+   *          {@code <!} and {@code >}.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean doctype(final BlockReader in, final int off, final int doctypeLen) throws IOException {
+    in.seek(off);
+    return doctype(doctypeLen);
+  }
+
   /**
    * Callback method for comment blocks (i.e. {@code <!-- COMMENT -->}).
    *
@@ -99,6 +154,61 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Callback method for comment blocks (i.e. {@code <!-- COMMENT -->}) in a
+   * {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the {@code COMMENT} string in the current block.
+   * @param commentLen The length of the {@code COMMENT} string, sans
+   *          {@code <!--} and {@code -->}.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean comment(final BlockReader in, final int off, final int commentLen) throws IOException {
+    in.seek(off);
+    return comment(commentLen);
+  }
+
+  /**
+   * Callback method for character data in a {@link BlockReader}.
+   * <p>
+   * The character data is reported as is (i.e. with references not decoded),
+   * and can be dereferenced with entity and character references decoded with
+   * {@link BlockReader#toUnescapedString(int,int)}. Contiguous character data
+   * may be reported in more than one invocation of this method.
+   * <p>
+   * <b>Note:</b> Character data is only reported when parsing a
+   * {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the character data in the current block.
+   * @param len The length of the character data.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean characters(final BlockReader in, final int off, final int len) throws IOException {
+    return true;
+  }
+
+  /**
+   * Callback method for CDATA sections (i.e. {@code <![CDATA[ DATA ]]>}) in a
+   * {@link BlockReader}.
+   * <p>
+   * <b>Note:</b> CDATA sections are only reported when parsing a
+   * {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the {@code DATA} string in the current block.
+   * @param len The length of the {@code DATA} string, sans {@code <![CDATA[}
+   *          and {@code ]]>}.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean cdata(final BlockReader in, final int off, final int len) throws IOException {
+    return true;
+  }
+
   /**
    * Callback method for attribute occurrences.
    *
@@ -118,6 +228,30 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Callback method for attribute occurrences in a {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the attribute name in the current block.
+   * @param prefixLen The length of the prefix part of the attribute name, which
+   *          is {@code == 0} if the attribute name does not have a prefix, and
+   *          {@code >= 2} if the attribute name does not has a prefix, as this
+   *          includes the {@code ':'} character.
+   * @param localPartLen The length of the local part of the attribute name.
+   * @param skip The length of the data to skip, which matches the regex:
+   *          {@code "[ \n\r\t]*=[ \n\r\t]*[\"']"}.
+   * @param valueLen The length of the attribute value (does not include the
+   *          surrounding quotes). The value is reported as is, and its
+   *          references can be decoded with
+   *          {@link BlockReader#toUnescapedString(int,int)}.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) throws IOException {
+    in.seek(off);
+    return attribute(prefixLen, localPartLen, skip, valueLen);
+  }
+
   /**
    * Called when an element's "start tag" is opened with a {@code '<'} character.
    *
@@ -131,6 +265,23 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Called when an element's "start tag" is opened with a {@code '<'} character
+   * in a {@link BlockReader}.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset of the element name in the current block.
+   * @param prefixLen The length of the prefix part of the element name
+   *          (including the {@code ':'} character).
+   * @param localPartLen The length of the local part of the element name.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) throws IOException {
+    in.seek(off);
+    return startElement(prefixLen, localPartLen);
+  }
+
   /**
    * Called when an element's "start tag" is closed with a {@code '>'} character.
    *
@@ -141,6 +292,26 @@ public interface FasterSAXHandler {
     return true;
   }
 
+  /**
+   * Called after an element's "start tag" is closed with a {@code '>'}
+   * character (i.e. after {@link #startElement()}), to query whether the
+   * content of the element is to be skipped. If this method returns
+   * {@code true}, the parser fast-scans to the matching "end tag", counting
+   * only the depth of nested elements, and invokes {@link #endElement()}
+   * without reporting any events of the content.
+   * <p>
+   * This method is not called for empty-element tags (i.e. {@code <a/>}).
+   * <p>
+   * <b>Note:</b> Skipping is only supported when parsing a
+   * {@link BlockReader}.
+   *
+   * @return Whether the content of the element is to be skipped.
+   * @throws IOException If an I/O error has occurred.
+   */
+  default boolean skipElement() throws IOException {
+    return false;
+  }
+
   /**
    * Called when an element's "end tag" is encountered.
    * <p>
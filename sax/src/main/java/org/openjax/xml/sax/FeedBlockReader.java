@@ -0,0 +1,125 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Utf8BlockReader} whose input is fed incrementally in
+ * {@link ByteBuffer} fragments with {@link #feed(ByteBuffer)}, as it becomes
+ * available (i.e. from a non-blocking socket).
+ * <p>
+ * A fragment that is fed while no units of a previous fragment are pending is
+ * scanned in place, and only the units of an incomplete construct at the end
+ * of the fragment are copied, when the block is refilled. Accordingly, the
+ * fed {@link ByteBuffer} must not be modified until the scan of the fragment
+ * has stopped for more input.
+ * <p>
+ * Instead of blocking, {@link #refill(int)} returns {@code 0} if no more input
+ * has been fed, and {@code -1} once {@link #endOfInput()} has been invoked.
+ */
+final class FeedBlockReader extends Utf8BlockReader {
+  private static final int DEFAULT_BLOCK_SIZE = 8192;
+
+  private byte[] bytes = new byte[0];
+  private boolean borrowed;
+  private boolean endOfInput;
+
+  /**
+   * Feeds the remaining bytes of the specified {@link ByteBuffer} to this
+   * {@link FeedBlockReader}, which are appended to the current block. The
+   * position of the {@link ByteBuffer} is advanced to its limit.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @throws NullPointerException If the specified {@link ByteBuffer} is null.
+   */
+  void feed(final ByteBuffer buffer) {
+    final int length = buffer.remaining();
+    if (limit == 0) {
+      block = buffer.slice();
+      limit = length;
+      borrowed = true;
+    }
+    else {
+      if (borrowed)
+        copy(0);
+
+      if (limit + length > bytes.length) {
+        final byte[] resized = new byte[Math.max(bytes.length * 2, limit + length)];
+        System.arraycopy(bytes, 0, resized, 0, limit);
+        block = ByteBuffer.wrap(bytes = resized);
+      }
+
+      buffer.get(bytes, limit, length);
+      limit += length;
+      return;
+    }
+
+    buffer.position(buffer.limit());
+  }
+
+  /**
+   * Marks the end of the input, after which {@link #refill(int)} returns
+   * {@code -1}.
+   */
+  void endOfInput() {
+    endOfInput = true;
+  }
+
+  /**
+   * Restarts this {@link FeedBlockReader} for new input, retaining the owned
+   * block.
+   */
+  void restart() {
+    block = ByteBuffer.wrap(bytes);
+    borrowed = false;
+    endOfInput = false;
+    clear();
+  }
+
+  /**
+   * Copies the units of the borrowed block starting at the specified index to
+   * the start of the owned block.
+   *
+   * @param keep The index of the first unit to keep.
+   */
+  private void copy(final int keep) {
+    final int remaining = limit - keep;
+    if (remaining > bytes.length)
+      bytes = new byte[Math.max(DEFAULT_BLOCK_SIZE, remaining * 2)];
+
+    final ByteBuffer units = block.duplicate();
+    units.position(keep);
+    units.get(bytes, 0, remaining);
+    block = ByteBuffer.wrap(bytes);
+    limit = remaining;
+    borrowed = false;
+  }
+
+  @Override
+  int refill(final int keep) {
+    if (borrowed) {
+      copy(keep);
+    }
+    else if (keep > 0) {
+      limit -= keep;
+      System.arraycopy(bytes, keep, bytes, 0, limit);
+    }
+
+    return endOfInput ? -1 : 0;
+  }
+}
@@ -0,0 +1,168 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+
+/**
+ * Allocation-free handler for parsing events from {@link FastSAXParser}, which
+ * declares callback methods that provide names and values as reusable
+ * {@link CharSequence} views over the current block of a {@link BlockReader}.
+ * <p>
+ * Unlike {@link FastSAXHandler}, this handler does not allocate a
+ * {@link String} for the names and values, nor a
+ * {@link javax.xml.namespace.QName} or attribute map per element. The
+ * {@link CharSequence} arguments are {@link BlockSequence} flyweights that are
+ * rebound by the parser for each callback, and are therefore only valid for
+ * the duration of the callback. A name or value that is to be retained must be
+ * copied with {@link CharSequence#toString()}.
+ * <p>
+ * Prefixes are reported as they appear in the document, and are not resolved
+ * to namespaces.
+ * <p>
+ * A {@link java.io.Reader} that is not a {@link BlockReader} is parsed by
+ * {@link FastSAXParser#parse(java.io.Reader,FasterSAXHandler)} through a
+ * {@link CharBlockReader}, as declared by {@link #requiresBlockReader()}.
+ *
+ * @see FastSAXParser
+ * @see BlockSequence
+ */
+public abstract class FlyweightSAXHandler implements FasterSAXHandler {
+  private final BlockSequence prefix = new BlockSequence();
+  private final BlockSequence localName = new BlockSequence();
+  private final BlockSequence value = new BlockSequence();
+  private boolean inDeclaration;
+
+  /**
+   * Returns {@code true}, since the names and values are only provided by the offset callback methods.
+   *
+   * @return {@code true}.
+   */
+  @Override
+  public final boolean requiresBlockReader() {
+    return true;
+  }
+
+  @Override
+  public final boolean startDeclaration(final BlockReader in, final int off, final int nameLen) throws IOException {
+    inDeclaration = true;
+    return startDeclaration(localName.set(in, off, nameLen));
+  }
+
+  @Override
+  public final boolean endDeclaration() throws IOException {
+    inDeclaration = false;
+    return true;
+  }
+
+  @Override
+  public final boolean doctype(final BlockReader in, final int off, final int doctypeLen) throws IOException {
+    return doctype(value.set(in, off, doctypeLen));
+  }
+
+  @Override
+  public final boolean comment(final BlockReader in, final int off, final int commentLen) throws IOException {
+    return comment(value.set(in, off, commentLen));
+  }
+
+  @Override
+  public final boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) throws IOException {
+    if (inDeclaration)
+      return true;
+
+    final int localNameOff = off + prefixLen;
+    return attribute(prefix.set(in, off, prefixLen > 0 ? prefixLen - 1 : 0), localName.set(in, localNameOff, localPartLen), value.set(in, localNameOff + localPartLen + skip, valueLen));
+  }
+
+  @Override
+  public final boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) throws IOException {
+    return startElement(prefix.set(in, off, prefixLen > 0 ? prefixLen - 1 : 0), localName.set(in, off + prefixLen, localPartLen));
+  }
+
+  /**
+   * Callback method for declarations (i.e. {@code '<?xml'}).
+   *
+   * @param name The name of the declaration (i.e. {@code 'xml'}), valid only
+   *          for the duration of this callback.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public boolean startDeclaration(final CharSequence name) throws IOException {
+    return true;
+  }
+
+  /**
+   * Callback method for DOCTYPE blocks (i.e. {@code <!DOCTYPE [ ]>}).
+   *
+   * @param doctype The {@code DOCTYPE [ ]} string, sans {@code <!} and
+   *          {@code >}, valid only for the duration of this callback.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public boolean doctype(final CharSequence doctype) throws IOException {
+    return true;
+  }
+
+  /**
+   * Callback method for comment blocks (i.e. {@code <!-- COMMENT -->}).
+   *
+   * @param comment The {@code COMMENT} string, sans {@code <!--} and
+   *          {@code -->}, valid only for the duration of this callback.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public boolean comment(final CharSequence comment) throws IOException {
+    return true;
+  }
+
+  /**
+   * Callback method for attribute occurrences.
+   *
+   * @param prefix The prefix of the attribute name, sans {@code ':'}, which is
+   *          empty if the attribute name does not have a prefix.
+   * @param localName The local part of the attribute name.
+   * @param value The attribute value (does not include the surrounding
+   *          quotes).
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public boolean attribute(final CharSequence prefix, final CharSequence localName, final CharSequence value) throws IOException {
+    return true;
+  }
+
+  /**
+   * Called when an element's "start tag" is opened with a {@code '<'}
+   * character. The attributes of the element are reported to
+   * {@link #attribute(CharSequence,CharSequence,CharSequence)} thereafter, and
+   * the closing of the "start tag" is reported to {@link #startElement()}.
+   *
+   * @param prefix The prefix of the element name, sans {@code ':'}, which is
+   *          empty if the element name does not have a prefix.
+   * @param localName The local part of the element name.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public abstract boolean startElement(CharSequence prefix, CharSequence localName) throws IOException;
+
+  /**
+   * Resets the local variables in this handler, so it can be used in another
+   * parsing invocation.
+   */
+  public void reset() {
+    this.inDeclaration = false;
+  }
+}
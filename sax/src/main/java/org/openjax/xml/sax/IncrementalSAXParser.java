@@ -0,0 +1,223 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * Non-blocking parser for UTF-8 encoded XML data that is fed incrementally in
+ * {@link ByteBuffer} fragments of arbitrary size, as it becomes available
+ * (i.e. from a non-blocking socket or an asynchronous channel).
+ * <p>
+ * Each invocation of {@link #feed(ByteBuffer)} delivers the events of all
+ * constructs that are complete in the input fed so far to the
+ * {@link FasterSAXHandler}, and returns when more input is needed. The state
+ * of the scan (including the incomplete construct at the end of the input, and
+ * the progress of a {@linkplain FasterSAXHandler#skipElement() skipped}
+ * element) is retained across invocations. Character data is delivered as
+ * soon as it is fed, in consecutive
+ * {@link FasterSAXHandler#characters(BlockReader,int,int)} events. The end of
+ * the input is signaled with {@link #endOfInput()}, which delivers
+ * {@link FasterSAXHandler#endDocument()}.
+ * <p>
+ * A parser that is created for a stream of concatenated documents (i.e.
+ * back-to-back messages on a socket) delivers the events of each document
+ * between {@link FasterSAXHandler#startDocument()} and
+ * {@link FasterSAXHandler#endDocument()}, as described in
+ * {@link FastSAXParser#parseDocuments(BlockReader,FasterSAXHandler)}, with
+ * {@link FasterSAXHandler#endDocument()} delivered as soon as the root element
+ * of a document is closed.
+ * <p>
+ * The events are delivered with {@link FastSAXParser}'s scanning engine, to
+ * the same callbacks as with
+ * {@link FastSAXParser#parse(BlockReader,FasterSAXHandler)}. All offsets and
+ * lengths reported to the {@link FasterSAXHandler} are in units of bytes.
+ * <p>
+ * <b>Note:</b> This class is not thread-safe. An instance parses a single
+ * stream at a time, and may be driven by different threads (i.e. of an event loop) only
+ * if the invocations are externally ordered. An instance can be reused for
+ * another stream with {@link #reset()}, which retains its allocated buffers.
+ *
+ * @see FastSAXParser
+ */
+public final class IncrementalSAXParser {
+  private final FasterSAXHandler handler;
+  private final FeedBlockReader in = new FeedBlockReader();
+  private final BlockScanner scanner = new BlockScanner(in);
+  private final DocumentSplitter splitter;
+  private boolean started;
+  private boolean endOfInput;
+  private boolean done;
+
+  /**
+   * Creates a new {@link IncrementalSAXParser} that delivers the parse events
+   * to the specified {@link FasterSAXHandler}.
+   *
+   * @param handler The {@link FasterSAXHandler}.
+   * @throws NullPointerException If the specified {@link FasterSAXHandler} is
+   *           null.
+   */
+  public IncrementalSAXParser(final FasterSAXHandler handler) {
+    this(handler, false);
+  }
+
+  /**
+   * Creates a new {@link IncrementalSAXParser} that delivers the parse events
+   * to the specified {@link FasterSAXHandler}, either for a single document,
+   * or for a stream of concatenated documents.
+   *
+   * @param handler The {@link FasterSAXHandler}.
+   * @param multiDocument If {@code true}, the input is parsed as a stream of
+   *          concatenated documents, each of which is delivered between
+   *          {@link FasterSAXHandler#startDocument()} and
+   *          {@link FasterSAXHandler#endDocument()}.
+   * @throws NullPointerException If the specified {@link FasterSAXHandler} is
+   *           null.
+   */
+  public IncrementalSAXParser(final FasterSAXHandler handler, final boolean multiDocument) {
+    this.handler = Objects.requireNonNull(handler);
+    this.splitter = multiDocument ? new DocumentSplitter(handler) : null;
+  }
+
+  /**
+   * Feeds the remaining bytes of the specified {@link ByteBuffer} to this
+   * parser, and delivers the events of all constructs that are complete in the
+   * input fed so far to the {@link FasterSAXHandler}. For a single document,
+   * the first invocation delivers {@link FasterSAXHandler#startDocument()}.
+   * <p>
+   * The bytes are consumed (i.e. the position of the {@link ByteBuffer} is
+   * advanced to its limit), and the {@link ByteBuffer} may be reused by the
+   * caller once this method returns.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @return {@code true} if this parser accepts more input, or {@code false}
+   *         if the parsing was stopped by the {@link FasterSAXHandler}, in
+   *         which case the bytes of subsequent invocations are not consumed.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws IllegalStateException If {@link #endOfInput()} has been invoked.
+   * @throws NullPointerException If the specified {@link ByteBuffer} is null.
+   */
+  public boolean feed(final ByteBuffer buffer) throws IOException, SAXParseException {
+    if (endOfInput)
+      throw new IllegalStateException("endOfInput() has been invoked");
+
+    Objects.requireNonNull(buffer);
+    if (done)
+      return false;
+
+    in.feed(buffer);
+    return parse();
+  }
+
+  /**
+   * Signals the end of the input, and delivers the events of the remaining
+   * constructs followed by {@link FasterSAXHandler#endDocument()} (of the
+   * open document) to the {@link FasterSAXHandler}, unless the parsing was stopped by the
+   * {@link FasterSAXHandler}. An incomplete construct at the end of the input
+   * is discarded. Invoking this method more than once has no effect.
+   *
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   */
+  public void endOfInput() throws IOException, SAXParseException {
+    if (endOfInput)
+      return;
+
+    endOfInput = true;
+    if (!done) {
+      in.endOfInput();
+      parse();
+    }
+  }
+
+  /**
+   * Returns whether the parsing is done, either because the parsing was
+   * stopped by the {@link FasterSAXHandler}, or because
+   * {@link FasterSAXHandler#endDocument()} has been delivered.
+   *
+   * @return Whether the parsing is done.
+   */
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Resets this parser, so it can be used to parse another stream with the
+   * same {@link FasterSAXHandler}. The allocated buffers of the parser are
+   * retained. The {@link FasterSAXHandler} is not reset by this method.
+   */
+  public void reset() {
+    in.restart();
+    scanner.reset(in);
+    if (splitter != null)
+      splitter.reset();
+
+    started = false;
+    endOfInput = false;
+    done = false;
+  }
+
+  private boolean parse() throws IOException, SAXParseException {
+    final DocumentSplitter splitter = this.splitter;
+    if (!started) {
+      started = true;
+      if (splitter == null && !handler.startDocument())
+        return stop();
+    }
+
+    if (scanner.isSkipping()) {
+      if (scanner.skipElement()) {
+        if (!handler.endElement() || splitter != null && !splitter.endElement())
+          return stop();
+      }
+      else if (scanner.isSkipping()) {
+        return true;
+      }
+    }
+
+    for (int event; (event = scanner.next()) != BlockScanner.NEED_INPUT;) {
+      if (event == END_DOCUMENT) {
+        if (splitter != null)
+          splitter.endDocument();
+        else
+          handler.endDocument();
+
+        return stop();
+      }
+
+      if (splitter != null ? !splitter.handle(in, scanner, event) : !FastSAXParser.handle(in, scanner, event, handler))
+        return stop();
+
+      if (scanner.isSkipping())
+        return true;
+    }
+
+    return true;
+  }
+
+  private boolean stop() {
+    done = true;
+    return false;
+  }
+}
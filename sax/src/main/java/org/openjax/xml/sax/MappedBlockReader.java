@@ -0,0 +1,159 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A {@link Utf8BlockReader} that scans a UTF-8 encoded file in place, by
+ * memory-mapping it with {@link FileChannel#map(MapMode,long,long)}.
+ * <p>
+ * Files (or regions of files) that are larger than the window size are walked
+ * in consecutive mapped windows, which allows files larger than 2 GB to be
+ * parsed without a heap copy of the input. A window is grown if a single
+ * markup construct does not fit into it.
+ * <p>
+ * <b>Note:</b> Mapped windows are released when they are garbage collected,
+ * which may be after this {@link MappedBlockReader} is closed.
+ */
+public class MappedBlockReader extends Utf8BlockReader {
+  private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+  private final FileChannel channel;
+  private final boolean closeChannel;
+  private final long end;
+  private final int windowSize;
+  private long windowStart;
+
+  /**
+   * Creates a new {@link MappedBlockReader} for the file at the specified
+   * {@link Path}, with a default window size.
+   *
+   * @param path The {@link Path} of the file.
+   * @throws IOException If an I/O error has occurred.
+   * @throws NullPointerException If the specified {@link Path} is null.
+   */
+  public MappedBlockReader(final Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Creates a new {@link MappedBlockReader} for the file at the specified
+   * {@link Path}, with the specified window size.
+   *
+   * @param path The {@link Path} of the file.
+   * @param windowSize The size of the mapped windows.
+   * @throws IOException If an I/O error has occurred.
+   * @throws NullPointerException If the specified {@link Path} is null.
+   * @throws IllegalArgumentException If the specified window size is less than
+   *           {@code 1}.
+   */
+  public MappedBlockReader(final Path path, final int windowSize) throws IOException {
+    this(FileChannel.open(path, StandardOpenOption.READ), true, 0, -1, windowSize);
+  }
+
+  /**
+   * Creates a new {@link MappedBlockReader} for the region of the specified
+   * {@link FileChannel} at the specified position and size, with the specified
+   * window size. The {@link FileChannel} is not closed when this
+   * {@link MappedBlockReader} is closed.
+   *
+   * @param channel The {@link FileChannel}.
+   * @param position The position of the region in the file.
+   * @param size The size of the region.
+   * @param windowSize The size of the mapped windows.
+   * @throws IOException If an I/O error has occurred.
+   * @throws NullPointerException If the specified {@link FileChannel} is null.
+   * @throws IllegalArgumentException If the specified position or size is
+   *           negative, or if the specified window size is less than
+   *           {@code 1}.
+   */
+  public MappedBlockReader(final FileChannel channel, final long position, final long size, final int windowSize) throws IOException {
+    this(channel, false, position, assertSize(size), windowSize);
+  }
+
+  private static long assertSize(final long size) {
+    if (size < 0)
+      throw new IllegalArgumentException("size (" + size + ") must be non-negative");
+
+    return size;
+  }
+
+  private MappedBlockReader(final FileChannel channel, final boolean closeChannel, final long position, final long size, final int windowSize) throws IOException {
+    this.channel = Objects.requireNonNull(channel);
+    this.closeChannel = closeChannel;
+    if (position < 0)
+      throw new IllegalArgumentException("position (" + position + ") must be non-negative");
+
+    if (windowSize < 1)
+      throw new IllegalArgumentException("windowSize (" + windowSize + ") must be positive");
+
+    this.windowStart = position;
+    this.end = size < 0 ? channel.size() : position + size;
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Returns the position in the file of the unit at the specified index of the
+   * current block.
+   *
+   * @param index The index.
+   * @return The position in the file of the unit at the specified index of the
+   *         current block.
+   */
+  final long offset(final int index) {
+    return windowStart + index;
+  }
+
+  @Override
+  final int refill(final int keep) throws IOException {
+    final int remaining = limit - keep;
+    final long start = windowStart + keep;
+    final long available = end - start;
+    if (available == remaining) {
+      if (keep > 0) {
+        block.position(keep);
+        block = block.slice();
+        limit = remaining;
+        windowStart = start;
+      }
+
+      return -1;
+    }
+
+    // Grow the window if the units to keep do not leave room for a full window
+    int size = remaining < windowSize / 2 ? windowSize : remaining < Integer.MAX_VALUE / 2 ? Math.max(windowSize, remaining * 2) : Integer.MAX_VALUE;
+    if (size > available)
+      size = (int)available;
+
+    block = channel.map(MapMode.READ_ONLY, start, size);
+    windowStart = start;
+    limit = size;
+    return size - remaining;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closeChannel)
+      channel.close();
+  }
+}
@@ -0,0 +1,63 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holder of the active {@link XmlMetrics}.
+ */
+final class Metrics {
+  private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+  static volatile XmlMetrics metrics = load();
+
+  /**
+   * Returns the active {@link XmlMetrics} if it is enabled, or {@code null} if
+   * no {@link XmlMetrics} is active, or if it is not enabled.
+   *
+   * @return The active {@link XmlMetrics} if it is enabled, or {@code null} if
+   *         no {@link XmlMetrics} is active, or if it is not enabled.
+   * @see XmlMetrics#isEnabled()
+   */
+  static XmlMetrics enabled() {
+    final XmlMetrics metrics = Metrics.metrics;
+    return metrics != null && metrics.isEnabled() ? metrics : null;
+  }
+
+  private static XmlMetrics load() {
+    if ("false".equals(System.getProperty("org.openjax.xml.sax.metrics")))
+      return null;
+
+    try {
+      final Iterator<XmlMetrics> iterator = ServiceLoader.load(XmlMetrics.class).iterator();
+      return iterator.hasNext() ? iterator.next() : null;
+    }
+    catch (final ServiceConfigurationError e) {
+      logger.warn("Unable to load " + XmlMetrics.class.getName() + " provider", e);
+      return null;
+    }
+  }
+
+  private Metrics() {
+  }
+}
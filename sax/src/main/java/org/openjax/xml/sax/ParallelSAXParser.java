@@ -0,0 +1,478 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * Parallel parser for record-oriented XML files, which splits a file into
+ * chunks at the boundaries of the elements at a chosen depth (the "records"),
+ * and parses the chunks with {@link FastSAXParser}'s scanning engine on a
+ * {@link ForkJoinPool}.
+ * <p>
+ * Each chunk is delivered to a {@link FasterSAXHandler} as a sequence of
+ * {@link FasterSAXHandler#startDocument()}, the events of the records in the
+ * chunk, and {@link FasterSAXHandler#endDocument()}. The events of the
+ * ancestors of the records (i.e. the root element) are not delivered, and
+ * returning {@code false} from a callback stops the parsing of the current
+ * chunk only.
+ * <p>
+ * The file is split at occurrences of the start tag of the first record,
+ * which is discovered by scanning the prologue of the file. The name of the
+ * record element must therefore not occur in comments or {@code CDATA}
+ * sections, or as the name of a descendant of a record. A split that lands
+ * inside of a record is detected, and results in a {@link SAXParseException}.
+ * <p>
+ * The namespace declarations on the root element are replayed to the
+ * {@link FasterSAXHandler} of each chunk as
+ * {@link FasterSAXHandler#attribute(BlockReader,int,int,int,int,int)
+ * attribute} callbacks after {@link FasterSAXHandler#startDocument()}, and
+ * before the events of the first record of the chunk. A namespace declaration
+ * on another ancestor of the records (i.e. for records at a depth greater than
+ * {@code 1}) is not supported, since its scope may begin in a preceding chunk,
+ * and results in a {@link SAXParseException}.
+ * <p>
+ * If the parsing of a chunk fails, the chunks that have not yet started are
+ * skipped, and the exception is thrown once the running chunks have finished.
+ *
+ * @see FastSAXParser
+ */
+public final class ParallelSAXParser {
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  /**
+   * Parses the UTF-8 encoded file at the specified {@link Path} in parallel on
+   * the {@linkplain ForkJoinPool#commonPool() common pool}, splitting it at the
+   * boundaries of the elements at the specified depth.
+   *
+   * @param <H> The type parameter of the {@link FasterSAXHandler}.
+   * @param path The {@link Path} of the file.
+   * @param depth The depth of the record elements, where the root element is
+   *          at depth {@code 0}.
+   * @param handlers The {@link Supplier} of {@link FasterSAXHandler}s.
+   * @param ordered If {@code true}, a {@link FasterSAXHandler} is supplied for
+   *          each chunk, and the returned list is in document order; if
+   *          {@code false}, a {@link FasterSAXHandler} is supplied for each
+   *          worker thread, and the returned list is in no particular order.
+   * @return The list of supplied {@link FasterSAXHandler}s.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed, or
+   *           if it cannot be split safely.
+   * @throws IllegalArgumentException If the specified depth is less than
+   *           {@code 1}.
+   * @throws NullPointerException If the specified {@link Path} or
+   *           {@link Supplier} is null.
+   */
+  public static <H extends FasterSAXHandler>List<H> parse(final Path path, final int depth, final Supplier<? extends H> handlers, final boolean ordered) throws IOException, SAXParseException {
+    return parse(path, depth, handlers, ForkJoinPool.commonPool(), ordered);
+  }
+
+  /**
+   * Parses the UTF-8 encoded file at the specified {@link Path} in parallel on
+   * the specified {@link ForkJoinPool}, splitting it at the boundaries of the
+   * elements at the specified depth.
+   *
+   * @param <H> The type parameter of the {@link FasterSAXHandler}.
+   * @param path The {@link Path} of the file.
+   * @param depth The depth of the record elements, where the root element is
+   *          at depth {@code 0}.
+   * @param handlers The {@link Supplier} of {@link FasterSAXHandler}s.
+   * @param pool The {@link ForkJoinPool} on which to parse the chunks.
+   * @param ordered If {@code true}, a {@link FasterSAXHandler} is supplied for
+   *          each chunk, and the returned list is in document order; if
+   *          {@code false}, a {@link FasterSAXHandler} is supplied for each
+   *          worker thread, and the returned list is in no particular order.
+   * @return The list of supplied {@link FasterSAXHandler}s.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed, or
+   *           if it cannot be split safely.
+   * @throws IllegalArgumentException If the specified depth is less than
+   *           {@code 1}.
+   * @throws NullPointerException If the specified {@link Path},
+   *           {@link Supplier} or {@link ForkJoinPool} is null.
+   */
+  public static <H extends FasterSAXHandler>List<H> parse(final Path path, final int depth, final Supplier<? extends H> handlers, final ForkJoinPool pool, final boolean ordered) throws IOException, SAXParseException {
+    if (depth < 1)
+      throw new IllegalArgumentException("depth (" + depth + ") must be positive");
+
+    try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final Split split = split(path, channel, depth, pool.getParallelism() * CHUNKS_PER_THREAD);
+      final long[] bounds = split.bounds;
+      final int chunks = bounds.length - 1;
+      final List<ForkJoinTask<H>> tasks = new ArrayList<>(chunks);
+      final Map<Thread,H> threadToHandler = ordered ? null : new ConcurrentHashMap<>();
+      // The chunks that are not yet started when a chunk fails are skipped, and
+      // the channel is not closed before all chunks have finished
+      final AtomicBoolean failed = new AtomicBoolean();
+      final CountDownLatch finished = new CountDownLatch(chunks);
+      for (int i = 0; i < chunks; ++i) {
+        final long start = bounds[i];
+        final long end = bounds[i + 1];
+        tasks.add(pool.submit(() -> {
+          try {
+            if (failed.get())
+              return null;
+
+            final H handler = ordered ? handlers.get() : threadToHandler.computeIfAbsent(Thread.currentThread(), k -> handlers.get());
+            parse(path, channel, start, end, depth, split, handler);
+            return handler;
+          }
+          catch (final Throwable t) {
+            failed.set(true);
+            throw t;
+          }
+          finally {
+            finished.countDown();
+          }
+        }));
+      }
+
+      final List<H> results = new ArrayList<>(ordered ? chunks : pool.getParallelism());
+      for (final ForkJoinTask<H> task : tasks) {
+        try {
+          final H handler = task.get();
+          if (ordered)
+            results.add(handler);
+        }
+        catch (final ExecutionException e) {
+          failed.set(true);
+          await(finished);
+
+          // ForkJoinTask wraps checked exceptions of the chunk in (copies of) RuntimeExceptions
+          for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException)
+              throw (IOException)cause;
+
+            if (cause instanceof SAXParseException)
+              throw (SAXParseException)cause;
+          }
+
+          final Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException)
+            throw (RuntimeException)cause;
+
+          if (cause instanceof Error)
+            throw (Error)cause;
+
+          throw new IllegalStateException(cause);
+        }
+        catch (final InterruptedException e) {
+          failed.set(true);
+          await(finished);
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+
+      if (!ordered)
+        results.addAll(threadToHandler.values());
+
+      return results;
+    }
+  }
+
+  /**
+   * Waits for the specified {@link CountDownLatch} to count down to zero,
+   * without being interruptible. The interrupted status of the current thread
+   * is preserved.
+   *
+   * @param latch The {@link CountDownLatch}.
+   */
+  private static void await(final CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      }
+      catch (final InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  private static void parse(final Path path, final FileChannel channel, final long start, final long end, final int depth, final Split split, final FasterSAXHandler handler) throws IOException, SAXParseException {
+    try (final MappedBlockReader in = new MappedBlockReader(channel, start, end - start, Integer.MAX_VALUE)) {
+      final BlockScanner scanner = new BlockScanner(in);
+      if (!handler.startDocument() || !split.declare(handler))
+        return;
+
+      int level = depth;
+      for (int event; (event = scanner.next()) != END_DOCUMENT;) {
+        final boolean inRecord;
+        if (event == START_ELEMENT) {
+          inRecord = level >= depth;
+          if (!scanner.empty) {
+            if (!inRecord)
+              checkAncestor(path, in, scanner);
+
+            ++level;
+          }
+        }
+        else if (event == END_ELEMENT) {
+          inRecord = --level >= depth;
+        }
+        else {
+          inRecord = level > depth;
+        }
+
+        if (inRecord && !FastSAXParser.handle(in, scanner, event, handler))
+          return;
+
+        if (scanner.skipped)
+          --level;
+      }
+
+      if (level > depth)
+        throw new SAXParseException("Unable to split XML at record boundary: chunk ends inside of a record", null, path.toString(), -1, -1);
+
+      handler.endDocument();
+    }
+  }
+
+  /**
+   * The result of {@link ParallelSAXParser#split(Path,FileChannel,int,int)}.
+   */
+  private static final class Split {
+    /**
+     * The positions in the file at which the file is split into chunks,
+     * followed by the end position of the last chunk.
+     */
+    private final long[] bounds;
+    /** The UTF-8 bytes of the namespace declarations of the root element. */
+    private final byte[] namespaces;
+    /**
+     * The namespace declarations in {@link #namespaces}, as consecutive tuples
+     * of {@code offset, prefixLen, localPartLen, skip, valueLen}.
+     */
+    private final int[] declarations;
+
+    private Split(final long[] bounds, final byte[] namespaces, final int[] declarations) {
+      this.bounds = bounds;
+      this.namespaces = namespaces;
+      this.declarations = declarations;
+    }
+
+    /**
+     * Replays the namespace declarations of the root element to
+     * the specified {@link FasterSAXHandler}.
+     *
+     * @param handler The {@link FasterSAXHandler}.
+     * @return Whether parsing should continue.
+     * @throws IOException If an I/O error has occurred.
+     */
+    private boolean declare(final FasterSAXHandler handler) throws IOException {
+      if (declarations.length == 0)
+        return true;
+
+      final BlockReader in = new Utf8BlockReader(namespaces);
+      for (int i = 0; i < declarations.length; i += 5)
+        if (!handler.attribute(in, declarations[i], declarations[i + 1], declarations[i + 2], declarations[i + 3], declarations[i + 4]))
+          return false;
+
+      return true;
+    }
+  }
+
+  /**
+   * Checks that the current start tag of the specified {@link BlockScanner},
+   * which is an ancestor of the records other than the root element, does not
+   * declare a namespace. The namespace context of such an ancestor differs
+   * between the chunks, and cannot be determined for a chunk without scanning
+   * the chunks that precede it.
+   *
+   * @param path The {@link Path} of the file.
+   * @param in The {@link BlockReader}.
+   * @param scanner The {@link BlockScanner}.
+   * @throws SAXParseException If the start tag declares a namespace.
+   */
+  private static void checkAncestor(final Path path, final BlockReader in, final BlockScanner scanner) throws SAXParseException {
+    final int[] attributes = scanner.attributes;
+    for (int i = 0, len = scanner.attributeCount * 5; i < len; i += 5)
+      if (isNamespace(in, attributes[i], attributes[i + 1], attributes[i + 2]))
+        throw new SAXParseException("Unable to split XML: namespace declaration on an ancestor of the records other than the root element: <" + in.toString(scanner.off, scanner.prefixLen + scanner.localPartLen) + ">", null, path.toString(), -1, -1);
+  }
+
+  private static boolean isNamespace(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+    return prefixLen == 0 ? in.regionMatches(off, localPartLen, "xmlns") : prefixLen == 6 && in.regionMatches(off, 5, "xmlns");
+  }
+
+  /**
+   * Returns the positions in the file of the specified {@link FileChannel} at
+   * which the file is split into chunks, followed by the end position of the
+   * last chunk, and the namespace declarations of the root element.
+   *
+   * @param path The {@link Path} of the file.
+   * @param channel The {@link FileChannel}.
+   * @param depth The depth of the record elements.
+   * @param chunks The target number of chunks.
+   * @return The {@link Split} of the file.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed, or
+   *           if an ancestor of the first record other than the root element
+   *           declares a namespace.
+   */
+  private static Split split(final Path path, final FileChannel channel, final int depth, final int chunks) throws IOException, SAXParseException {
+    final long size = channel.size();
+    final long first;
+    final byte[] name;
+    final byte[] namespaces;
+    final int[] declarations;
+    try (final MappedBlockReader in = new MappedBlockReader(channel, 0, size, Integer.MAX_VALUE)) {
+      final BlockScanner scanner = new BlockScanner(in);
+      // The namespace declarations of the root element
+      int[] scope = new int[5 * 4];
+      int count = 0;
+      int level = 0;
+      for (int event; true;) {
+        if ((event = scanner.next()) == END_DOCUMENT)
+          return new Split(new long[] {size}, null, new int[0]);
+
+        if (event == START_ELEMENT) {
+          if (level == depth)
+            break;
+
+          if (!scanner.empty) {
+            if (level > 0) {
+              checkAncestor(path, in, scanner);
+            }
+            else {
+              final int[] attributes = scanner.attributes;
+              for (int i = 0, len = scanner.attributeCount * 5; i < len; i += 5) {
+                if (isNamespace(in, attributes[i], attributes[i + 1], attributes[i + 2])) {
+                  if (count == scope.length)
+                    scope = Arrays.copyOf(scope, count * 2);
+
+                  System.arraycopy(attributes, i, scope, count, 5);
+                  count += 5;
+                }
+              }
+            }
+
+            ++level;
+          }
+        }
+        else if (event == END_ELEMENT) {
+          --level;
+        }
+      }
+
+      first = in.offset(scanner.off - 1);
+      name = new byte[scanner.prefixLen + scanner.localPartLen];
+      for (int i = 0; i < name.length; ++i)
+        name[i] = (byte)in.at(scanner.off + i);
+
+      // Copy the declarations, each of which is followed by its closing quote, and a space
+      int length = 0;
+      for (int i = 0; i < count; i += 5)
+        length += scope[i + 1] + scope[i + 2] + scope[i + 3] + scope[i + 4] + 2;
+
+      namespaces = new byte[length];
+      declarations = Arrays.copyOf(scope, count);
+      for (int i = 0, j = 0; i < count; i += 5) {
+        final int off = scope[i];
+        final int len = scope[i + 1] + scope[i + 2] + scope[i + 3] + scope[i + 4] + 1;
+        for (int k = 0; k < len; ++k)
+          namespaces[j + k] = (byte)in.at(off + k);
+
+        namespaces[j + len] = ' ';
+        declarations[i] = j;
+        j += len + 1;
+      }
+    }
+
+    final long[] bounds = new long[chunks + 1];
+    bounds[0] = first;
+    int count = 1;
+    final long step = (size - first) / chunks;
+    for (int i = 1; i < chunks; ++i) {
+      final long from = Math.max(first + i * step, bounds[count - 1] + 1);
+      if (from >= size)
+        break;
+
+      final long bound = find(channel, from, size, name);
+      if (bound == -1)
+        break;
+
+      bounds[count++] = bound;
+    }
+
+    bounds[count++] = size;
+    return new Split(Arrays.copyOf(bounds, count), namespaces, declarations);
+  }
+
+  /**
+   * Returns the position in the file of the next start tag with the specified
+   * name, starting the search at the specified position.
+   *
+   * @param channel The {@link FileChannel}.
+   * @param from The position at which to start the search.
+   * @param end The end position of the search.
+   * @param name The UTF-8 bytes of the name of the start tag.
+   * @return The position in the file of the next start tag with the specified
+   *         name, or {@code -1} if none is found.
+   * @throws IOException If an I/O error has occurred.
+   */
+  private static long find(final FileChannel channel, final long from, final long end, final byte[] name) throws IOException {
+    try (final MappedBlockReader in = new MappedBlockReader(channel, from, end - from, 1 << 20)) {
+      for (int i = 0; true; i = 0) {
+        for (final int limit = in.limit - name.length - 1; i < limit; ++i) {
+          if (in.at(i) == '<' && matches(in, i + 1, name)) {
+            final int ch = in.at(i + 1 + name.length);
+            if (ch == '>' || ch == '/' || BlockScanner.isWhitespace(ch))
+              return in.offset(i);
+          }
+        }
+
+        if (in.fill(i) == -1)
+          return -1;
+      }
+    }
+  }
+
+  private static boolean matches(final BlockReader in, final int off, final byte[] name) {
+    for (int i = 0; i < name.length; ++i)
+      if (in.at(off + i) != (name[i] & 0xFF))
+        return false;
+
+    return true;
+  }
+
+  private ParallelSAXParser() {
+  }
+}
@@ -0,0 +1,427 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.libj.util.function.Throwing;
+import org.w3c.dom.ls.LSInput;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * A thread-safe, bounded cache of compiled {@link Schema} objects, which is
+ * used by {@link Validator} to validate documents without the resolution and
+ * compilation of the referenced schemas on each validation.
+ * <p>
+ * A {@link Schema} is keyed by the set of schema locations of a document,
+ * together with the namespace of each location: the {@code xsi:schemaLocation}
+ * and {@code xsi:noNamespaceSchemaLocation} hints of an XML document, or the
+ * location and target namespace of an XML Schema Document. The schemas of a
+ * key are compiled once, with the {@link XmlCatalog} of the first document of
+ * the key, and the least recently used entry is evicted when the cache exceeds
+ * its capacity. Concurrent requests of the same key await a single
+ * compilation, whereas the schemas of different keys are compiled in
+ * parallel. Each entry holds a {@link ValidatorPool} of the compiled
+ * {@link Schema}, so that concurrent validations of documents of the same key
+ * reuse warm {@link javax.xml.validation.Validator} instances.
+ * <p>
+ * If the compilation of the schemas of a key reports any warning or error,
+ * the key is remembered as not precompilable, and documents of the key are
+ * validated as if the cache were absent, so that the errors are reported to
+ * the {@link org.xml.sax.ErrorHandler} of each validation. A compilation that
+ * fails due to the JVM being offline is not remembered.
+ * <p>
+ * Entries are invalidated with {@link #invalidate(URL)}, which evicts each
+ * entry that depends on the schema at the specified location (including the
+ * schemas that are imported or included by the schemas of the key), or with
+ * {@link #clear()}.
+ * <p>
+ * An entry can be bound to the namespace of the root element of the documents
+ * that are validated with its schemas, so that subsequent documents of the
+ * namespace are validated without the discovery of their schemas (see
+ * {@link Validator#validate(org.xml.sax.InputSource,String,org.xml.sax.ErrorHandler)}).
+ * A binding is removed when its entry is evicted.
+ *
+ * @see Validator#getSchemaCache()
+ */
+public final class SchemaCache {
+  private static final class Schemas {
+    /** The validators of the compiled schema, or {@code null} if not precompilable. */
+    private final ValidatorPool validators;
+    /** The locations of all schemas that were read to compile the schema. */
+    private final Set<String> locations;
+
+    private Schemas(final ValidatorPool validators, final Set<String> locations) {
+      this.validators = validators;
+      this.locations = locations;
+    }
+  }
+
+  private static final class CompileErrorHandler implements ErrorHandler {
+    private SAXParseException exception;
+
+    @Override
+    public void warning(final SAXParseException exception) {
+      if (this.exception == null)
+        this.exception = exception;
+    }
+
+    @Override
+    public void error(final SAXParseException exception) {
+      warning(exception);
+    }
+
+    @Override
+    public void fatalError(final SAXParseException exception) throws SAXException {
+      warning(exception);
+      throw exception;
+    }
+  }
+
+  private final int capacity;
+  private final int validators;
+  private final LinkedHashMap<Map<String,String>,Schemas> entries;
+  private final HashMap<String,Map<String,String>> namespaceToKey = new HashMap<>();
+  /** The compilations in progress, by key. */
+  private final ConcurrentHashMap<Map<String,String>,FutureTask<Schemas>> compilations = new ConcurrentHashMap<>();
+  /** The idle {@link SchemaFactory} instances, which are not thread safe. */
+  private final ConcurrentLinkedQueue<SchemaFactory> factories = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a new {@link SchemaCache} with the specified capacity, which
+   * retains as many idle validators per compiled schema as there are available
+   * processors.
+   *
+   * @param capacity The maximum number of entries that are retained by the
+   *          cache, or {@code 0} to disable the cache.
+   * @throws IllegalArgumentException If the specified capacity is negative.
+   */
+  public SchemaCache(final int capacity) {
+    this(capacity, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new {@link SchemaCache} with the specified capacity and number of
+   * idle validators per compiled schema.
+   *
+   * @param capacity The maximum number of entries that are retained by the
+   *          cache, or {@code 0} to disable the cache.
+   * @param validators The maximum number of idle validators that are retained
+   *          per compiled schema.
+   * @throws IllegalArgumentException If the specified capacity is negative, or
+   *           if the specified number of validators is less than {@code 1}.
+   */
+  public SchemaCache(final int capacity, final int validators) {
+    if (capacity < 0)
+      throw new IllegalArgumentException("capacity (" + capacity + ") must be non-negative");
+
+    if (validators < 1)
+      throw new IllegalArgumentException("validators (" + validators + ") must be positive");
+
+    this.capacity = capacity;
+    this.validators = validators;
+    this.entries = new LinkedHashMap<Map<String,String>,Schemas>(16, 0.75f, true) {
+      private static final long serialVersionUID = -2851409287498311553L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Map<String,String>,Schemas> eldest) {
+        return size() > SchemaCache.this.capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the maximum number of entries that are retained by this cache.
+   *
+   * @return The maximum number of entries that are retained by this cache.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the maximum number of idle validators that are retained per
+   * compiled schema.
+   *
+   * @return The maximum number of idle validators that are retained per
+   *         compiled schema.
+   */
+  public int getValidators() {
+    return validators;
+  }
+
+  /**
+   * Returns the number of entries in this cache.
+   *
+   * @return The number of entries in this cache.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Evicts each entry of this cache that depends on the schema at the
+   * specified location.
+   *
+   * @param location The location of the schema.
+   * @return The number of entries that were evicted.
+   * @throws NullPointerException If the specified {@link URL} is null.
+   */
+  public int invalidate(final URL location) {
+    final String string = location.toString();
+    int count = 0;
+    synchronized (entries) {
+      for (final Iterator<Schemas> iterator = entries.values().iterator(); iterator.hasNext();) {
+        if (iterator.next().locations.contains(string)) {
+          iterator.remove();
+          ++count;
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Evicts all entries of this cache.
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+      namespaceToKey.clear();
+    }
+  }
+
+  /**
+   * Returns the key of the schemas of the document of the specified
+   * {@link XmlPreview}, as a map of schema locations to namespaces.
+   *
+   * @param preview The {@link XmlPreview} of the document.
+   * @param systemId The system identifier of the document.
+   * @return The key of the schemas of the document, or {@code null} if the
+   *         document does not reference any schema.
+   */
+  static Map<String,String> key(final XmlPreview preview, final String systemId) {
+    final HashMap<String,String> key = new HashMap<>();
+    if (preview.isSchema()) {
+      key.put(systemId, preview.getTargetNamespace() != null ? preview.getTargetNamespace() : "");
+      return key;
+    }
+
+    if (preview.getImports() != null)
+      for (final Map.Entry<String,URL> entry : preview.getImports().entrySet())
+        key.put(entry.getValue().toString(), entry.getKey());
+
+    if (preview.getIncludes() != null)
+      for (final URL location : preview.getIncludes().values())
+        key.putIfAbsent(location.toString(), "");
+
+    return key.isEmpty() ? null : key;
+  }
+
+  /**
+   * Binds the entry of the schemas of the document of the specified
+   * {@link XmlPreview} to the specified namespace of the root element.
+   *
+   * @param namespace The namespace of the root element.
+   * @param preview The {@link XmlPreview} of the document.
+   * @param systemId The system identifier of the document.
+   */
+  void bind(final String namespace, final XmlPreview preview, final String systemId) {
+    if (capacity == 0 || preview.isSchema())
+      return;
+
+    final Map<String,String> key = key(preview, systemId);
+    if (key == null)
+      return;
+
+    synchronized (entries) {
+      final Schemas entry = entries.get(key);
+      if (entry != null && entry.validators != null)
+        namespaceToKey.put(namespace, key);
+    }
+  }
+
+  /**
+   * Returns the {@link ValidatorPool} of the entry that is bound to the
+   * specified namespace of the root element.
+   *
+   * @param namespace The namespace of the root element.
+   * @return The {@link ValidatorPool} of the entry that is bound to the
+   *         specified namespace, or {@code null} if no entry is bound to the
+   *         namespace.
+   */
+  ValidatorPool getValidatorPool(final String namespace) {
+    synchronized (entries) {
+      final Map<String,String> key = namespaceToKey.get(namespace);
+      if (key == null)
+        return null;
+
+      final Schemas entry = entries.get(key);
+      if (entry != null)
+        return entry.validators;
+
+      namespaceToKey.remove(namespace);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the {@link ValidatorPool} of the compiled {@link Schema} of the
+   * schemas of the document of the specified {@link XmlPreview}, which is
+   * compiled and cached if absent.
+   *
+   * @param preview The {@link XmlPreview} of the document.
+   * @param systemId The system identifier of the document.
+   * @return The {@link ValidatorPool} of the compiled {@link Schema}, or
+   *         {@code null} if the document does not reference any schema, if the
+   *         cache is disabled, or if the schemas cannot be precompiled.
+   * @throws IOException If an I/O error has occurred.
+   */
+  ValidatorPool getValidatorPool(final XmlPreview preview, final String systemId) throws IOException {
+    if (capacity == 0)
+      return null;
+
+    final Map<String,String> key = key(preview, systemId);
+    if (key == null)
+      return null;
+
+    Schemas entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+
+    if (entry != null)
+      return entry.validators;
+
+    // Concurrent requests for the same key await a single compilation, and
+    // the schemas of different keys are compiled in parallel
+    final FutureTask<Schemas> task = new FutureTask<>(() -> {
+      Schemas compiled;
+      synchronized (entries) {
+        compiled = entries.get(key);
+      }
+
+      // The entry may have been put by a compilation that completed after the
+      // lookup above
+      if (compiled == null && (compiled = compile(key, preview.getCatalog())) != null) {
+        synchronized (entries) {
+          entries.put(key, compiled);
+        }
+      }
+
+      return compiled;
+    });
+
+    FutureTask<Schemas> compilation = compilations.putIfAbsent(key, task);
+    if (compilation == null) {
+      compilation = task;
+      task.run();
+      compilations.remove(key, task);
+    }
+
+    try {
+      entry = compilation.get();
+    }
+    catch (final ExecutionException e) {
+      Throwing.rethrow(e.getCause());
+      throw new Error("Will never get here");
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    }
+
+    return entry == null ? null : entry.validators;
+  }
+
+  private Schemas compile(final Map<String,String> key, final XmlCatalog catalog) throws IOException {
+    SchemaFactory factory = factories.poll();
+    if (factory == null) {
+      try {
+        factory = Validator.newSchemaFactory();
+      }
+      catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    final Set<String> locations = new HashSet<>(key.keySet());
+    final XmlCatalogResolver resolver = new XmlCatalogResolver(catalog);
+    final CompileErrorHandler errorHandler = new CompileErrorHandler();
+    factory.setErrorHandler(errorHandler);
+    factory.setResourceResolver((type, namespaceURI, publicId, systemId, baseURI) -> {
+      if (systemId != null)
+        locations.add(baseURI != null ? XmlCatalogResolver.getPath(baseURI, systemId) : systemId);
+
+      return resolver.resolveResource(type, namespaceURI, publicId, systemId, baseURI);
+    });
+
+    // The top-level schemas are read from the catalog as well, so that remote
+    // schemas that were fetched by XmlPreviewParser are not fetched again
+    final Source[] sources = new Source[key.size()];
+    int i = 0;
+    for (final Map.Entry<String,String> entry : key.entrySet()) {
+      final String location = entry.getKey();
+      final LSInput input = resolver.resolveResource(XMLConstants.W3C_XML_SCHEMA_NS_URI, entry.getValue().length() > 0 ? entry.getValue() : null, null, location, null);
+      sources[i++] = input != null ? new StreamSource(input.getCharacterStream(), location) : new StreamSource(location);
+    }
+
+    Schema schema = null;
+    try {
+      schema = factory.newSchema(sources);
+    }
+    catch (final SAXException e) {
+      if (errorHandler.exception == null)
+        throw new IOException(e);
+    }
+    finally {
+      factory.setErrorHandler(null);
+      factory.setResourceResolver(null);
+      factories.offer(factory);
+    }
+
+    if (errorHandler.exception == null)
+      return new Schemas(new ValidatorPool(schema, validators), locations);
+
+    return Validator.isRemoteAccessException(errorHandler.exception) ? null : new Schemas(null, locations);
+  }
+}
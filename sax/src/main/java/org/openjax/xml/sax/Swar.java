@@ -0,0 +1,136 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SIMD-within-a-register (SWAR) delimiter search over the bytes of a
+ * {@link ByteBuffer}, which classifies 8 bytes at a time with a single
+ * {@code long} word read and a few bitwise operations.
+ * <p>
+ * The backend is selected once, at class initialization. By default, SWAR
+ * is used for direct buffers (i.e. memory-mapped files) on 64-bit platforms,
+ * for which {@link ByteBuffer#getLong(int)} is a single unaligned load. For
+ * heap buffers, the scalar loop is used, because the JIT compiles it to code
+ * that is on par with the SWAR search, which must pay for bounds checks on each
+ * {@link ByteBuffer#getLong(int)} of a heap buffer. The selection can be
+ * overridden with the system property {@code org.openjax.xml.sax.swar}, with
+ * {@code true} to use SWAR for all buffers, or {@code false} to use the scalar
+ * loop for all buffers.
+ */
+final class Swar {
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+  /** Whether the SWAR backend is enabled for direct buffers. */
+  private static final boolean DIRECT;
+  /** Whether the SWAR backend is enabled for heap buffers. */
+  private static final boolean HEAP;
+
+  static {
+    final String swar = System.getProperty("org.openjax.xml.sax.swar");
+    final String arch = System.getProperty("sun.arch.data.model");
+    final boolean is64Bit = arch != null ? "64".equals(arch) : System.getProperty("os.arch", "").contains("64");
+    DIRECT = swar != null ? Boolean.parseBoolean(swar) : is64Bit;
+    HEAP = Boolean.parseBoolean(swar);
+  }
+
+  /**
+   * Returns whether the SWAR backend is enabled for the specified
+   * {@link ByteBuffer}.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @return Whether the SWAR backend is enabled for the specified
+   *         {@link ByteBuffer}.
+   */
+  static boolean isEnabled(final ByteBuffer buffer) {
+    return buffer.isDirect() ? DIRECT : HEAP;
+  }
+
+  /**
+   * Returns a word with the high bit set in each byte of the specified word
+   * that is zero, and all other bits clear. Unlike the common
+   * {@code (x - ONES) & ~x & HIGHS} idiom, this expression does not produce
+   * false positives for the bytes above a zero byte.
+   */
+  private static long zeros(final long x) {
+    return ~((x & LOW7) + LOW7 | x | LOW7);
+  }
+
+  private static int indexOf(final long mask, final ByteOrder order) {
+    return (order == ByteOrder.BIG_ENDIAN ? Long.numberOfLeadingZeros(mask) : Long.numberOfTrailingZeros(mask)) >>> 3;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the specified byte in the
+   * specified {@link ByteBuffer} between the specified indexes.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @param b The byte to find.
+   * @param from The index at which to start the search.
+   * @param to The index at which to end the search.
+   * @return The index of the first occurrence of the specified byte, or
+   *         {@code to} if the byte does not occur.
+   */
+  static int indexOf(final ByteBuffer buffer, final int b, int from, final int to) {
+    final ByteOrder order = buffer.order();
+    final long pattern = ONES * (b & 0xFF);
+    for (long mask; from + 8 <= to; from += 8)
+      if ((mask = zeros(buffer.getLong(from) ^ pattern)) != 0)
+        return from + indexOf(mask, order);
+
+    for (; from < to; ++from)
+      if (buffer.get(from) == (byte)b)
+        return from;
+
+    return to;
+  }
+
+  /**
+   * Returns the index of the first occurrence of any of the specified bytes in
+   * the specified {@link ByteBuffer} between the specified indexes.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @param b0 The first byte to find.
+   * @param b1 The second byte to find.
+   * @param b2 The third byte to find.
+   * @param from The index at which to start the search.
+   * @param to The index at which to end the search.
+   * @return The index of the first occurrence of any of the specified bytes,
+   *         or {@code to} if none of the bytes occur.
+   */
+  static int indexOf(final ByteBuffer buffer, final int b0, final int b1, final int b2, int from, final int to) {
+    final ByteOrder order = buffer.order();
+    final long p0 = ONES * (b0 & 0xFF);
+    final long p1 = ONES * (b1 & 0xFF);
+    final long p2 = ONES * (b2 & 0xFF);
+    for (long word, mask; from + 8 <= to; from += 8)
+      if ((mask = zeros((word = buffer.getLong(from)) ^ p0) | zeros(word ^ p1) | zeros(word ^ p2)) != 0)
+        return from + indexOf(mask, order);
+
+    for (int b; from < to; ++from)
+      if ((b = buffer.get(from)) == (byte)b0 || b == (byte)b1 || b == (byte)b2)
+        return from;
+
+    return to;
+  }
+
+  private Swar() {
+  }
+}
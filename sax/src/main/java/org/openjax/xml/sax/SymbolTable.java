@@ -0,0 +1,332 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+/**
+ * A table of canonical {@link String} symbols for names, and of canonical
+ * {@link QName} instances, in the spirit of the Xerces {@code SymbolTable}.
+ * <p>
+ * A symbol is looked up by the range of units in the current block of a
+ * {@link BlockReader}, or in a {@code char[]}, so that a name that is already
+ * in the table is returned without allocation. The same symbol is returned for
+ * equal names regardless of the source (i.e. {@code char} or UTF-8 units), and
+ * symbols can therefore be compared by identity.
+ * <p>
+ * A {@link SymbolTable} is thread safe: lookups of existing symbols are
+ * lock-free, and only the insertion of a new symbol is synchronized. A single
+ * instance can therefore be shared across concurrent parses of documents of
+ * the same family.
+ * <p>
+ * <b>Note:</b> Symbols are never evicted. A {@link SymbolTable} should thus
+ * only be shared across documents with a bounded vocabulary of names.
+ *
+ * @see FastSAXHandler#FastSAXHandler(SymbolTable)
+ */
+public final class SymbolTable {
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private static final class Symbol {
+    private final char[] units;
+    private final int hash;
+    private final boolean encoded;
+    private final String value;
+    private final Symbol next;
+
+    private Symbol(final char[] units, final int hash, final boolean encoded, final String value, final Symbol next) {
+      this.units = units;
+      this.hash = hash;
+      this.encoded = encoded;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  private static final class Name {
+    private final QName value;
+    private final int hash;
+    private final Name next;
+
+    private Name(final QName value, final int hash, final Name next) {
+      this.value = value;
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  private volatile Symbol[] symbols;
+  private volatile Name[] names;
+  private int symbolCount;
+  private int nameCount;
+
+  /**
+   * Creates a new {@link SymbolTable} with a default initial capacity.
+   */
+  public SymbolTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new {@link SymbolTable} with the specified initial capacity.
+   *
+   * @param initialCapacity The initial capacity.
+   * @throws IllegalArgumentException If the specified initial capacity is less
+   *           than {@code 1}.
+   */
+  public SymbolTable(final int initialCapacity) {
+    if (initialCapacity < 1)
+      throw new IllegalArgumentException("initialCapacity (" + initialCapacity + ") must be positive");
+
+    final int capacity = Integer.highestOneBit(initialCapacity - 1) << 1;
+    this.symbols = new Symbol[Math.max(capacity, 1)];
+    this.names = new Name[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Returns the number of symbols in this table.
+   *
+   * @return The number of symbols in this table.
+   */
+  public synchronized int size() {
+    return symbolCount;
+  }
+
+  /**
+   * Returns the canonical symbol for the data in the current block of the
+   * specified {@link BlockReader} at the specified offset and length.
+   *
+   * @param in The {@link BlockReader}.
+   * @param off The offset into the current block.
+   * @param len The length of the data.
+   * @return The canonical symbol for the data in the current block of the
+   *         specified {@link BlockReader} at the specified offset and length.
+   * @throws NullPointerException If the specified {@link BlockReader} is null.
+   */
+  public String getSymbol(final BlockReader in, final int off, final int len) {
+    int hash = 0;
+    int bits = 0;
+    for (int i = off, end = off + len, ch; i < end; ++i) {
+      hash = 31 * hash + (ch = in.at(i));
+      bits |= ch;
+    }
+
+    final boolean encoded = bits >= 0x80 && !in.isCharAligned(off, len);
+    final Symbol[] symbols = this.symbols;
+    for (Symbol symbol = symbols[hash & (symbols.length - 1)]; symbol != null; symbol = symbol.next)
+      if (symbol.hash == hash && symbol.encoded == encoded && matches(symbol.units, in, off, len))
+        return symbol.value;
+
+    final char[] units = new char[len];
+    for (int i = 0; i < len; ++i)
+      units[i] = (char)in.at(off + i);
+
+    return add(units, hash, encoded ? in.toString(off, len) : null);
+  }
+
+  /**
+   * Returns the canonical symbol for the specified range of the specified
+   * {@code char[]}.
+   *
+   * @param chars The {@code char[]}.
+   * @param off The offset into the {@code char[]}.
+   * @param len The length of the data.
+   * @return The canonical symbol for the specified range of the specified
+   *         {@code char[]}.
+   * @throws NullPointerException If the specified {@code char[]} is null.
+   * @throws ArrayIndexOutOfBoundsException If the specified range exceeds the
+   *           bounds of the specified {@code char[]}.
+   */
+  public String getSymbol(final char[] chars, final int off, final int len) {
+    int hash = 0;
+    for (int i = off, end = off + len; i < end; ++i)
+      hash = 31 * hash + chars[i];
+
+    final Symbol[] symbols = this.symbols;
+    for (Symbol symbol = symbols[hash & (symbols.length - 1)]; symbol != null; symbol = symbol.next)
+      if (symbol.hash == hash && !symbol.encoded && matches(symbol.units, chars, off, len))
+        return symbol.value;
+
+    final char[] units = new char[len];
+    System.arraycopy(chars, off, units, 0, len);
+    return add(units, hash, null);
+  }
+
+  /**
+   * Returns the canonical symbol for the specified {@link CharSequence}. If
+   * the {@link CharSequence} is a {@link BlockSequence}, the symbol is looked
+   * up by the range of the view, without allocation.
+   *
+   * @param name The {@link CharSequence}.
+   * @return The canonical symbol for the specified {@link CharSequence}.
+   * @throws NullPointerException If the specified {@link CharSequence} is null.
+   */
+  public String getSymbol(final CharSequence name) {
+    if (name instanceof BlockSequence) {
+      final BlockSequence sequence = (BlockSequence)name;
+      return getSymbol(sequence.in, sequence.off, sequence.len);
+    }
+
+    final int len = name.length();
+    int hash = 0;
+    for (int i = 0; i < len; ++i)
+      hash = 31 * hash + name.charAt(i);
+
+    final Symbol[] symbols = this.symbols;
+    for (Symbol symbol = symbols[hash & (symbols.length - 1)]; symbol != null; symbol = symbol.next)
+      if (symbol.hash == hash && !symbol.encoded && matches(symbol.units, name, len))
+        return symbol.value;
+
+    final char[] units = new char[len];
+    for (int i = 0; i < len; ++i)
+      units[i] = name.charAt(i);
+
+    return add(units, hash, null);
+  }
+
+  /**
+   * Returns the canonical {@link QName} for the specified namespace URI, local
+   * part and prefix. If the arguments are symbols of this table, the
+   * {@link QName} is looked up by identity.
+   *
+   * @param namespaceURI The namespace URI, or {@code null} for no namespace.
+   * @param localPart The local part.
+   * @param prefix The prefix, or {@code null} for no prefix.
+   * @return The canonical {@link QName} for the specified namespace URI, local
+   *         part and prefix.
+   * @throws NullPointerException If the specified local part is null.
+   */
+  public QName getQName(String namespaceURI, final String localPart, String prefix) {
+    if (namespaceURI == null)
+      namespaceURI = XMLConstants.NULL_NS_URI;
+
+    if (prefix == null)
+      prefix = XMLConstants.DEFAULT_NS_PREFIX;
+
+    final int hash = (namespaceURI.hashCode() * 31 + localPart.hashCode()) * 31 + prefix.hashCode();
+    final Name[] names = this.names;
+    for (Name name = names[hash & (names.length - 1)]; name != null; name = name.next)
+      if (name.hash == hash && matches(name.value, namespaceURI, localPart, prefix))
+        return name.value;
+
+    return add(namespaceURI, localPart, prefix, hash);
+  }
+
+  private static boolean matches(final QName name, final String namespaceURI, final String localPart, final String prefix) {
+    final String a = name.getLocalPart(), b = name.getNamespaceURI(), c = name.getPrefix();
+    return (a == localPart || a.equals(localPart)) && (b == namespaceURI || b.equals(namespaceURI)) && (c == prefix || c.equals(prefix));
+  }
+
+  private static boolean matches(final char[] units, final BlockReader in, final int off, final int len) {
+    if (units.length != len)
+      return false;
+
+    for (int i = 0; i < len; ++i)
+      if (units[i] != in.at(off + i))
+        return false;
+
+    return true;
+  }
+
+  private static boolean matches(final char[] units, final char[] chars, final int off, final int len) {
+    if (units.length != len)
+      return false;
+
+    for (int i = 0; i < len; ++i)
+      if (units[i] != chars[off + i])
+        return false;
+
+    return true;
+  }
+
+  private static boolean matches(final char[] units, final CharSequence name, final int len) {
+    if (units.length != len)
+      return false;
+
+    for (int i = 0; i < len; ++i)
+      if (units[i] != name.charAt(i))
+        return false;
+
+    return true;
+  }
+
+  /**
+   * Adds a symbol for the specified units, unless it was added concurrently.
+   *
+   * @param units The units.
+   * @param hash The hash of the units.
+   * @param value The decoded value of the units, or {@code null} if the units
+   *          are chars (i.e. not encoded).
+   * @return The canonical symbol for the specified units.
+   */
+  private synchronized String add(final char[] units, final int hash, final String value) {
+    // Units that are not chars (i.e. multi-byte UTF-8) resolve to the symbol of the decoded chars
+    final String canonical = value == null ? null : getSymbol(value.toCharArray(), 0, value.length());
+    Symbol[] symbols = this.symbols;
+    for (Symbol symbol = symbols[hash & (symbols.length - 1)]; symbol != null; symbol = symbol.next)
+      if (symbol.hash == hash && symbol.encoded == (value != null) && matches(symbol.units, units, 0, units.length))
+        return symbol.value;
+
+    final String symbol = canonical != null ? canonical : new String(units);
+    if (++symbolCount > symbols.length * LOAD_FACTOR) {
+      final Symbol[] resized = new Symbol[symbols.length * 2];
+      for (final Symbol bucket : symbols)
+        for (Symbol s = bucket; s != null; s = s.next)
+          resized[s.hash & (resized.length - 1)] = new Symbol(s.units, s.hash, s.encoded, s.value, resized[s.hash & (resized.length - 1)]);
+
+      this.symbols = symbols = resized;
+    }
+
+    final int index = hash & (symbols.length - 1);
+    symbols[index] = new Symbol(units, hash, value != null, symbol, symbols[index]);
+    return symbol;
+  }
+
+  private synchronized QName add(final String namespaceURI, final String localPart, final String prefix, final int hash) {
+    Name[] names = this.names;
+    for (Name name = names[hash & (names.length - 1)]; name != null; name = name.next)
+      if (name.hash == hash && matches(name.value, namespaceURI, localPart, prefix))
+        return name.value;
+
+    if (++nameCount > names.length * LOAD_FACTOR) {
+      final Name[] resized = new Name[names.length * 2];
+      for (final Name bucket : names)
+        for (Name n = bucket; n != null; n = n.next)
+          resized[n.hash & (resized.length - 1)] = new Name(n.value, n.hash, resized[n.hash & (resized.length - 1)]);
+
+      this.names = names = resized;
+    }
+
+    final QName value = new QName(namespaceURI, localPart, prefix);
+    final int index = hash & (names.length - 1);
+    names[index] = new Name(value, hash, names[index]);
+    return value;
+  }
+
+  /**
+   * Returns a string representation of this table, including the number of
+   * symbols and {@link QName} instances.
+   *
+   * @return A string representation of this table.
+   */
+  @Override
+  public synchronized String toString() {
+    return getClass().getSimpleName() + "[symbols=" + symbolCount + ", names=" + nameCount + "]";
+  }
+}
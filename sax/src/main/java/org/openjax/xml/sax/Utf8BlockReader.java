@@ -0,0 +1,343 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A {@link BlockReader} that scans raw UTF-8 bytes from an
+ * {@link InputStream}, a {@link ByteBuffer}, or a {@code byte[]}.
+ * <p>
+ * Markup is scanned on the bytes of the block, and only the names and values
+ * that are dereferenced with {@link #toString(int,int)} or read from this
+ * {@link java.io.Reader} are decoded to UTF-16. Accordingly, all offsets and
+ * lengths reported to a {@link FasterSAXHandler} are in units of bytes, and
+ * the {@link #read(char[],int,int)} and {@link #skip(long)} methods of this
+ * {@link java.io.Reader} consume at most the requested number of <b>bytes</b>.
+ * <p>
+ * <b>Note:</b> The input is expected to be encoded in UTF-8 (or US-ASCII).
+ */
+public class Utf8BlockReader extends BlockReader {
+  private static final int DEFAULT_BLOCK_SIZE = 65536;
+
+  private final int blockSize;
+  private InputStream in;
+  ByteBuffer block;
+  private final char[] pair = new char[2];
+  private char[] chars;
+  private int pendingLowSurrogate = -1;
+
+  /**
+   * Creates a new {@link Utf8BlockReader} with the specified
+   * {@link InputStream} and a default block size.
+   *
+   * @param in The underlying {@link InputStream}.
+   * @throws NullPointerException If the specified {@link InputStream} is null.
+   */
+  public Utf8BlockReader(final InputStream in) {
+    this(in, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a new {@link Utf8BlockReader} with the specified
+   * {@link InputStream} and block size.
+   *
+   * @param in The underlying {@link InputStream}.
+   * @param blockSize The initial size of the block.
+   * @throws NullPointerException If the specified {@link InputStream} is null.
+   * @throws IllegalArgumentException If the specified block size is less than
+   *           {@code 1}.
+   */
+  public Utf8BlockReader(final InputStream in, final int blockSize) {
+    this.in = Objects.requireNonNull(in);
+    if (blockSize < 1)
+      throw new IllegalArgumentException("blockSize (" + blockSize + ") must be positive");
+
+    this.blockSize = blockSize;
+    this.block = ByteBuffer.wrap(new byte[blockSize]);
+  }
+
+  /**
+   * Creates a new {@link Utf8BlockReader} with the remaining bytes of the
+   * specified {@link ByteBuffer} as the single block, which is scanned in place
+   * without being copied.
+   *
+   * @param buffer The {@link ByteBuffer}.
+   * @throws NullPointerException If the specified {@link ByteBuffer} is null.
+   */
+  public Utf8BlockReader(final ByteBuffer buffer) {
+    this.blockSize = 0;
+    this.block = buffer.slice();
+    this.limit = block.limit();
+  }
+
+  /**
+   * Creates a new {@link Utf8BlockReader} with an empty block, for subclasses
+   * that provide the blocks by overriding {@link #refill(int)}.
+   */
+  Utf8BlockReader() {
+    this.blockSize = 0;
+    this.block = ByteBuffer.allocate(0);
+  }
+
+  /**
+   * Creates a new {@link Utf8BlockReader} with the specified {@code byte[]} as
+   * the single block, which is scanned in place without being copied.
+   *
+   * @param bytes The {@code byte[]}.
+   * @throws NullPointerException If the specified {@code byte[]} is null.
+   */
+  public Utf8BlockReader(final byte[] bytes) {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Resets this {@link Utf8BlockReader}, which must have been created with an
+   * {@link InputStream}, to read from the specified {@link InputStream}. The
+   * block is retained, unless it has grown beyond the initial block size.
+   *
+   * @param in The underlying {@link InputStream}, or {@code null} to only
+   *          release the current {@link InputStream}.
+   */
+  final void reset(final InputStream in) {
+    this.in = in;
+    if (block.capacity() > blockSize)
+      block = ByteBuffer.wrap(new byte[blockSize]);
+
+    pendingLowSurrogate = -1;
+    clear();
+  }
+
+  @Override
+  final int at(final int index) {
+    return block.get(index) & 0xFF;
+  }
+
+  @Override
+  int refill(final int keep) throws IOException {
+    final int remaining = limit - keep;
+    if (in == null) {
+      if (keep > 0) {
+        block.position(keep);
+        block = block.slice();
+        limit = remaining;
+      }
+
+      return -1;
+    }
+
+    final byte[] array = block.array();
+    if (keep > 0) {
+      System.arraycopy(array, keep, array, 0, remaining);
+    }
+    else if (remaining == array.length) {
+      final byte[] resized = new byte[array.length * 2];
+      System.arraycopy(array, 0, resized, 0, remaining);
+      block = ByteBuffer.wrap(resized);
+    }
+
+    limit = remaining;
+    final int read = in.read(block.array(), limit, block.capacity() - limit);
+    if (read > 0)
+      limit += read;
+
+    return read;
+  }
+
+  @Override
+  public String toString(final int off, final int len) {
+    if (block.hasArray())
+      return new String(block.array(), block.arrayOffset() + off, len, StandardCharsets.UTF_8);
+
+    if (chars == null || chars.length < len)
+      chars = new char[len];
+
+    return new String(chars, 0, decode(off, off + len, chars, 0));
+  }
+
+  @Override
+  public boolean regionMatches(final int off, final int len, final CharSequence str) {
+    final int length = str.length();
+    if (length > len)
+      return false;
+
+    for (int i = 0; i < length; ++i)
+      if (str.charAt(i) >= 0x80)
+        return str.toString().equals(toString(off, len));
+
+    return super.regionMatches(off, len, str);
+  }
+
+  @Override
+  final int indexOf(final int ch, final int from, final int to) {
+    return Swar.isEnabled(block) ? Swar.indexOf(block, ch, from, to) : super.indexOf(ch, from, to);
+  }
+
+  @Override
+  final int indexOf(final int ch0, final int ch1, final int ch2, final int from, final int to) {
+    return Swar.isEnabled(block) ? Swar.indexOf(block, ch0, ch1, ch2, from, to) : super.indexOf(ch0, ch1, ch2, from, to);
+  }
+
+  @Override
+  final boolean isCharAligned(final int off, final int len) {
+    for (int i = off, end = off + len; i < end; ++i)
+      if (block.get(i) < 0)
+        return false;
+
+    return true;
+  }
+
+  @Override
+  final int toChars(final int off, final int len, final char[] dst) {
+    return decode(off, off + len, dst, 0);
+  }
+
+  @Override
+  final int boundary(final int start, final int end) {
+    int i = end;
+    while (i > start && (block.get(i - 1) & 0xC0) == 0x80)
+      --i;
+
+    return i > start && i - 1 + sequenceLength(at(i - 1)) > end ? i - 1 : end;
+  }
+
+  @Override
+  final void append(final int off, final int len, final StringBuilder builder) {
+    if (isCharAligned(off, len)) {
+      super.append(off, len, builder);
+    }
+    else {
+      if (chars == null || chars.length < len)
+        chars = new char[len];
+
+      builder.append(chars, 0, decode(off, off + len, chars, 0));
+    }
+  }
+
+  /**
+   * Decodes the UTF-8 bytes of the current block between the specified
+   * indexes into the specified {@code char[]}.
+   *
+   * @param from The index of the first byte to decode.
+   * @param to The index after the last byte to decode.
+   * @param dst The destination {@code char[]}.
+   * @param off The offset in the destination {@code char[]}.
+   * @return The number of chars that were decoded.
+   */
+  private int decode(int from, final int to, final char[] dst, final int off) {
+    int j = off;
+    while (from < to) {
+      final int b = at(from++);
+      if (b < 0x80) {
+        dst[j++] = (char)b;
+      }
+      else if (b < 0xE0) {
+        dst[j++] = (char)((b & 0x1F) << 6 | at(from++) & 0x3F);
+      }
+      else if (b < 0xF0) {
+        dst[j++] = (char)((b & 0x0F) << 12 | (at(from++) & 0x3F) << 6 | at(from++) & 0x3F);
+      }
+      else {
+        final int cp = (b & 0x07) << 18 | (at(from++) & 0x3F) << 12 | (at(from++) & 0x3F) << 6 | at(from++) & 0x3F;
+        dst[j++] = Character.highSurrogate(cp);
+        dst[j++] = Character.lowSurrogate(cp);
+      }
+    }
+
+    return j - off;
+  }
+
+  private static int sequenceLength(final int b) {
+    return b < 0x80 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (pendingLowSurrogate != -1) {
+      final int ch = pendingLowSurrogate;
+      pendingLowSurrogate = -1;
+      return ch;
+    }
+
+    if (position == limit && fill(position) < 1)
+      return -1;
+
+    final int len = sequenceLength(at(position));
+    if (position + len > limit && (fill(position) == -1 || position + len > limit))
+      return -1;
+
+    if (decode(position, position += len, pair, 0) == 2)
+      pendingLowSurrogate = pair[1];
+
+    return pair[0];
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    if (len == 0)
+      return 0;
+
+    if (position == limit && fill(position) < 1)
+      return -1;
+
+    int end = position;
+    for (int max = Math.min(position + len, limit), next; end < max && (next = end + sequenceLength(at(end))) <= max; end = next);
+    if (end == position)
+      return read(cbuf, off);
+
+    final int read = decode(position, end, cbuf, off);
+    position = end;
+    return read;
+  }
+
+  private int read(final char[] cbuf, final int off) throws IOException {
+    final int ch = read();
+    if (ch == -1)
+      return -1;
+
+    cbuf[off] = (char)ch;
+    return 1;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    if (n <= 0)
+      return 0;
+
+    if (position == limit && fill(position) < 1)
+      return 0;
+
+    final int skipped = (int)Math.min(n, limit - position);
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    return position < limit || in != null && in.available() > 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (in != null)
+      in.close();
+  }
+}
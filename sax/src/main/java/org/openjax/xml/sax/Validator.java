@@ -20,6 +20,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -27,13 +29,17 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.SAXParser;
 import javax.xml.transform.sax.SAXSource;
+import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
 import org.apache.xerces.impl.Constants;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.libj.net.MemoryURLStreamHandler;
 import org.libj.net.URLs;
+import org.libj.util.function.Throwing;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -51,6 +57,9 @@ public final class Validator {
   private static final String dynamicXmlRoot = "n892fn298n9w8nds9v";
   private static final String dynamicXmlError = "cvc-elt.1.a: Cannot find the declaration of element '" + dynamicXmlRoot + "'.";
   private static final SchemaFactory factory;
+  private static final SchemaCache schemaCache = new SchemaCache(Integer.getInteger("org.openjax.xml.sax.schemaCache", 64));
+  private static final XmlGrammarPool grammarPool;
+  private static final Method newPooledSchema;
 
   static {
     try {
@@ -59,9 +68,24 @@ public final class Validator {
     catch (final SAXNotRecognizedException | SAXNotSupportedException e) {
       throw new ExceptionInInitializerError(e);
     }
+
+    final int capacity = Integer.getInteger("org.openjax.xml.sax.grammarPool", 256);
+    grammarPool = capacity > 0 ? new XmlGrammarPool(capacity) : null;
+
+    // The grammar-pool property is not supported by the Xerces SchemaFactory,
+    // which instead provides a Schema of a pool via newSchema(XMLGrammarPool)
+    Method method;
+    try {
+      method = factory.getClass().getMethod("newSchema", XMLGrammarPool.class);
+    }
+    catch (final NoSuchMethodException e) {
+      method = null;
+    }
+
+    newPooledSchema = method;
   }
 
-  private static SchemaFactory newSchemaFactory() throws SAXNotRecognizedException, SAXNotSupportedException {
+  static SchemaFactory newSchemaFactory() throws SAXNotRecognizedException, SAXNotSupportedException {
     final SchemaFactory factory = SchemaFactory.newInstance(Constants.W3C_XML_SCHEMA11_NS_URI);
     factory.setFeature("http://apache.org/xml/features/validation/schema-full-checking", true);
     factory.setFeature("http://apache.org/xml/features/validation/schema/augment-psvi", true);
@@ -112,6 +136,60 @@ public final class Validator {
     return factory;
   }
 
+  /**
+   * Returns the {@link SchemaCache} of precompiled schemas that are used to
+   * validate documents. The capacity of the cache is specified with the
+   * {@code org.openjax.xml.sax.schemaCache} system property (default:
+   * {@code 64}), whereby {@code 0} disables the cache.
+   *
+   * @return The {@link SchemaCache} of precompiled schemas that are used to
+   *         validate documents.
+   */
+  public static SchemaCache getSchemaCache() {
+    return schemaCache;
+  }
+
+  /**
+   * Returns the {@link XmlGrammarPool} that is shared by the validations of
+   * documents with schemas that are not precompiled by the
+   * {@linkplain #getSchemaCache() SchemaCache}. The capacity of the pool is
+   * specified with the {@code org.openjax.xml.sax.grammarPool} system property
+   * (default: {@code 256}), whereby {@code 0} disables the pool.
+   *
+   * @return The {@link XmlGrammarPool} that is shared by validations, or
+   *         {@code null} if the pool is disabled.
+   */
+  public static XmlGrammarPool getGrammarPool() {
+    return grammarPool;
+  }
+
+  /**
+   * Returns a new {@link Schema} that loads the schemas of a validated
+   * document with the specified {@link XMLGrammarPool}.
+   *
+   * @param grammarPool The {@link XMLGrammarPool}, or {@code null} to load the
+   *          schemas without a pool.
+   * @return A new {@link Schema} that loads the schemas of a validated
+   *         document with the specified {@link XMLGrammarPool}.
+   * @throws SAXException If a SAX error occurs during the creation of the
+   *           {@link Schema}.
+   */
+  static Schema newSchema(final XMLGrammarPool grammarPool) throws SAXException {
+    if (grammarPool == null || newPooledSchema == null)
+      return factory.newSchema();
+
+    try {
+      return (Schema)newPooledSchema.invoke(factory, grammarPool);
+    }
+    catch (final IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+    catch (final InvocationTargetException e) {
+      Throwing.rethrow(e.getCause());
+      throw new Error("Will never get here");
+    }
+  }
+
   /**
    * Validates the XML document contained in the specified string.
    *
@@ -257,7 +335,49 @@ public final class Validator {
    *           {@link XmlPreview} is null.
    */
   public static void validate(final InputSource inputSource, final XmlPreview preview, final ErrorHandler errorHandler) throws IOException, SAXException {
-    validate(inputSource instanceof CachedInputSource ? (CachedInputSource)inputSource : new CachedInputSource(inputSource), preview, errorHandler);
+    // The document is read once, so it is not cached for replay
+    validate(inputSource, Objects.requireNonNull(preview), null, errorHandler);
+  }
+
+  /**
+   * Validates the XML document provided by the source in the specified
+   * {@link InputSource}, with a root element of the specified namespace.
+   * <p>
+   * The first document of the namespace is previewed to discover its schemas,
+   * and once its schemas are precompiled by the {@linkplain #getSchemaCache()
+   * SchemaCache}, the namespace is bound to the precompiled schemas. Subsequent
+   * documents of the namespace are thereafter validated in a single pass,
+   * without a preview. This method is therefore intended for streams of
+   * documents of which the namespace of the root element determines the
+   * schemas, such as messages of a service.
+   *
+   * @param inputSource The {@link InputSource} providing the source for the XML
+   *          document to validate.
+   * @param namespace The namespace of the root element of the document, or
+   *          {@code ""} if the root element does not have a namespace.
+   * @param errorHandler The {@link ErrorHandler} for parsing and validation
+   *          errors.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXException If the {@link ErrorHandler} throws a
+   *           {@link SAXException}, if a fatal error is found and the
+   *           {@link ErrorHandler} returns normally, or if any SAX errors occur
+   *           during processing.
+   * @throws NullPointerException If the specified {@link InputSource} or
+   *           namespace is null.
+   */
+  public static void validate(final InputSource inputSource, final String namespace, final ErrorHandler errorHandler) throws IOException, SAXException {
+    final ValidatorPool validators = schemaCache.getValidatorPool(Objects.requireNonNull(namespace));
+    if (validators != null) {
+      validate(inputSource, null, validators, errorHandler);
+      return;
+    }
+
+    final CachedInputSource cachedInputSource = inputSource instanceof CachedInputSource ? (CachedInputSource)inputSource : new CachedInputSource(inputSource);
+    final XmlPreview preview = initInputSource(null, cachedInputSource, null);
+    validate(cachedInputSource, preview, null, errorHandler);
+    final QName rootElement = preview.getRootElement();
+    if (rootElement != null && namespace.equals(rootElement.getNamespaceURI()))
+      schemaCache.bind(namespace, preview, cachedInputSource.getSystemId());
   }
 
   /**
@@ -282,12 +402,13 @@ public final class Validator {
   private static void validate(final URL url, final InputSource inputSource, final XmlPreviewHandler previewHandler, final ErrorHandler errorHandler) throws IOException, SAXException {
     final CachedInputSource cachedInputSource = inputSource instanceof CachedInputSource ? (CachedInputSource)inputSource : new CachedInputSource(inputSource);
     final XmlPreview preview = initInputSource(url, cachedInputSource, previewHandler);
-    validate(cachedInputSource, preview, errorHandler);
+    validate(cachedInputSource, preview, null, errorHandler);
   }
 
   private static XmlPreview initInputSource(final URL url, final CachedInputSource inputSource, final XmlPreviewHandler previewHandler) throws IOException, SAXParseException {
     if (previewHandler == null) {
-      final XmlPreview preview = XmlPreviewParser.parse(url != null ? url : new URL(inputSource.getSystemId()), inputSource);
+      // The schemas that are precompiled by the SchemaCache must include those of nested schema locations
+      final XmlPreview preview = XmlPreviewParser.parse(url != null ? url : new URL(inputSource.getSystemId()), inputSource, schemaCache.getCapacity() == 0);
       inputSource.getCharacterStream().close();
       return preview;
     }
@@ -301,9 +422,13 @@ public final class Validator {
    * Validates the XML document provided by the stream of data in the specified
    * {@link Reader}.
    *
-   * @param inputSource The {@link CachedInputSource} providing the source for
-   *          the XML document to validate.
-   * @param preview The {@link XmlPreview} for the document to validate .
+   * @param inputSource The {@link InputSource} providing the source for the XML
+   *          document to validate.
+   * @param preview The {@link XmlPreview} for the document to validate, or
+   *          {@code null} if the specified {@link ValidatorPool} is not null.
+   * @param validators The {@link ValidatorPool} of the precompiled schemas of
+   *          the document, or {@code null} to look up the precompiled schemas
+   *          of the specified {@link XmlPreview}.
    * @param errorHandler The {@link ErrorHandler} for parsing and validation
    *          errors.
    * @throws IOException If an I/O error has occurred.
@@ -311,14 +436,20 @@ public final class Validator {
    *           {@link SAXException}, if a fatal error is found and the
    *           {@link ErrorHandler} returns normally, or if any SAX errors occur
    *           during processing.
-   * @throws NullPointerException If the specified {@link InputSource} or
-   *           {@link XmlPreview} is null.
+   * @throws NullPointerException If the specified {@link InputSource} is null.
    */
-  private static void validate(final CachedInputSource inputSource, final XmlPreview preview, final ErrorHandler errorHandler) throws IOException, SAXException {
+  private static void validate(final InputSource inputSource, final XmlPreview preview, final ValidatorPool validators, final ErrorHandler errorHandler) throws IOException, SAXException {
+    final XmlMetrics metrics = Metrics.enabled();
+    final Object context = metrics != null ? metrics.beginValidation() : null;
+    final long start = metrics != null ? System.nanoTime() : 0;
+    boolean valid = false;
+    XmlGrammarPool.Stage stage = null;
+    ValidatorPool pool = validators;
+    javax.xml.validation.Validator validator = null;
     try {
       final SAXParser parser = SAXParsers.newParser(false);
       final SAXSource saxSource;
-      if (preview.isSchema()) {
+      if (preview != null && preview.isSchema()) {
         final StringBuilder xml = new StringBuilder();
         xml.append('<').append(dynamicXmlRoot);
         xml.append(" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
@@ -339,10 +470,23 @@ public final class Validator {
         saxSource.setSystemId(inputSource.getSystemId());
       }
 
-      final javax.xml.validation.Validator validator = factory.newSchema().newValidator();
-      validator.setResourceResolver(new XmlCatalogResolver(preview.getCatalog()));
+      if (pool == null)
+        pool = schemaCache.getValidatorPool(preview, inputSource.getSystemId());
+
+      if (pool != null) {
+        validator = pool.acquire();
+      }
+      else {
+        if (grammarPool != null)
+          stage = grammarPool.stage();
+
+        validator = newSchema(stage).newValidator();
+      }
 
-      final ValidatorErrorHandler validatorErrorHandler = new ValidatorErrorHandler(errorHandler, inputSource, preview.isSchema() || preview.getImports() != null || preview.getIncludes() != null);
+      if (preview != null)
+        validator.setResourceResolver(new XmlCatalogResolver(preview.getCatalog()));
+
+      final ValidatorErrorHandler validatorErrorHandler = new ValidatorErrorHandler(errorHandler, inputSource, preview == null || preview.isSchema() || preview.getImports() != null || preview.getIncludes() != null);
       validator.setErrorHandler(validatorErrorHandler);
 
       try {
@@ -353,10 +497,19 @@ public final class Validator {
       }
 
       checkException(validatorErrorHandler, null);
+      valid = true;
+      if (stage != null)
+        stage.commit();
     }
     finally {
+      if (pool != null && validator != null)
+        pool.release(validator);
+
       if (preview != null)
         preview.getCatalog().close();
+
+      if (metrics != null)
+        metrics.validated(context, inputSource.getSystemId(), valid, System.nanoTime() - start);
     }
   }
 
@@ -0,0 +1,108 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+/**
+ * A bounded, thread-safe pool of {@link Validator} instances of a
+ * {@link Schema}, which are {@linkplain Validator#reset() reset} and reused
+ * across validations, so that the state of the validators remains warm.
+ * <p>
+ * A {@link Validator} is not thread safe, and is therefore used by one thread
+ * at a time: a validator is obtained with {@link #acquire()}, which returns an
+ * idle validator of the pool, or a new validator of the {@link Schema} if the
+ * pool is empty. A validator is returned to the pool with
+ * {@link #release(Validator)}, and is discarded if the pool is full. The pool
+ * does not block, and does not pin the carrier thread of a virtual thread.
+ *
+ * @see SchemaCache
+ */
+public final class ValidatorPool {
+  private final Schema schema;
+  private final ArrayBlockingQueue<Validator> idle;
+
+  /**
+   * Creates a new {@link ValidatorPool} with the specified {@link Schema} and
+   * capacity.
+   *
+   * @param schema The {@link Schema} of the validators.
+   * @param capacity The maximum number of idle validators that are retained by
+   *          the pool.
+   * @throws NullPointerException If the specified {@link Schema} is null.
+   * @throws IllegalArgumentException If the specified capacity is less than
+   *           {@code 1}.
+   */
+  public ValidatorPool(final Schema schema, final int capacity) {
+    this.schema = Objects.requireNonNull(schema);
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity (" + capacity + ") must be positive");
+
+    this.idle = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Returns the {@link Schema} of the validators of this pool.
+   *
+   * @return The {@link Schema} of the validators of this pool.
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Returns an idle validator of this pool, or a new validator of the
+   * {@link Schema} if the pool is empty.
+   *
+   * @return An idle validator of this pool, or a new validator of the
+   *         {@link Schema} if the pool is empty.
+   */
+  public Validator acquire() {
+    final Validator validator = idle.poll();
+    return validator != null ? validator : schema.newValidator();
+  }
+
+  /**
+   * Returns the specified validator to this pool. The validator is reset to
+   * the state of a new validator of the {@link Schema} (i.e. its
+   * {@link org.xml.sax.ErrorHandler} and
+   * {@link org.w3c.dom.ls.LSResourceResolver} are unset), and is discarded if
+   * the pool is full. The validator must not be used after it is released.
+   *
+   * @param validator The validator.
+   * @return {@code true} if the validator was retained by this pool, or
+   *         {@code false} if it was discarded.
+   * @throws NullPointerException If the specified validator is null.
+   */
+  public boolean release(final Validator validator) {
+    validator.reset();
+    return idle.offer(validator);
+  }
+
+  /**
+   * Returns the number of idle validators in this pool.
+   *
+   * @return The number of idle validators in this pool.
+   */
+  public int size() {
+    return idle.size();
+  }
+}
@@ -70,6 +70,10 @@ class XmlCatalogResolver implements LSResourceResolver {
 
     try {
       XmlEntity entity = catalog.getEntity(systemId);
+      final XmlMetrics metrics = Metrics.enabled();
+      if (metrics != null)
+        metrics.catalogLookup(systemId, entity != null);
+
       if (entity == null) {
         if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespaceURI)) {
           catalog.putEntity(namespaceURI, entity = W3C.SCHEMA_XSD.getEntity());
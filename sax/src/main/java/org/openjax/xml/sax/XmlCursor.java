@@ -0,0 +1,383 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * A pull cursor over the events of an XML document in a {@link BlockReader},
+ * which is backed by the same scanning engine as
+ * {@link FastSAXParser#parse(BlockReader,FasterSAXHandler)}.
+ * <p>
+ * The cursor is advanced with {@link #next()}, which returns the event type of
+ * the next event as one of the {@link javax.xml.stream.XMLStreamConstants}.
+ * Unlike a {@link FasterSAXHandler}, the caller controls the flow of parsing,
+ * and can stop at any event, or interleave the advancement of several cursors
+ * on a single thread.
+ * <p>
+ * Names and values are dereferenced only when requested: the accessors (i.e.
+ * {@link #getLocalName()}) allocate a new {@link String}, whereas the
+ * comparison methods (i.e. {@link #isLocalName(CharSequence)}) test the data
+ * in place. Prefixes are reported as they appear in the document, and are not
+ * resolved to namespaces.
+ * <p>
+ * An empty-element tag (i.e. {@code <a/>}) is reported as a
+ * {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT START_ELEMENT}
+ * followed by an
+ * {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT END_ELEMENT}.
+ * <p>
+ * <b>Note:</b> This class is not thread safe.
+ *
+ * @see FastSAXParser
+ */
+public final class XmlCursor implements Closeable {
+  private final BlockReader in;
+  private final BlockScanner scanner;
+  private int eventType = START_DOCUMENT;
+  private boolean empty;
+  private int depth;
+  private boolean pop;
+
+  /**
+   * Creates a new {@link XmlCursor} over the specified {@link BlockReader}.
+   * The cursor is positioned at
+   * {@link javax.xml.stream.XMLStreamConstants#START_DOCUMENT START_DOCUMENT}.
+   *
+   * @param in The {@link BlockReader}.
+   * @throws NullPointerException If the specified {@link BlockReader} is null.
+   */
+  public XmlCursor(final BlockReader in) {
+    this.in = Objects.requireNonNull(in);
+    this.scanner = new BlockScanner(in);
+  }
+
+  /**
+   * Advances this cursor to the next event.
+   *
+   * @return The event type of the next event, as one of
+   *         {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *         START_ELEMENT},
+   *         {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *         END_ELEMENT},
+   *         {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS},
+   *         {@link javax.xml.stream.XMLStreamConstants#CDATA CDATA},
+   *         {@link javax.xml.stream.XMLStreamConstants#PROCESSING_INSTRUCTION
+   *         PROCESSING_INSTRUCTION},
+   *         {@link javax.xml.stream.XMLStreamConstants#COMMENT COMMENT},
+   *         {@link javax.xml.stream.XMLStreamConstants#DTD DTD}, or
+   *         {@link javax.xml.stream.XMLStreamConstants#END_DOCUMENT
+   *         END_DOCUMENT}.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws IllegalStateException If this cursor is at
+   *           {@link javax.xml.stream.XMLStreamConstants#END_DOCUMENT
+   *           END_DOCUMENT}.
+   */
+  public int next() throws IOException, SAXParseException {
+    if (eventType == END_DOCUMENT)
+      throw new IllegalStateException("END_DOCUMENT has been reached");
+
+    if (pop) {
+      pop = false;
+      --depth;
+    }
+
+    if (empty) {
+      empty = false;
+      pop = true;
+      return eventType = END_ELEMENT;
+    }
+
+    final int eventType = scanner.next();
+    if (eventType == START_ELEMENT) {
+      ++depth;
+      empty = scanner.empty;
+    }
+    else if (eventType == END_ELEMENT) {
+      pop = true;
+    }
+
+    return this.eventType = eventType;
+  }
+
+  /**
+   * Skips the content of the current element, and advances this cursor to the
+   * {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT END_ELEMENT} of the
+   * current element. The content is fast-scanned, counting only the depth of
+   * nested elements, and is not decoded.
+   *
+   * @return The event type of the next event, which is
+   *         {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *         END_ELEMENT}, or
+   *         {@link javax.xml.stream.XMLStreamConstants#END_DOCUMENT
+   *         END_DOCUMENT} if the end of the input was reached before the end
+   *         tag of the current element.
+   * @throws IOException If an I/O error has occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   */
+  public int skipElement() throws IOException, SAXParseException {
+    assertStartElement();
+    pop = true;
+    if (empty)
+      empty = false;
+    else if (!scanner.skipElement())
+      return eventType = END_DOCUMENT;
+
+    return eventType = END_ELEMENT;
+  }
+
+  /**
+   * Returns whether this cursor has more events, i.e. whether it is not at
+   * {@link javax.xml.stream.XMLStreamConstants#END_DOCUMENT END_DOCUMENT}.
+   *
+   * @return Whether this cursor has more events.
+   */
+  public boolean hasNext() {
+    return eventType != END_DOCUMENT;
+  }
+
+  /**
+   * Returns the event type of the current event.
+   *
+   * @return The event type of the current event.
+   * @see #next()
+   */
+  public int getEventType() {
+    return eventType;
+  }
+
+  /**
+   * Returns the depth of the current event, which is the number of open
+   * elements, including the element of the current
+   * {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT START_ELEMENT} or
+   * {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT END_ELEMENT}.
+   *
+   * @return The depth of the current event.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  private void assertName() {
+    if (eventType != START_ELEMENT && eventType != END_ELEMENT && eventType != PROCESSING_INSTRUCTION)
+      throw new IllegalStateException("Current event is not START_ELEMENT, END_ELEMENT, or PROCESSING_INSTRUCTION");
+  }
+
+  private void assertStartElement() {
+    if (eventType != START_ELEMENT)
+      throw new IllegalStateException("Current event is not START_ELEMENT");
+  }
+
+  private int attribute(final int index) {
+    assertStartElement();
+    if (index < 0 || index >= scanner.attributeCount)
+      throw new IndexOutOfBoundsException("index (" + index + ") out of range [0, " + scanner.attributeCount + ")");
+
+    return index * 5;
+  }
+
+  /**
+   * Returns the prefix of the name of the current element, which is empty if
+   * the name does not have a prefix.
+   *
+   * @return The prefix of the name of the current element.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT},
+   *           {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *           END_ELEMENT}, or
+   *           {@link javax.xml.stream.XMLStreamConstants#PROCESSING_INSTRUCTION
+   *           PROCESSING_INSTRUCTION}.
+   */
+  public String getPrefix() {
+    assertName();
+    return scanner.prefixLen == 0 ? "" : in.toString(scanner.off, scanner.prefixLen - 1);
+  }
+
+  /**
+   * Returns the local part of the name of the current element, or the target
+   * of the current processing instruction.
+   *
+   * @return The local part of the name of the current element, or the target
+   *         of the current processing instruction.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT},
+   *           {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *           END_ELEMENT}, or
+   *           {@link javax.xml.stream.XMLStreamConstants#PROCESSING_INSTRUCTION
+   *           PROCESSING_INSTRUCTION}.
+   */
+  public String getLocalName() {
+    assertName();
+    return in.toString(scanner.off + scanner.prefixLen, scanner.localPartLen);
+  }
+
+  /**
+   * Tests whether the local part of the name of the current element is equal
+   * to the specified {@link CharSequence}, without allocating a
+   * {@link String}.
+   *
+   * @param localName The {@link CharSequence} to compare.
+   * @return Whether the local part of the name of the current element is equal
+   *         to the specified {@link CharSequence}.
+   * @throws NullPointerException If the specified {@link CharSequence} is
+   *           null.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT},
+   *           {@link javax.xml.stream.XMLStreamConstants#END_ELEMENT
+   *           END_ELEMENT}, or
+   *           {@link javax.xml.stream.XMLStreamConstants#PROCESSING_INSTRUCTION
+   *           PROCESSING_INSTRUCTION}.
+   */
+  public boolean isLocalName(final CharSequence localName) {
+    assertName();
+    return in.regionMatches(scanner.off + scanner.prefixLen, scanner.localPartLen, localName);
+  }
+
+  /**
+   * Returns the number of attributes of the current element.
+   *
+   * @return The number of attributes of the current element.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   */
+  public int getAttributeCount() {
+    assertStartElement();
+    return scanner.attributeCount;
+  }
+
+  /**
+   * Returns the prefix of the name of the attribute at the specified index,
+   * which is empty if the name does not have a prefix.
+   *
+   * @param index The index of the attribute.
+   * @return The prefix of the name of the attribute at the specified index.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   * @throws IndexOutOfBoundsException If the specified index is out of range.
+   */
+  public String getAttributePrefix(final int index) {
+    final int i = attribute(index);
+    final int[] attributes = scanner.attributes;
+    return attributes[i + 1] == 0 ? "" : in.toString(attributes[i], attributes[i + 1] - 1);
+  }
+
+  /**
+   * Returns the local part of the name of the attribute at the specified index.
+   *
+   * @param index The index of the attribute.
+   * @return The local part of the name of the attribute at the specified index.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   * @throws IndexOutOfBoundsException If the specified index is out of range.
+   */
+  public String getAttributeLocalName(final int index) {
+    final int i = attribute(index);
+    final int[] attributes = scanner.attributes;
+    return in.toString(attributes[i] + attributes[i + 1], attributes[i + 2]);
+  }
+
+  /**
+   * Returns the value of the attribute at the specified index, with entity and
+   * character references decoded.
+   *
+   * @param index The index of the attribute.
+   * @return The value of the attribute at the specified index.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   * @throws IndexOutOfBoundsException If the specified index is out of range.
+   */
+  public String getAttributeValue(final int index) {
+    final int i = attribute(index);
+    final int[] attributes = scanner.attributes;
+    return in.toUnescapedString(attributes[i] + attributes[i + 1] + attributes[i + 2] + attributes[i + 3], attributes[i + 4]);
+  }
+
+  /**
+   * Returns the value of the first attribute with the specified local name,
+   * with entity and character references decoded, or {@code null} if the
+   * current element does not have such an attribute.
+   *
+   * @param localName The local name of the attribute.
+   * @return The value of the first attribute with the specified local name, or
+   *         {@code null} if the current element does not have such an
+   *         attribute.
+   * @throws NullPointerException If the specified local name is null.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#START_ELEMENT
+   *           START_ELEMENT}.
+   */
+  public String getAttributeValue(final CharSequence localName) {
+    assertStartElement();
+    final int[] attributes = scanner.attributes;
+    for (int i = 0, len = scanner.attributeCount * 5; i < len; i += 5)
+      if (in.regionMatches(attributes[i] + attributes[i + 1], attributes[i + 2], localName))
+        return in.toUnescapedString(attributes[i] + attributes[i + 1] + attributes[i + 2] + attributes[i + 3], attributes[i + 4]);
+
+    return null;
+  }
+
+  /**
+   * Returns the text of the current event, which, for
+   * {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS}, has
+   * entity and character references decoded. Contiguous character data may be
+   * reported in more than one
+   * {@link javax.xml.stream.XMLStreamConstants#CHARACTERS CHARACTERS} event.
+   *
+   * @return The text of the current event.
+   * @throws IllegalStateException If the current event is not
+   *           {@link javax.xml.stream.XMLStreamConstants#CHARACTERS
+   *           CHARACTERS}, {@link javax.xml.stream.XMLStreamConstants#CDATA
+   *           CDATA}, {@link javax.xml.stream.XMLStreamConstants#COMMENT
+   *           COMMENT}, or {@link javax.xml.stream.XMLStreamConstants#DTD
+   *           DTD}.
+   */
+  public String getText() {
+    if (eventType == CHARACTERS)
+      return in.toUnescapedString(scanner.off, scanner.len);
+
+    if (eventType != CDATA && eventType != COMMENT && eventType != DTD)
+      throw new IllegalStateException("Current event is not CHARACTERS, CDATA, COMMENT, or DTD");
+
+    return in.toString(scanner.off, scanner.len);
+  }
+
+  /**
+   * Closes the underlying {@link BlockReader}.
+   *
+   * @throws IOException If an I/O error has occurred.
+   */
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
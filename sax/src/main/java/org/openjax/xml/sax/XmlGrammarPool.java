@@ -0,0 +1,308 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.grammars.XMLSchemaDescription;
+
+/**
+ * A bounded, thread-safe {@link XMLGrammarPool} of XML Schema grammars, which
+ * is shared across validations so that the imported and included schemas of a
+ * document are not parsed and compiled on each validation.
+ * <p>
+ * Grammars are keyed by target namespace. A grammar is only retrieved for a
+ * request that specifies a location if the grammar was loaded from the same
+ * location, so that different schemas of the same target namespace (i.e.
+ * {@code xs:override} and {@code xs:redefine}) do not shadow each other. DTD
+ * grammars are not pooled.
+ * <p>
+ * Once the pool holds the maximum number of grammars, further grammars are not
+ * pooled. A pool can be locked with {@link #lockPool()}, whereby the pooled
+ * grammars continue to be provided but no further grammars are pooled, and can
+ * be sealed with {@link #seal()}, which locks the pool permanently. A sealed
+ * pool cannot be unlocked or cleared, which is intended for production
+ * environments in which the schemas are known and are warmed up at startup.
+ *
+ * @see Validator#getGrammarPool()
+ */
+public final class XmlGrammarPool implements XMLGrammarPool {
+  private static final Grammar[] EMPTY = {};
+
+  /**
+   * A view of a {@link XmlGrammarPool} that is used for a single validation,
+   * which retains the grammars that are loaded by the validation until they
+   * are {@linkplain #commit() committed} to the pool, so that the grammars of
+   * a failed validation (which may be invalid) are not pooled.
+   */
+  final class Stage implements XMLGrammarPool {
+    private ArrayList<Grammar> grammars;
+
+    private Stage() {
+    }
+
+    @Override
+    public Grammar[] retrieveInitialGrammarSet(final String grammarType) {
+      return EMPTY;
+    }
+
+    @Override
+    public void cacheGrammars(final String grammarType, final Grammar[] grammars) {
+      if (!XMLGrammarDescription.XML_SCHEMA.equals(grammarType) || grammars == null || grammars.length == 0)
+        return;
+
+      if (this.grammars == null)
+        this.grammars = new ArrayList<>(grammars.length);
+
+      for (final Grammar grammar : grammars)
+        this.grammars.add(grammar);
+    }
+
+    @Override
+    public Grammar retrieveGrammar(final XMLGrammarDescription desc) {
+      if (grammars != null)
+        for (final Grammar grammar : grammars)
+          if (matches(grammar, desc))
+            return grammar;
+
+      return XmlGrammarPool.this.retrieveGrammar(desc);
+    }
+
+    /**
+     * Adds the grammars that were loaded with this {@link Stage} to the pool.
+     */
+    void commit() {
+      if (grammars != null) {
+        XmlGrammarPool.this.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, grammars.toArray(EMPTY));
+        grammars = null;
+      }
+    }
+
+    @Override
+    public void lockPool() {
+    }
+
+    @Override
+    public void unlockPool() {
+    }
+
+    @Override
+    public void clear() {
+      grammars = null;
+    }
+  }
+
+  private final int capacity;
+  private final ConcurrentHashMap<String,Grammar> grammars = new ConcurrentHashMap<>();
+  private volatile boolean locked;
+  private volatile boolean sealed;
+
+  /**
+   * Creates a new {@link XmlGrammarPool} with the specified capacity.
+   *
+   * @param capacity The maximum number of grammars that are held by the pool.
+   * @throws IllegalArgumentException If the specified capacity is less than
+   *           {@code 1}.
+   */
+  public XmlGrammarPool(final int capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity (" + capacity + ") must be positive");
+
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the maximum number of grammars that are held by this pool.
+   *
+   * @return The maximum number of grammars that are held by this pool.
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of grammars in this pool.
+   *
+   * @return The number of grammars in this pool.
+   */
+  public int size() {
+    return grammars.size();
+  }
+
+  /**
+   * Returns whether this pool is locked.
+   *
+   * @return Whether this pool is locked.
+   */
+  public boolean isLocked() {
+    return locked;
+  }
+
+  /**
+   * Returns whether this pool is sealed.
+   *
+   * @return Whether this pool is sealed.
+   */
+  public boolean isSealed() {
+    return sealed;
+  }
+
+  /**
+   * Returns a new {@link Stage} of this pool for a single validation.
+   *
+   * @return A new {@link Stage} of this pool for a single validation.
+   */
+  Stage stage() {
+    return new Stage();
+  }
+
+  private static String key(final String namespace) {
+    return namespace != null ? namespace : "";
+  }
+
+  /**
+   * Returns the location of the schema that is requested by the specified
+   * {@link XMLGrammarDescription}, or {@code null} if the description does not
+   * specify a location.
+   */
+  private static String getLocation(final XMLGrammarDescription desc) {
+    if (desc.getExpandedSystemId() != null)
+      return desc.getExpandedSystemId();
+
+    String location = desc.getLiteralSystemId();
+    if (location == null && desc instanceof XMLSchemaDescription) {
+      final String[] hints = ((XMLSchemaDescription)desc).getLocationHints();
+      if (hints != null && hints.length > 0)
+        location = hints[0];
+    }
+
+    return location == null || desc.getBaseSystemId() == null ? location : XmlCatalogResolver.getPath(desc.getBaseSystemId(), location);
+  }
+
+  private static boolean matches(final Grammar grammar, final XMLGrammarDescription desc) {
+    if (!XMLGrammarDescription.XML_SCHEMA.equals(desc.getGrammarType()))
+      return false;
+
+    final XMLGrammarDescription description = grammar.getGrammarDescription();
+    if (!key(description.getNamespace()).equals(key(desc.getNamespace())))
+      return false;
+
+    final String location = getLocation(desc);
+    return location == null || location.equals(description.getExpandedSystemId());
+  }
+
+  /**
+   * Returns an empty array, so that each grammar is requested with
+   * {@link #retrieveGrammar(XMLGrammarDescription)}, which checks the location
+   * of the grammar. The initial grammar set is loaded into the grammar bucket
+   * of the validation without regard to location, whereby a pooled grammar
+   * would shadow a different schema of the same target namespace.
+   *
+   * @param grammarType The type of the grammars.
+   * @return An empty array.
+   */
+  @Override
+  public Grammar[] retrieveInitialGrammarSet(final String grammarType) {
+    return EMPTY;
+  }
+
+  @Override
+  public void cacheGrammars(final String grammarType, final Grammar[] grammars) {
+    if (locked || !XMLGrammarDescription.XML_SCHEMA.equals(grammarType) || grammars == null)
+      return;
+
+    synchronized (this.grammars) {
+      for (final Grammar grammar : grammars) {
+        final String key = key(grammar.getGrammarDescription().getNamespace());
+        if (this.grammars.containsKey(key) || this.grammars.size() < capacity)
+          this.grammars.put(key, grammar);
+      }
+    }
+  }
+
+  @Override
+  public Grammar retrieveGrammar(final XMLGrammarDescription desc) {
+    final Grammar grammar = grammars.get(key(desc.getNamespace()));
+    return grammar != null && matches(grammar, desc) ? grammar : null;
+  }
+
+  /**
+   * Removes the grammar of the specified target namespace from this pool.
+   *
+   * @param namespace The target namespace, or {@code null} for the grammar of
+   *          schemas without a target namespace.
+   * @return The removed {@link Grammar}, or {@code null} if this pool did not
+   *         hold a grammar of the specified target namespace.
+   * @throws IllegalStateException If this pool is sealed.
+   */
+  public Grammar remove(final String namespace) {
+    if (sealed)
+      throw new IllegalStateException("Pool is sealed");
+
+    return grammars.remove(key(namespace));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The pooled grammars continue to be provided, but no further grammars are
+   * pooled until the pool is {@linkplain #unlockPool() unlocked}.
+   */
+  @Override
+  public void lockPool() {
+    locked = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException If this pool is sealed.
+   */
+  @Override
+  public void unlockPool() {
+    if (sealed)
+      throw new IllegalStateException("Pool is sealed");
+
+    locked = false;
+  }
+
+  /**
+   * Locks this pool permanently, whereby the pooled grammars continue to be
+   * provided, but the pool cannot be modified.
+   */
+  public void seal() {
+    locked = true;
+    sealed = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalStateException If this pool is sealed.
+   */
+  @Override
+  public void clear() {
+    if (sealed)
+      throw new IllegalStateException("Pool is sealed");
+
+    grammars.clear();
+  }
+}
@@ -0,0 +1,175 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+/**
+ * Service provider interface of metrics of the parsing stack, which receives
+ * one callback per parsed document, validated document, schema resolution and
+ * catalog lookup.
+ * <p>
+ * The active {@link XmlMetrics} is the first provider that is found with
+ * {@link java.util.ServiceLoader} when this interface is initialized, unless
+ * the system property {@code org.openjax.xml.sax.metrics} is {@code false}, or
+ * the instance that is installed with {@link #install(XmlMetrics)}. When no
+ * {@link XmlMetrics} is active, the only cost to the parsing stack is a read
+ * of a volatile field per document. When an {@link XmlMetrics} is active, but
+ * {@link #isEnabled()} returns {@code false}, the cost is a call to
+ * {@link #isEnabled()} per document: the events of a document are only
+ * counted, and the clock is only read, when {@link #isEnabled()} returns
+ * {@code true}.
+ * <p>
+ * Each unit of work that has a duration is bracketed by a {@code begin}
+ * method, which is invoked before the work starts, and a completion callback,
+ * which is invoked when the work completes or fails, and which receives the
+ * context that was returned by the {@code begin} method.
+ * <p>
+ * The callbacks are invoked on the thread that performs the work, and must
+ * therefore be thread safe and return quickly. All callback methods have
+ * empty default implementations, and {@link #isEnabled()} returns
+ * {@code true} by default.
+ *
+ * @see FastSAXParser
+ * @see Validator
+ * @see XmlPreviewParser
+ */
+public interface XmlMetrics {
+  /**
+   * Returns the active {@link XmlMetrics}, or {@code null} if metrics are
+   * disabled.
+   *
+   * @return The active {@link XmlMetrics}, or {@code null} if metrics are
+   *         disabled.
+   */
+  static XmlMetrics get() {
+    return Metrics.metrics;
+  }
+
+  /**
+   * Installs the specified {@link XmlMetrics} as the active instance, in place
+   * of the provider that is found with {@link java.util.ServiceLoader}.
+   *
+   * @param metrics The {@link XmlMetrics}, or {@code null} to disable metrics.
+   * @return The previously active {@link XmlMetrics}, or {@code null} if
+   *         metrics were disabled.
+   */
+  static XmlMetrics install(final XmlMetrics metrics) {
+    final XmlMetrics previous = Metrics.metrics;
+    Metrics.metrics = metrics;
+    return previous;
+  }
+
+  /**
+   * Returns whether this {@link XmlMetrics} currently consumes its callbacks.
+   * This method is invoked once per unit of work, and the callbacks of the
+   * unit of work are only invoked if it returns {@code true}.
+   *
+   * @return Whether this {@link XmlMetrics} currently consumes its callbacks.
+   */
+  default boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * Callback method that is invoked before a document is parsed with
+   * {@link FastSAXParser#parse(BlockReader,FasterSAXHandler)}, or any of the
+   * methods that delegate to it.
+   *
+   * @return The context of the parse, which is passed to
+   *         {@link #parsed(Object,long,long,long,long)}.
+   */
+  default Object beginParse() {
+    return null;
+  }
+
+  /**
+   * Callback method for a document that was parsed with
+   * {@link FastSAXParser#parse(BlockReader,FasterSAXHandler)}, or any of the
+   * methods that delegate to it, which is invoked when the parse completes,
+   * stops, or fails.
+   *
+   * @param context The context that was returned by {@link #beginParse()}.
+   * @param units The number of units that were scanned, which are bytes for a
+   *          {@link Utf8BlockReader}, and chars otherwise.
+   * @param events The number of events that were reported to the handler.
+   * @param elements The number of elements that were started.
+   * @param nanos The duration of the parse, in nanoseconds.
+   */
+  default void parsed(final Object context, final long units, final long events, final long elements, final long nanos) {
+  }
+
+  /**
+   * Callback method that is invoked before a document is validated with
+   * {@link Validator}.
+   *
+   * @return The context of the validation, which is passed to
+   *         {@link #validated(Object,String,boolean,long)}.
+   */
+  default Object beginValidation() {
+    return null;
+  }
+
+  /**
+   * Callback method for a document that was validated with {@link Validator},
+   * which is invoked when the validation completes or fails.
+   *
+   * @param context The context that was returned by
+   *          {@link #beginValidation()}.
+   * @param systemId The system identifier of the document, or {@code null} if
+   *          the document does not have a system identifier.
+   * @param valid Whether the document is valid.
+   * @param nanos The duration of the validation, in nanoseconds.
+   */
+  default void validated(final Object context, final String systemId, final boolean valid, final long nanos) {
+  }
+
+  /**
+   * Callback method that is invoked before the graph of schemas that are
+   * imported and included by a document is resolved with
+   * {@link XmlPreviewParser}.
+   *
+   * @return The context of the resolution, which is passed to
+   *         {@link #schemasResolved(Object,String,int,long)}.
+   */
+  default Object beginSchemaResolution() {
+    return null;
+  }
+
+  /**
+   * Callback method for the resolution of the graph of schemas that are
+   * imported and included by a document with {@link XmlPreviewParser}, which
+   * is invoked when the resolution completes or fails.
+   *
+   * @param context The context that was returned by
+   *          {@link #beginSchemaResolution()}.
+   * @param systemId The system identifier of the document.
+   * @param documents The number of distinct documents of the graph that were
+   *          visited, including the document itself.
+   * @param nanos The duration of the resolution, in nanoseconds.
+   */
+  default void schemasResolved(final Object context, final String systemId, final int documents, final long nanos) {
+  }
+
+  /**
+   * Callback method for a lookup of an entity in an {@link XmlCatalog}, while
+   * the schemas of a document are resolved or validated.
+   *
+   * @param systemId The system identifier of the entity.
+   * @param hit Whether the entity was found in the catalog.
+   */
+  default void catalogLookup(final String systemId, final boolean hit) {
+  }
+}
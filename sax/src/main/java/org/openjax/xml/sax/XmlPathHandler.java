@@ -0,0 +1,269 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A {@link FastSAXHandler} that matches the expressions of an
+ * {@link XmlPathMatcher} against the elements and attributes of a document,
+ * and reports each match with its value to {@link #match(int,String)} in a
+ * single streaming pass.
+ * <p>
+ * The set of active states of the automaton is tracked per depth of the open
+ * elements, in flat arrays that are reused across elements and documents. The
+ * value of a matched attribute is reported when the start tag of its element
+ * is closed, and the value of a matched element (i.e. the concatenation of its
+ * descendant character data) is reported when the element is ended. The
+ * content of an element for which no state is active, and of which no value is
+ * being collected, is skipped with {@link FasterSAXHandler#skipElement()}.
+ * <p>
+ * The handler can be reused for another document after {@link #reset()}.
+ * <p>
+ * Character data is only reported with the callbacks with a
+ * {@link BlockReader}, and a {@link java.io.Reader} that is not a
+ * {@link BlockReader} is therefore parsed by
+ * {@link FastSAXParser#parse(java.io.Reader,FasterSAXHandler)} through a
+ * {@link CharBlockReader}, as declared by {@link #requiresBlockReader()}.
+ *
+ * @see XmlPathMatcher
+ */
+public abstract class XmlPathHandler extends FastSAXHandler {
+  private final XmlPathMatcher matcher;
+
+  /**
+   * The active states of the automaton, as consecutive sets by depth, of which
+   * the set at depth {@code d} ends at {@code ends[d]}.
+   */
+  private int[] states = new int[32];
+  private int[] ends = new int[16];
+  private int depth;
+
+  /** The stamp of the set in which each state was last added. */
+  private final int[] stamps;
+  private int stamp;
+
+  /**
+   * The values being collected for matched elements, as consecutive tuples of
+   * {@code expression, depth, start}, where {@code start} is the index of the
+   * value in {@link #text}.
+   */
+  private int[] captures = new int[3 * 4];
+  private int captureCount;
+  private final StringBuilder text = new StringBuilder();
+
+  /**
+   * Creates a new {@link XmlPathHandler} with the specified
+   * {@link XmlPathMatcher}.
+   *
+   * @param matcher The {@link XmlPathMatcher}.
+   * @throws NullPointerException If the specified {@link XmlPathMatcher} is
+   *           null.
+   */
+  protected XmlPathHandler(final XmlPathMatcher matcher) {
+    this(matcher, null);
+  }
+
+  /**
+   * Creates a new {@link XmlPathHandler} with the specified
+   * {@link XmlPathMatcher} and {@link SymbolTable}, from which the names,
+   * namespaces and {@link QName} instances are obtained.
+   *
+   * @param matcher The {@link XmlPathMatcher}.
+   * @param symbols The {@link SymbolTable}, or {@code null} to allocate a new
+   *          {@link String} for each name.
+   * @throws NullPointerException If the specified {@link XmlPathMatcher} is
+   *           null.
+   */
+  protected XmlPathHandler(final XmlPathMatcher matcher, final SymbolTable symbols) {
+    super(symbols);
+    this.matcher = Objects.requireNonNull(matcher);
+    this.stamps = new int[matcher.getStateCount()];
+    ends[0] = add(0, 0, nextStamp());
+  }
+
+  /**
+   * Returns the {@link XmlPathMatcher} of this handler.
+   *
+   * @return The {@link XmlPathMatcher} of this handler.
+   */
+  public XmlPathMatcher getMatcher() {
+    return matcher;
+  }
+
+  /**
+   * Returns {@code true}, since character data is only reported with the
+   * callbacks with a {@link BlockReader}.
+   *
+   * @return {@code true}.
+   */
+  @Override
+  public final boolean requiresBlockReader() {
+    return true;
+  }
+
+  private int nextStamp() {
+    if (++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(stamps, 0);
+      stamp = 1;
+    }
+
+    return stamp;
+  }
+
+  /**
+   * Adds the specified state, and the descendant state that is entered with
+   * it, to the set that is being built, unless already added.
+   *
+   * @param state The state.
+   * @param size The size of the active states before the state is added.
+   * @param stamp The stamp of the set that is being built.
+   * @return The size of the active states after the state is added.
+   */
+  private int add(final int state, int size, final int stamp) {
+    if (stamps[state] != stamp) {
+      stamps[state] = stamp;
+      if (size == states.length)
+        states = Arrays.copyOf(states, size * 2);
+
+      states[size++] = state;
+    }
+
+    final int descendant = matcher.descendants[state];
+    return descendant == -1 ? size : add(descendant, size, stamp);
+  }
+
+  @Override
+  public final boolean startElement(final QName name, final Map<QName,String> attributes) throws IOException {
+    final XmlPathMatcher matcher = this.matcher;
+    final int from = depth == 0 ? 0 : ends[depth - 1];
+    final int to = ends[depth];
+    final int stamp = nextStamp();
+    int size = to;
+    for (int i = from; i < to; ++i) {
+      final int state = states[i];
+      if (matcher.loops[state])
+        size = add(state, size, stamp);
+
+      for (final XmlPathMatcher.Step step : matcher.steps[state])
+        if (step.matches(name, attributes))
+          size = add(step.target, size, stamp);
+    }
+
+    if (++depth == ends.length)
+      ends = Arrays.copyOf(ends, depth * 2);
+
+    ends[depth] = size;
+    for (int i = to; i < size; ++i) {
+      final int state = states[i];
+      for (final int expression : matcher.accepts[state])
+        capture(expression);
+
+      for (final XmlPathMatcher.AttributeStep step : matcher.attributeSteps[state])
+        if (attributes != null)
+          for (final Map.Entry<QName,String> entry : attributes.entrySet())
+            if (step.name.matchesAttribute(entry.getKey()) && !match(step.expression, entry.getValue()))
+              return false;
+    }
+
+    return true;
+  }
+
+  private void capture(final int expression) {
+    if (captureCount == captures.length)
+      captures = Arrays.copyOf(captures, captureCount * 2);
+
+    // Matches of the same element are kept in the order of the expressions
+    int i = captureCount;
+    for (; i > 0 && captures[i - 2] == depth && captures[i - 3] > expression; i -= 3)
+      System.arraycopy(captures, i - 3, captures, i, 3);
+
+    captures[i] = expression;
+    captures[i + 1] = depth;
+    captures[i + 2] = text.length();
+    captureCount += 3;
+  }
+
+  @Override
+  public final boolean skipElement() {
+    return captureCount == 0 && ends[depth] == ends[depth - 1];
+  }
+
+  @Override
+  public final boolean characters(final BlockReader in, final int off, final int len) {
+    if (captureCount > 0)
+      in.unescape(off, len, text);
+
+    return true;
+  }
+
+  @Override
+  public final boolean cdata(final BlockReader in, final int off, final int len) {
+    if (captureCount > 0)
+      in.append(off, len, text);
+
+    return true;
+  }
+
+  @Override
+  public final boolean endElement(final QName name) throws IOException {
+    int i = captureCount;
+    while (i > 0 && captures[i - 2] == depth)
+      i -= 3;
+
+    final int count = captureCount;
+    captureCount = i;
+    --depth;
+    for (; i < count; i += 3)
+      if (!match(captures[i], text.substring(captures[i + 2])))
+        return false;
+
+    if (captureCount == 0)
+      text.setLength(0);
+
+    return true;
+  }
+
+  /**
+   * Callback method for matches of the expressions of the
+   * {@link XmlPathMatcher}. A matched attribute is reported after the start
+   * tag of its element, and a matched element is reported after its end tag.
+   * The matches of an element are reported in the order of the expressions.
+   *
+   * @param expression The index of the matched expression in the
+   *          {@link XmlPathMatcher}.
+   * @param value The value of the matched attribute, or the character data of
+   *          the matched element.
+   * @return Whether parsing should continue.
+   * @throws IOException If an I/O error has occurred.
+   */
+  public abstract boolean match(int expression, String value) throws IOException;
+
+  @Override
+  public void reset() {
+    super.reset();
+    depth = 0;
+    captureCount = 0;
+    text.setLength(0);
+    ends[0] = add(0, 0, nextStamp());
+  }
+}
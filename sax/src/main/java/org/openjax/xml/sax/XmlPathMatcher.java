@@ -0,0 +1,445 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.xml.namespace.QName;
+
+/**
+ * A compiled set of path expressions in a subset of XPath, which are matched
+ * against the elements and attributes of a document in a single streaming pass
+ * with an {@link XmlPathHandler}.
+ * <p>
+ * The supported subset is:
+ * <ul>
+ * <li>Absolute location paths of child ({@code /}) and descendant
+ * ({@code //}) steps, i.e. {@code /order/header/customerId} and
+ * {@code //customerId}.</li>
+ * <li>Name tests of the form {@code name}, {@code prefix:name},
+ * {@code prefix:*} and {@code *}.</li>
+ * <li>Attribute predicates of the form {@code [@name]} and
+ * {@code [@name='value']}, which can be repeated (i.e.
+ * {@code /order[@type='rush'][@id]}).</li>
+ * <li>A final attribute step of the form {@code @name} or {@code @*}, i.e.
+ * {@code /order/@id}.</li>
+ * </ul>
+ * <p>
+ * A name test without a prefix matches the local name of an element in any
+ * namespace, and the local name of an attribute without a prefix. A prefixed
+ * name test matches the namespace that is bound to the prefix in the namespace
+ * context provided to {@link #compile(Map,String...)}. Namespace declarations
+ * (i.e. {@code xmlns:p="..."}) are not matched as attributes.
+ * <p>
+ * The expressions are compiled into a single nondeterministic automaton over
+ * the element names, in which the steps of common prefixes of the expressions
+ * are shared. An {@link XmlPathMatcher} is immutable, and can be shared by
+ * the handlers of concurrent parses and reused across documents.
+ *
+ * @see XmlPathHandler
+ */
+public final class XmlPathMatcher {
+  /**
+   * A name test, with a {@code null} namespace for a name test without a
+   * prefix, and a {@code null} local part for a wildcard.
+   */
+  static final class Name {
+    private final String namespaceURI;
+    private final String localPart;
+
+    private Name(final String namespaceURI, final String localPart) {
+      this.namespaceURI = namespaceURI;
+      this.localPart = localPart;
+    }
+
+    boolean matchesElement(final QName name) {
+      return (localPart == null || localPart.equals(name.getLocalPart())) && (namespaceURI == null || namespaceURI.equals(name.getNamespaceURI()));
+    }
+
+    boolean matchesAttribute(final QName name) {
+      final String prefix = name.getPrefix();
+      if (prefix.length() == 0 ? "xmlns".equals(name.getLocalPart()) : "xmlns".equals(prefix))
+        return false;
+
+      if (localPart != null && !localPart.equals(name.getLocalPart()))
+        return false;
+
+      return namespaceURI == null ? prefix.length() == 0 : namespaceURI.equals(name.getNamespaceURI());
+    }
+
+    @Override
+    public String toString() {
+      final String localPart = this.localPart != null ? this.localPart : "*";
+      return namespaceURI != null ? "{" + namespaceURI + "}" + localPart : localPart;
+    }
+  }
+
+  /** A predicate of the form {@code [@name]} or {@code [@name='value']}. */
+  static final class Predicate {
+    private final Name name;
+    private final String value;
+
+    private Predicate(final Name name, final String value) {
+      this.name = name;
+      this.value = value;
+    }
+
+    boolean matches(final Map<QName,String> attributes) {
+      if (attributes != null)
+        for (final Map.Entry<QName,String> entry : attributes.entrySet())
+          if (name.matchesAttribute(entry.getKey()) && (value == null || value.equals(entry.getValue())))
+            return true;
+
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return "[@" + name + (value != null ? "='" + value + "'" : "") + "]";
+    }
+  }
+
+  /** A transition of the automaton on an element. */
+  static final class Step {
+    private final Name name;
+    private final Predicate[] predicates;
+    final int target;
+
+    private Step(final Name name, final Predicate[] predicates, final int target) {
+      this.name = name;
+      this.predicates = predicates;
+      this.target = target;
+    }
+
+    boolean matches(final QName name, final Map<QName,String> attributes) {
+      if (!this.name.matchesElement(name))
+        return false;
+
+      for (final Predicate predicate : predicates)
+        if (!predicate.matches(attributes))
+          return false;
+
+      return true;
+    }
+  }
+
+  /** A final attribute step of an expression. */
+  static final class AttributeStep {
+    final Name name;
+    final int expression;
+
+    private AttributeStep(final Name name, final int expression) {
+      this.name = name;
+      this.expression = expression;
+    }
+  }
+
+  private static final Step[] NO_STEPS = {};
+  private static final Predicate[] NO_PREDICATES = {};
+  private static final AttributeStep[] NO_ATTRIBUTE_STEPS = {};
+  private static final int[] NO_EXPRESSIONS = {};
+
+  /** A state of the automaton, while it is being compiled. */
+  private static final class State {
+    private final boolean loop;
+    private final Map<String,Integer> targets = new HashMap<>();
+    private final List<Step> steps = new ArrayList<>();
+    private final List<AttributeStep> attributeSteps = new ArrayList<>();
+    private final List<Integer> expressions = new ArrayList<>();
+    private int descendant = -1;
+
+    private State(final boolean loop) {
+      this.loop = loop;
+    }
+  }
+
+  /**
+   * Returns a new {@link XmlPathMatcher} of the specified expressions, which
+   * must not contain prefixed name tests.
+   *
+   * @param expressions The expressions.
+   * @return A new {@link XmlPathMatcher} of the specified expressions.
+   * @throws NullPointerException If the specified array, or any of its
+   *           members, is null.
+   * @throws IllegalArgumentException If any of the specified expressions is
+   *           not a valid expression of the supported subset.
+   */
+  public static XmlPathMatcher compile(final String ... expressions) {
+    return compile(Collections.emptyMap(), expressions);
+  }
+
+  /**
+   * Returns a new {@link XmlPathMatcher} of the specified expressions, of
+   * which the prefixes of name tests are bound to namespaces in the specified
+   * namespace context.
+   *
+   * @param namespaces The namespace context, as a map of prefixes to
+   *          namespaces.
+   * @param expressions The expressions.
+   * @return A new {@link XmlPathMatcher} of the specified expressions.
+   * @throws NullPointerException If the specified map or array, or any of the
+   *           members of the array, is null.
+   * @throws IllegalArgumentException If any of the specified expressions is
+   *           not a valid expression of the supported subset, or contains a
+   *           prefix that is not bound in the specified namespace context.
+   */
+  public static XmlPathMatcher compile(final Map<String,String> namespaces, final String ... expressions) {
+    Objects.requireNonNull(namespaces);
+    final List<State> states = new ArrayList<>();
+    states.add(new State(false));
+    for (int i = 0; i < expressions.length; ++i)
+      new Compiler(Objects.requireNonNull(expressions[i]), namespaces, states).compile(i);
+
+    return new XmlPathMatcher(expressions.clone(), states);
+  }
+
+  /** A recursive descent parser of a single expression. */
+  private static final class Compiler {
+    private final String expression;
+    private final Map<String,String> namespaces;
+    private final List<State> states;
+    private int index;
+
+    private Compiler(final String expression, final Map<String,String> namespaces, final List<State> states) {
+      this.expression = expression;
+      this.namespaces = namespaces;
+      this.states = states;
+    }
+
+    private IllegalArgumentException newIllegalArgumentException(final String message) {
+      return new IllegalArgumentException(message + " at index " + index + " of expression: " + expression);
+    }
+
+    private boolean consume(final char ch) {
+      if (index == expression.length() || expression.charAt(index) != ch)
+        return false;
+
+      ++index;
+      return true;
+    }
+
+    private void skipWhitespace() {
+      while (index < expression.length() && Character.isWhitespace(expression.charAt(index)))
+        ++index;
+    }
+
+    private void compile(final int expression) {
+      if (this.expression.length() == 0 || this.expression.charAt(0) != '/')
+        throw newIllegalArgumentException("Expected absolute path");
+
+      int state = 0;
+      while (consume('/')) {
+        final boolean descendant = consume('/');
+        final int source = descendant ? descendant(state) : state;
+        if (consume('@')) {
+          final Name name = name();
+          if (index != this.expression.length())
+            throw newIllegalArgumentException("Expected end of expression after attribute step");
+
+          if (source == 0)
+            throw newIllegalArgumentException("Expected element step before attribute step");
+
+          states.get(source).attributeSteps.add(new AttributeStep(name, expression));
+          return;
+        }
+
+        final Name name = name();
+        Predicate[] predicates = NO_PREDICATES;
+        while (consume('[')) {
+          predicates = Arrays.copyOf(predicates, predicates.length + 1);
+          predicates[predicates.length - 1] = predicate();
+        }
+
+        state = step(source, name, predicates);
+      }
+
+      if (index != this.expression.length())
+        throw newIllegalArgumentException("Expected '/'");
+
+      states.get(state).expressions.add(expression);
+    }
+
+    private int descendant(final int state) {
+      final State source = states.get(state);
+      if (source.descendant == -1) {
+        source.descendant = states.size();
+        states.add(new State(true));
+      }
+
+      return source.descendant;
+    }
+
+    private int step(final int state, final Name name, final Predicate[] predicates) {
+      final State source = states.get(state);
+      final StringBuilder key = new StringBuilder(name.toString());
+      for (final Predicate predicate : predicates)
+        key.append(predicate);
+
+      final Integer existing = source.targets.get(key.toString());
+      if (existing != null)
+        return existing;
+
+      final int target = states.size();
+      states.add(new State(false));
+      source.targets.put(key.toString(), target);
+      source.steps.add(new Step(name, predicates, target));
+      return target;
+    }
+
+    private Predicate predicate() {
+      skipWhitespace();
+      if (!consume('@'))
+        throw newIllegalArgumentException("Unsupported predicate");
+
+      final Name name = name();
+      skipWhitespace();
+      String value = null;
+      if (consume('=')) {
+        skipWhitespace();
+        final char quote = index < expression.length() ? expression.charAt(index) : 0;
+        if (quote != '\'' && quote != '"')
+          throw newIllegalArgumentException("Expected quoted literal");
+
+        final int end = expression.indexOf(quote, ++index);
+        if (end == -1)
+          throw newIllegalArgumentException("Expected closing quote of literal");
+
+        value = expression.substring(index, end);
+        index = end + 1;
+        skipWhitespace();
+      }
+
+      if (!consume(']'))
+        throw newIllegalArgumentException("Expected ']'");
+
+      return new Predicate(name, value);
+    }
+
+    private String ncName() {
+      final int start = index;
+      for (char ch; index < expression.length() && (Character.isLetterOrDigit(ch = expression.charAt(index)) || ch == '_' || ch == '-' || ch == '.' || ch > 0x7F); ++index);
+      return index == start ? null : expression.substring(start, index);
+    }
+
+    private Name name() {
+      if (consume('*'))
+        return new Name(null, null);
+
+      final String name = ncName();
+      if (name == null)
+        throw newIllegalArgumentException("Expected name");
+
+      if (!consume(':'))
+        return new Name(null, name);
+
+      final String namespaceURI = namespaces.get(name);
+      if (namespaceURI == null)
+        throw newIllegalArgumentException("Unbound prefix \"" + name + "\"");
+
+      if (consume('*'))
+        return new Name(namespaceURI, null);
+
+      final String localPart = ncName();
+      if (localPart == null)
+        throw newIllegalArgumentException("Expected local name");
+
+      return new Name(namespaceURI, localPart);
+    }
+  }
+
+  private final String[] expressions;
+
+  /** The transitions on an element, by state. */
+  final Step[][] steps;
+  /** The final attribute steps, by state. */
+  final AttributeStep[][] attributeSteps;
+  /** The indexes of the expressions that are matched, by state. */
+  final int[][] accepts;
+  /**
+   * The descendant state that is entered with each state, or {@code -1},
+   * by state.
+   */
+  final int[] descendants;
+  /** Whether the state remains active for all descendant elements, by state. */
+  final boolean[] loops;
+
+  private XmlPathMatcher(final String[] expressions, final List<State> states) {
+    this.expressions = expressions;
+    final int size = states.size();
+    this.steps = new Step[size][];
+    this.attributeSteps = new AttributeStep[size][];
+    this.accepts = new int[size][];
+    this.descendants = new int[size];
+    this.loops = new boolean[size];
+    for (int i = 0; i < size; ++i) {
+      final State state = states.get(i);
+      steps[i] = state.steps.isEmpty() ? NO_STEPS : state.steps.toArray(NO_STEPS);
+      attributeSteps[i] = state.attributeSteps.isEmpty() ? NO_ATTRIBUTE_STEPS : state.attributeSteps.toArray(NO_ATTRIBUTE_STEPS);
+      accepts[i] = NO_EXPRESSIONS;
+      if (!state.expressions.isEmpty()) {
+        accepts[i] = new int[state.expressions.size()];
+        for (int j = 0; j < accepts[i].length; ++j)
+          accepts[i][j] = state.expressions.get(j);
+      }
+
+      descendants[i] = state.descendant;
+      loops[i] = state.loop;
+    }
+  }
+
+  /**
+   * Returns the number of states of the automaton.
+   *
+   * @return The number of states of the automaton.
+   */
+  int getStateCount() {
+    return steps.length;
+  }
+
+  /**
+   * Returns the number of expressions of this {@link XmlPathMatcher}.
+   *
+   * @return The number of expressions of this {@link XmlPathMatcher}.
+   */
+  public int size() {
+    return expressions.length;
+  }
+
+  /**
+   * Returns the expression at the specified index, in the order in which the
+   * expressions were provided to {@link #compile(Map,String...)}.
+   *
+   * @param index The index of the expression.
+   * @return The expression at the specified index.
+   * @throws ArrayIndexOutOfBoundsException If the specified index is out of
+   *           range.
+   */
+  public String getExpression(final int index) {
+    return expressions[index];
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(expressions);
+  }
+}
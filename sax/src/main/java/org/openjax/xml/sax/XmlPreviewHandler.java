@@ -43,6 +43,17 @@ import org.xml.sax.InputSource;
  * This handler dereferences external references to imported or included
  * documents and schemas, in order to comprise a complete catalog.
  * <p>
+ * The handler stops the parsing of a document as soon as the document cannot
+ * contain any further references: for an XML Schema Document, at the first
+ * top-level element after the {@code <xs:include/>}, {@code <xs:import/>},
+ * {@code <xs:redefine/>}, {@code <xs:override/>} and {@code <xs:annotation/>}
+ * elements. An XML Document is parsed in full, since its schema locations may
+ * be declared by nested elements, unless the handler is created to stop at the
+ * root: then, an XML Document of which the root element declares an
+ * {@code xsi:schemaLocation} or {@code xsi:noNamespaceSchemaLocation} is
+ * parsed only up to the start tag of the root element, and the schema
+ * locations declared by nested elements are not collected.
+ * <p>
  * One {@link XmlPreviewHandler} instance is created for <b>all</b> XML
  * documents.
  * <p>
@@ -94,6 +105,11 @@ class XmlPreviewHandler extends FastSAXHandler {
   private final Map<String,URL> absoluteIncludes = new LinkedHashMap<>();
   private boolean isLocal = true;
   private String targetNamespace;
+  private int depth;
+  /** Whether an XML Document is parsed only up to the root element, if it declares a schema location. */
+  private final boolean stopAtRoot;
+  /** Whether the root element of the current document declares a schema location. */
+  private boolean rootSchemaLocation;
 
   /**
    * Creates a new {@link XmlPreviewHandler} to be initialized with the
@@ -106,6 +122,25 @@ class XmlPreviewHandler extends FastSAXHandler {
    *           character stream.
    */
   XmlPreviewHandler(final XmlCatalog catalog) {
+    this(catalog, false);
+  }
+
+  /**
+   * Creates a new {@link XmlPreviewHandler} to be initialized with the
+   * specified {@link XmlCatalog}.
+   *
+   * @param catalog The {@link XmlCatalog}.
+   * @param stopAtRoot Whether an XML Document of which the root element
+   *          declares a schema location is parsed only up to the start tag of
+   *          the root element, whereby the schema locations declared by nested
+   *          elements are not collected.
+   * @throws NullPointerException If the specified {@link XmlCatalog} is null.
+   * @throws IllegalArgumentException If the {@link InputSource} in the
+   *           specified {@link XmlCatalog} does not have a byte stream or
+   *           character stream.
+   */
+  XmlPreviewHandler(final XmlCatalog catalog, final boolean stopAtRoot) {
+    this.stopAtRoot = stopAtRoot;
     init(catalog);
   }
 
@@ -137,6 +172,17 @@ class XmlPreviewHandler extends FastSAXHandler {
     init(catalog);
   }
 
+  /**
+   * Binds this handler to the character stream of the specified included
+   * document, which is parsed into the current {@link XmlCatalog} without
+   * resetting the local variables.
+   *
+   * @param inputSource The {@link CachedInputSource} of the included document.
+   */
+  void include(final CachedInputSource inputSource) {
+    super.reader = inputSource.getCharacterStream();
+  }
+
   /**
    * Returns the system identifier (URI reference).
    *
@@ -308,8 +354,16 @@ class XmlPreviewHandler extends FastSAXHandler {
     includes().put(schemaLocation, url);
   }
 
+  @Override
+  public boolean startDocument() {
+    depth = 0;
+    rootSchemaLocation = false;
+    return true;
+  }
+
   @Override
   public boolean startElement(final QName name, final Map<QName,String> attributes) throws IOException {
+    ++depth;
     if (logger.isTraceEnabled()) {
       final String attrs = toString(attributes);
       logger.trace("<" + name.getLocalPart() + " xmlns=\"" + name.getNamespaceURI() + "\"" + (attrs != null ? " " + attrs + ">" : ">"));
@@ -321,6 +375,10 @@ class XmlPreviewHandler extends FastSAXHandler {
     }
 
     if (isSchema) {
+      // The content of <xs:annotation/>, <xs:redefine/> and <xs:override/>
+      if (depth > 2)
+        return true;
+
       if ("schema".equals(name.getLocalPart())) {
         for (final Map.Entry<QName,String> entry : attributes.entrySet()) {
           final String attributeName = entry.getKey().getLocalPart();
@@ -360,16 +418,18 @@ class XmlPreviewHandler extends FastSAXHandler {
           }
         }
       }
-      else if (!"schema".equals(name.getLocalPart()) && !"annotation".equals(name.getLocalPart()) && !"redefine".equals(name.getLocalPart())) {
+      else if (!"annotation".equals(name.getLocalPart()) && !"redefine".equals(name.getLocalPart()) && !"override".equals(name.getLocalPart())) {
         return false;
       }
     }
     else {
-      if ("include".equals(name.getLocalPart())) {
-        for (final Map.Entry<QName,String> entry : attributes.entrySet()) {
-          final String namespaceURI = entry.getKey().getNamespaceURI();
-          if ("http://www.w3.org/2001/XInclude".equals(namespaceURI) && "href".equals(entry.getKey().getLocalPart())) {
-            addInclude(entry.getValue());
+      // The href attribute is unprefixed, so the XInclude namespace is that of the element
+      if ("include".equals(name.getLocalPart()) && "http://www.w3.org/2001/XInclude".equals(name.getNamespaceURI())) {
+        if (attributes != null) {
+          for (final Map.Entry<QName,String> entry : attributes.entrySet()) {
+            if ("href".equals(entry.getKey().getLocalPart())) {
+              addInclude(entry.getValue());
+            }
           }
         }
       }
@@ -380,8 +440,10 @@ class XmlPreviewHandler extends FastSAXHandler {
             if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceURI)) {
               if ("noNamespaceSchemaLocation".equals(entry.getKey().getLocalPart())) {
                 addInclude(entry.getValue());
+                rootSchemaLocation |= depth == 1;
               }
               else if ("schemaLocation".equals(entry.getKey().getLocalPart())) {
+                rootSchemaLocation |= depth == 1;
                 final String value = entry.getValue();
                 final StringTokenizer tokenizer = new StringTokenizer(value);
                 while (tokenizer.hasMoreTokens()) {
@@ -402,11 +464,21 @@ class XmlPreviewHandler extends FastSAXHandler {
 
       if (!XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(name.getNamespaceURI()) && name.getNamespaceURI().length() != 0)
         visitedURIs.add(name.getNamespaceURI());
+
+      // The schema locations declared by the root element are all that is needed
+      if (depth == 1 && rootSchemaLocation && stopAtRoot)
+        return false;
     }
 
     return true;
   }
 
+  @Override
+  public boolean endElement(final QName name) throws IOException {
+    --depth;
+    return true;
+  }
+
   /**
    * Resets the local variables in this handler, so it can be used in another
    * parsing invocation.
@@ -418,6 +490,8 @@ class XmlPreviewHandler extends FastSAXHandler {
     this.rootElement = null;
     this.targetNamespace = null;
     this.isLocal = true;
+    this.depth = 0;
+    this.rootSchemaLocation = false;
     if (includes != null)
       includes.clear();
 
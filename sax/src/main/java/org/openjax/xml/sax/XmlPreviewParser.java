@@ -16,20 +16,62 @@
 
 package org.openjax.xml.sax;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.libj.net.URLs;
+import org.libj.util.function.Throwing;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXParseException;
 
 /**
  * Parser for XML documents that produces {@link XmlPreview} objects.
+ * <p>
+ * The imported and included documents of a document are fetched in parallel
+ * on a shared pool of daemon threads, of which the size is specified with the
+ * {@code org.openjax.xml.sax.previewThreads} system property (default:
+ * {@code 8}), whereby {@code 0} disables parallel fetching, and a negative
+ * value is rejected when this class is initialized. Only a prefix of up to
+ * 64 KiB of each document is fetched ahead, and the rest is read from the open
+ * stream of the document as it is consumed. The fetched documents are scanned
+ * in the order of their references, so that the resulting {@link XmlCatalog}
+ * does not depend on the order in which the documents are fetched.
  */
 public final class XmlPreviewParser {
+  private static final int threads = Integer.getInteger("org.openjax.xml.sax.previewThreads", 8);
+
+  static {
+    if (threads < 0)
+      throw new IllegalArgumentException("org.openjax.xml.sax.previewThreads (" + threads + ") must be non-negative");
+  }
+
+  /** The maximum number of bytes of a document that are fetched ahead. */
+  private static final int PREFETCH_SIZE = 64 * 1024;
+
+  private static final class Fetcher {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      final Thread thread = new Thread(r, "XmlPreviewParser-fetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    private Fetcher() {
+    }
+  }
+
   /**
    * Parses an XML document at the specified {@link URL}.
    *
@@ -64,12 +106,46 @@ public final class XmlPreviewParser {
    * @throws NullPointerException If the specified {@link InputSource} is null.
    */
   static XmlPreview parse(final URL url, final CachedInputSource inputSource) throws IOException, SAXParseException {
-    final XmlPreviewHandler previewHandler = new XmlPreviewHandler(new XmlCatalog(url, inputSource));
-    FastSAXParser.parse(inputSource.getCharacterStream(), previewHandler);
+    return parse(url, inputSource, false);
+  }
+
+  /**
+   * Parses an XML document at the specified {@link InputSource}, optionally
+   * stopping at the root element of an XML Document of which the root element
+   * declares a schema location, whereby the schema locations declared by
+   * nested elements are not collected.
+   *
+   * @param url The {@link URL}.
+   * @param inputSource The {@link InputSource}.
+   * @param stopAtRoot Whether an XML Document of which the root element
+   *          declares a schema location is parsed only up to the start tag of
+   *          the root element.
+   * @return A {@link XmlPreview} containing the {@link XmlCatalog} and manifest
+   *         information for the XML document represented by the specified
+   *         {@link InputSource}.
+   * @throws IOException If the stream does not support
+   *           {@link Reader#mark(int)}, or if some other I/O error has
+   *           occurred.
+   * @throws SAXParseException If provided XML document cannot be parsed.
+   * @throws NullPointerException If the specified {@link InputSource} is null.
+   * @see XmlPreviewHandler
+   */
+  static XmlPreview parse(final URL url, final CachedInputSource inputSource, final boolean stopAtRoot) throws IOException, SAXParseException {
+    final XmlMetrics metrics = Metrics.enabled();
+    final Object context = metrics != null ? metrics.beginSchemaResolution() : null;
+    final long start = metrics != null ? System.nanoTime() : 0;
+    final XmlPreviewHandler previewHandler = new XmlPreviewHandler(new XmlCatalog(url, inputSource), stopAtRoot);
+    try {
+      FastSAXParser.parse(inputSource.getCharacterStream(), previewHandler);
 
-    final XmlPreview preview = previewHandler.toXmlPreview();
-    process(previewHandler, url.toString(), true);
-    return preview;
+      final XmlPreview preview = previewHandler.toXmlPreview();
+      process(previewHandler, url.toString(), true);
+      return preview;
+    }
+    finally {
+      if (metrics != null)
+        metrics.schemasResolved(context, url.toString(), 1 + previewHandler.getVisitedURLs().size(), System.nanoTime() - start);
+    }
   }
 
   private static boolean process(final XmlPreviewHandler previewHandler, final String uri, final boolean isImport) throws IOException, SAXParseException {
@@ -95,40 +171,196 @@ public final class XmlPreviewParser {
     return true;
   }
 
-  private static void traverse(final XmlPreviewHandler previewHandler, final Map<String,URL> schemaLocations, final boolean isImport) throws IOException, SAXParseException {
-    for (final Map.Entry<String,URL> entry : schemaLocations.entrySet()) {
-      final URL location = entry.getValue();
-      if (!previewHandler.getVisitedURLs().add(location))
-        continue;
-
-      final String uri = entry.getKey();
-      final XmlCatalog catalog = previewHandler.getCatalog();
-      if (catalog.getEntity(uri) == null) {
-        try {
-          final CachedInputSource inputSource = new CachedInputSource(null, location.toString(), previewHandler.getSystemId(), location.openStream());
+  /**
+   * A document of which a prefix of up to {@link #PREFETCH_SIZE} bytes is
+   * fetched ahead of its traversal. The stream of the document is kept open
+   * after the prefix, and the rest of the document is read from it only as it
+   * is consumed, whereby a document of which only the preview is needed is
+   * not fetched in full.
+   */
+  private static final class Prefetch implements Callable<Prefetch> {
+    private final URL location;
+    private Future<Prefetch> future;
+    private byte[] prefix;
+    private int length;
+    private InputStream in;
+    private boolean discarded;
 
-          final XmlEntity entity;
-          if (isImport) {
-            final XmlCatalog nextCatalog = new XmlCatalog(location, inputSource);
-            previewHandler.reset(nextCatalog);
-            entity = nextCatalog;
-          }
-          else {
-            entity = new XmlEntity(location, inputSource);
+    private Prefetch(final URL location) {
+      this.location = location;
+    }
+
+    @Override
+    public Prefetch call() throws IOException {
+      final InputStream in = location.openStream();
+      boolean retained = false;
+      try {
+        final byte[] prefix = new byte[PREFETCH_SIZE];
+        int length = 0;
+        for (int n; length < prefix.length && (n = in.read(prefix, length, prefix.length - length)) != -1;)
+          length += n;
+
+        synchronized (this) {
+          if (!discarded) {
+            this.prefix = prefix;
+            this.length = length;
+            // The stream is only retained if the document may extend beyond the prefix
+            if (length == prefix.length) {
+              this.in = in;
+              retained = true;
+            }
           }
+        }
+
+        return this;
+      }
+      finally {
+        if (!retained)
+          in.close();
+      }
+    }
+
+    /**
+     * Returns an {@link InputStream} of the document, which waits for the
+     * prefix to be fetched.
+     *
+     * @return An {@link InputStream} of the document.
+     * @throws IOException If an I/O error has occurred.
+     */
+    private InputStream open() throws IOException {
+      try {
+        future.get();
+      }
+      catch (final ExecutionException e) {
+        // Rethrow the exception of the fetch as is, for Validator.isRemoteAccessException(IOException)
+        Throwing.rethrow(e.getCause());
+        throw new Error("Will never get here");
+      }
+      catch (final InterruptedException e) {
+        discard();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(e.getMessage());
+      }
+
+      final InputStream head = new ByteArrayInputStream(prefix, 0, length);
+      return in == null ? head : new SequenceInputStream(head, in);
+    }
+
+    /**
+     * Discards this {@link Prefetch}, which cancels the fetch, and closes the
+     * stream of the document if it is retained.
+     */
+    private void discard() {
+      future.cancel(true);
+      final InputStream in;
+      synchronized (this) {
+        discarded = true;
+        in = this.in;
+        this.in = null;
+      }
 
-          FastSAXParser.parse(inputSource.getCharacterStream(), previewHandler);
-          catalog.putEntity(uri, entity);
+      if (in != null) {
+        try {
+          in.close();
         }
         catch (final IOException e) {
-          if (!Validator.isRemoteAccessException(e) || URLs.isLocal(location))
-            throw e;
+          // The document is not needed
         }
+      }
+    }
+  }
+
+  /**
+   * Fetches the documents at the locations of the specified map that have not
+   * yet been visited or cataloged in parallel, if there are more than one. An
+   * import of which the namespace is no longer pending in
+   * {@link XmlPreviewHandler#getVisitedURIs()} is not fetched, since the
+   * traversal may stop before reaching it.
+   *
+   * @param previewHandler The {@link XmlPreviewHandler}.
+   * @param schemaLocations The map of URI-to-location entries.
+   * @param isImport Whether the entries are imports.
+   * @return A map of location-to-{@link Prefetch} entries of the fetched
+   *         documents, or {@code null} if the documents are not to be fetched
+   *         in parallel.
+   * @throws IOException If an I/O error has occurred.
+   */
+  private static Map<URL,Prefetch> prefetch(final XmlPreviewHandler previewHandler, final Map<String,URL> schemaLocations, final boolean isImport) throws IOException {
+    if (threads == 0 || schemaLocations.size() < 2)
+      return null;
 
-        if (!process(previewHandler, uri, isImport))
-          break;
+    final XmlCatalog catalog = previewHandler.getCatalog();
+    final LinkedHashSet<URL> locations = new LinkedHashSet<>();
+    for (final Map.Entry<String,URL> entry : schemaLocations.entrySet())
+      if ((!isImport || previewHandler.getVisitedURIs().contains(entry.getKey())) && !previewHandler.getVisitedURLs().contains(entry.getValue()) && catalog.getEntity(entry.getKey()) == null)
+        locations.add(entry.getValue());
+
+    if (locations.size() < 2)
+      return null;
+
+    final HashMap<URL,Prefetch> prefetches = new HashMap<>();
+    for (final URL location : locations) {
+      final Prefetch prefetch = new Prefetch(location);
+      prefetch.future = Fetcher.executor.submit(prefetch);
+      prefetches.put(location, prefetch);
+    }
+
+    return prefetches;
+  }
+
+  private static CachedInputSource open(final XmlPreviewHandler previewHandler, final URL location, final Map<URL,Prefetch> prefetches) throws IOException {
+    final Prefetch prefetch = prefetches == null ? null : prefetches.remove(location);
+    return new CachedInputSource(null, location.toString(), previewHandler.getSystemId(), prefetch == null ? location.openStream() : prefetch.open());
+  }
+
+  private static void traverse(final XmlPreviewHandler previewHandler, final Map<String,URL> schemaLocations, final boolean isImport) throws IOException, SAXParseException {
+    final Map<URL,Prefetch> prefetches = prefetch(previewHandler, schemaLocations, isImport);
+    try {
+      for (final Map.Entry<String,URL> entry : schemaLocations.entrySet()) {
+        final URL location = entry.getValue();
+        if (!previewHandler.getVisitedURLs().add(location))
+          continue;
+
+        final String uri = entry.getKey();
+        final XmlCatalog catalog = previewHandler.getCatalog();
+        final boolean hit = catalog.getEntity(uri) != null;
+        final XmlMetrics metrics = Metrics.enabled();
+        if (metrics != null)
+          metrics.catalogLookup(uri, hit);
+
+        if (!hit) {
+          try {
+            final CachedInputSource inputSource = open(previewHandler, location, prefetches);
+
+            final XmlEntity entity;
+            if (isImport) {
+              final XmlCatalog nextCatalog = new XmlCatalog(location, inputSource);
+              previewHandler.reset(nextCatalog);
+              entity = nextCatalog;
+            }
+            else {
+              previewHandler.include(inputSource);
+              entity = new XmlEntity(location, inputSource);
+            }
+
+            FastSAXParser.parse(inputSource.getCharacterStream(), previewHandler);
+            catalog.putEntity(uri, entity);
+          }
+          catch (final IOException e) {
+            if (!Validator.isRemoteAccessException(e) || URLs.isLocal(location))
+              throw e;
+          }
+
+          if (!process(previewHandler, uri, isImport))
+            break;
+        }
       }
     }
+    finally {
+      // The documents that were not reached are not needed
+      if (prefetches != null)
+        prefetches.values().forEach(Prefetch::discard);
+    }
   }
 
   private XmlPreviewParser() {
@@ -0,0 +1,181 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class FastSAXHandlerTest {
+  private static final String xml = "<a xmlns=\"urn:0\" xmlns:p=\"urn:1\"><p:b p:x=\"1\"><c xmlns=\"urn:2\" xmlns:p=\"urn:3\"><p:d/></c><p:e/></p:b><f/></a>";
+  private static final List<String> expected = Arrays.asList("<{urn:0}a {urn:0}xmlns=urn:0 {}xmlns:p=urn:1", "<{urn:1}p:b {urn:1}p:x=1", "<{urn:2}c {urn:2}xmlns=urn:2 {}xmlns:p=urn:3", "<{urn:3}p:d", ">{urn:3}p:d", ">{urn:2}c", "<{urn:1}p:e", ">{urn:1}p:e", ">{urn:1}p:b", "<{urn:0}f", ">{urn:0}f", ">{urn:0}a");
+
+  private static class TestHandler extends FastSAXHandler {
+    private final List<String> events = new ArrayList<>();
+
+    private TestHandler() {
+    }
+
+    private static String toString(final QName name) {
+      return "{" + name.getNamespaceURI() + "}" + (name.getPrefix().length() > 0 ? name.getPrefix() + ":" : "") + name.getLocalPart();
+    }
+
+    @Override
+    public boolean startElement(final QName name, final Map<QName,String> attributes) {
+      final StringBuilder builder = new StringBuilder("<").append(toString(name));
+      if (attributes != null) {
+        final TreeMap<String,String> sorted = new TreeMap<>();
+        for (final Map.Entry<QName,String> entry : attributes.entrySet())
+          sorted.put(toString(entry.getKey()), entry.getValue());
+
+        for (final Map.Entry<String,String> entry : sorted.entrySet())
+          builder.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+      }
+
+      events.add(builder.toString());
+      return true;
+    }
+
+    @Override
+    public boolean endElement(final QName name) {
+      events.add(">" + toString(name));
+      return true;
+    }
+  }
+
+  @Test
+  public void testBlockReader() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler();
+    FastSAXParser.parse(new CharBlockReader(new StringReader(xml), 5), handler);
+    assertEquals(expected, handler.events);
+
+    handler.events.clear();
+    handler.reset();
+    FastSAXParser.parse(xml.getBytes(), handler);
+    assertEquals(expected, handler.events);
+  }
+
+  @Test
+  public void testUnescape() throws IOException, SAXParseException {
+    final String xml = "<a x=\"a&amp;b&#x20AC;&#65;&unknown;\" xmlns:p=\"urn:&amp;\"><p:b y=\"&lt;&gt;\"></p:b></a>";
+    final List<String> expected = Arrays.asList("<{}a {}x=a&b\u20acA&unknown; {}xmlns:p=urn:&", "<{urn:&}p:b {}y=<>", ">{urn:&}p:b", ">{}a");
+    final TestHandler handler = new TestHandler();
+    FastSAXParser.parse(xml.getBytes(), handler);
+    assertEquals(expected, handler.events);
+
+    handler.events.clear();
+    final StringReader reader = new StringReader(xml);
+    handler.reset(reader);
+    FastSAXParser.parse(reader, handler);
+    assertEquals(expected, handler.events);
+
+    // A value that exceeds the initial buffer is unescaped after the buffer is resized
+    final StringBuilder escaped = new StringBuilder();
+    final StringBuilder unescaped = new StringBuilder();
+    for (int i = 0; i < 40; ++i) {
+      escaped.append("&lt;").append(i);
+      unescaped.append('<').append(i);
+    }
+
+    handler.events.clear();
+    final StringReader longReader = new StringReader("<a x=\"" + escaped + "\" y=\"&amp;\"/>");
+    handler.reset(longReader);
+    FastSAXParser.parse(longReader, handler);
+    assertEquals(Arrays.asList("<{}a {}x=" + unescaped + " {}y=&", ">{}a"), handler.events);
+  }
+
+  @Test
+  public void testSkipElement() throws IOException, SAXParseException {
+    final String xml = "<a><skip x=\"/>\"><skip><b/></skip><!-- </skip> --><![CDATA[</skip>]]><?pi </skip>?><c/></skip><d/><skip/></a>";
+    final List<String> expected = Arrays.asList("<{}a", "<{}skip {}x=/>", ">{}skip", "<{}d", ">{}d", "<{}skip", ">{}skip", ">{}a");
+    final TestHandler handler = new TestHandler() {
+      private boolean skip;
+
+      @Override
+      public boolean startElement(final QName name, final Map<QName,String> attributes) {
+        skip = "skip".equals(name.getLocalPart());
+        return super.startElement(name, attributes);
+      }
+
+      @Override
+      public boolean skipElement() {
+        return skip;
+      }
+    };
+
+    for (final int blockSize : new int[] {1, 7, 8192}) {
+      handler.events.clear();
+      FastSAXParser.parse(new CharBlockReader(new StringReader(xml), blockSize), handler);
+      assertEquals(expected, handler.events);
+    }
+  }
+
+  @Test
+  public void testPool() throws IOException, SAXParseException {
+    final FastSAXHandlerPool<TestHandler> pool = new FastSAXHandlerPool<>(TestHandler::new, 1);
+    final TestHandler outer = pool.acquire(null);
+    final TestHandler inner = pool.acquire(null);
+    assertNotSame(outer, inner);
+    final TestHandler handler = new TestHandler() {
+      @Override
+      public boolean startElement(final QName name, final Map<QName,String> attributes) {
+        // Parse another document on the same thread from a callback
+        try {
+          if ("f".equals(name.getLocalPart()))
+            FastSAXParser.parse(new ByteArrayInputStream(xml.getBytes()), inner);
+        }
+        catch (final IOException | SAXParseException e) {
+          throw new AssertionError(e);
+        }
+
+        return outer.startElement(name, attributes);
+      }
+
+      @Override
+      public boolean endElement(final QName name) {
+        return outer.endElement(name);
+      }
+    };
+
+    FastSAXParser.parse(new ByteArrayInputStream(xml.getBytes()), handler);
+    assertEquals(expected, outer.events);
+    assertEquals(expected, inner.events);
+
+    assertTrue(pool.release(outer));
+    assertFalse(pool.release(inner));
+    assertEquals(1, pool.size());
+
+    final TestHandler reused = pool.acquire(null);
+    assertSame(outer, reused);
+    assertEquals(0, pool.size());
+    reused.events.clear();
+    FastSAXParser.parse(new ByteArrayInputStream(xml.getBytes()), reused);
+    assertEquals(expected, reused.events);
+  }
+}
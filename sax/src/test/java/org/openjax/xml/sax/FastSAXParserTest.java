@@ -18,10 +18,17 @@ package org.openjax.xml.sax;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -29,6 +36,7 @@ import java.util.List;
 
 import org.junit.Test;
 import org.libj.io.ReplayReader;
+import org.libj.io.Streams;
 import org.xml.sax.SAXParseException;
 
 public class FastSAXParserTest {
@@ -160,6 +168,43 @@ public class FastSAXParserTest {
     try (final Reader in = new ReplayReader(new InputStreamReader(url.openStream()))) {
       FastSAXParser.parse(in, new FasterTestHandler(iterator, in));
     }
+
+    assertFalse(iterator.hasNext());
+    for (final int blockSize : new int[] {1, 7, 8192}) {
+      final Iterator<Event> blockIterator = events.iterator();
+      try (final BlockReader in = new CharBlockReader(new InputStreamReader(url.openStream()), blockSize)) {
+        FastSAXParser.parse(in, new FasterTestHandler(blockIterator, in));
+      }
+
+      assertFalse(blockIterator.hasNext());
+
+      final Iterator<Event> utf8Iterator = events.iterator();
+      try (final BlockReader in = new Utf8BlockReader(url.openStream(), blockSize)) {
+        FastSAXParser.parse(in, new FasterTestHandler(utf8Iterator, in));
+      }
+
+      assertFalse(utf8Iterator.hasNext());
+    }
+
+    final Iterator<Event> bytesIterator = events.iterator();
+    try (final InputStream in = url.openStream()) {
+      final BlockReader reader = new Utf8BlockReader(Streams.readBytes(in));
+      FastSAXParser.parse(reader, new FasterTestHandler(bytesIterator, reader));
+    }
+
+    assertFalse(bytesIterator.hasNext());
+
+    for (final int windowSize : new int[] {7, 1 << 20}) {
+      final Iterator<Event> mappedIterator = events.iterator();
+      try (final BlockReader in = new MappedBlockReader(Paths.get(url.toURI()), windowSize)) {
+        FastSAXParser.parse(in, new FasterTestHandler(mappedIterator, in));
+      }
+      catch (final URISyntaxException e) {
+        throw new IllegalStateException(e);
+      }
+
+      assertFalse(mappedIterator.hasNext());
+    }
   }
 
   @Test
@@ -356,4 +401,187 @@ public class FastSAXParserTest {
     add(events, Type.DOEN);
     test(events, ClassLoader.getSystemClassLoader().getResource("doctype.xml"));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testUtf8() throws IOException, SAXParseException {
+    final byte[] bytes = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><\u00e4:r\u00f6\u00f6t xmlns:\u00e4=\"urn:\u00e4\" v\u00e4l='\u20ac\ud83d\ude00'>\u00fc<x/></\u00e4:r\u00f6\u00f6t>".getBytes(StandardCharsets.UTF_8);
+    final List<String> names = new ArrayList<>();
+    final FasterSAXHandler handler = new FasterSAXHandler() {
+      @Override
+      public boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+        names.add(in.toString(off, prefixLen + localPartLen));
+        return true;
+      }
+
+      @Override
+      public boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) {
+        names.add(in.toString(off, prefixLen + localPartLen) + "=" + in.toString(off + prefixLen + localPartLen + skip, valueLen));
+        return true;
+      }
+    };
+
+    FastSAXParser.parse(bytes, handler);
+    assertEquals(Arrays.asList("version=1.0", "encoding=UTF-8", "\u00e4:r\u00f6\u00f6t", "xmlns:\u00e4=urn:\u00e4", "v\u00e4l=\u20ac\ud83d\ude00", "x"), names);
+
+    names.clear();
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes).flip();
+    FastSAXParser.parse(buffer, handler);
+    assertEquals(Arrays.asList("version=1.0", "encoding=UTF-8", "\u00e4:r\u00f6\u00f6t", "xmlns:\u00e4=urn:\u00e4", "v\u00e4l=\u20ac\ud83d\ude00", "x"), names);
+  }
+
+  @Test
+  public void testCharacters() throws IOException, SAXParseException {
+    final String xml = "<a>x &lt;&#169;&#x20AC;&amp;amp; \u00e4\ud83d\ude00 &bogus; y<![CDATA[<&amp;>]]><b/>z</a>";
+    final List<String> expected = Arrays.asList("x <\u00a9\u20ac&amp; \u00e4\ud83d\ude00 &bogus; y", "<&amp;>", "z");
+    final List<String> texts = new ArrayList<>();
+    final StringBuilder builder = new StringBuilder();
+    final FasterSAXHandler handler = new FasterSAXHandler() {
+      @Override
+      public boolean characters(final BlockReader in, final int off, final int len) {
+        in.unescape(off, len, builder);
+        return true;
+      }
+
+      @Override
+      public boolean cdata(final BlockReader in, final int off, final int len) {
+        endElement();
+        texts.add(in.toString(off, len));
+        return true;
+      }
+
+      @Override
+      public boolean startElement() {
+        return endElement();
+      }
+
+      @Override
+      public boolean endElement() {
+        if (builder.length() > 0)
+          texts.add(builder.toString());
+
+        builder.setLength(0);
+        return true;
+      }
+    };
+
+    for (final int blockSize : new int[] {1, 7, 8192}) {
+      texts.clear();
+      FastSAXParser.parse(new CharBlockReader(new StringReader(xml), blockSize), handler);
+      assertEquals(expected, texts);
+
+      texts.clear();
+      FastSAXParser.parse(new Utf8BlockReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), blockSize), handler);
+      assertEquals(expected, texts);
+    }
+
+    assertEquals("<\u20ac>", new Utf8BlockReader("&lt;&#x20ac;&gt;".getBytes(StandardCharsets.UTF_8)).toUnescapedString(0, 16));
+
+    // References with non-ASCII digits, or to illegal characters of XML, are kept literally
+    for (final String reference : new String[] {"&#\u0661\u0662;", "&#x\uff41;", "&#0;", "&#x1F;", "&#xD800;", "&#xFFFE;", "&#x110000;"})
+      assertEquals(reference, new CharBlockReader(reference.toCharArray(), reference.length()).toUnescapedString(0, reference.length()));
+
+    // A reader of a single block does not have an underlying Reader
+    try (final CharBlockReader reader = new CharBlockReader("&amp;".toCharArray(), 5)) {
+      assertTrue(reader.ready());
+      assertEquals("&", reader.toUnescapedString(0, 5));
+      assertEquals("<", reader.rebind("&lt;".toCharArray(), 4).toUnescapedString(0, 4));
+      reader.skip(4);
+      assertFalse(reader.ready());
+    }
+
+    assertEquals("\t\n\r \ud7ff\ue000\ufffd\ud800\udc00\udbff\udfff", new Utf8BlockReader("&#9;&#xA;&#13;&#x20;&#xD7FF;&#xE000;&#xFFFD;&#x10000;&#x10FFFF;".getBytes(StandardCharsets.UTF_8)).toUnescapedString(0, 63));
+  }
+
+  private static void assertMalformed(final String xml, final String message, final int line, final int column) throws IOException {
+    assertMalformed(xml, message, line, column, new CharBlockReader(new StringReader(xml), 4), new Utf8BlockReader(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static void assertMalformed(final String xml, final String message, final int line, final int column, final BlockReader ... readers) throws IOException {
+    for (final BlockReader in : readers) {
+      try {
+        FastSAXParser.parse(in, new FasterSAXHandler() {}, true);
+        fail("Expected SAXParseException: " + xml);
+      }
+      catch (final SAXParseException e) {
+        assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        assertEquals(xml, line, e.getLineNumber());
+        assertEquals(xml, column, e.getColumnNumber());
+      }
+    }
+  }
+
+  @Test
+  public void testStrict() throws IOException, SAXParseException {
+    for (final String resource : new String[] {"currency.xml", "doctype.xml", "valid.xml", "xinclude.xml"}) {
+      try (final InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream(resource)) {
+        FastSAXParser.parse(in, new FasterSAXHandler() {}, true);
+      }
+    }
+
+    FastSAXParser.parse(new CharBlockReader(new StringReader("<\u00e4:a\u00b7 \u00e4:x='1' x=\"2\"><b\n/></\u00e4:a\u00b7 >")), new FasterSAXHandler() {}, true);
+    FastSAXParser.parse(new ByteArrayInputStream("<a><a>x</a></a >".getBytes(StandardCharsets.UTF_8)), new FasterSAXHandler() {}, false);
+
+    assertMalformed("<a>\n  <b></c>\n</a>", "Expected end tag </b>, but found </c>", 2, 8);
+    assertMalformed("<a>\n  <b>x</b>", "Expected end tag </a>", 2, 11);
+    assertMalformed("<a></a></a>", "Unexpected end tag </a>", 1, 10);
+    assertMalformed("<a x='1' y='2' x='3'/>", "Attribute \"x\" is specified more than once", 1, 16);
+
+    final StringBuilder attributes = new StringBuilder("<a");
+    for (int i = 0; i < 10000; ++i)
+      attributes.append(" a").append(i).append("='").append(i).append('\'');
+
+    FastSAXParser.parse(new CharBlockReader(new StringReader(attributes + "/>")), new FasterSAXHandler() {}, true);
+    assertMalformed(attributes + " a9999='x'/>", "Attribute \"a9999\" is specified more than once", 1, attributes.length() + 2);
+    assertMalformed("<a x=1/>", "Expected quoted attribute value", 1, 6);
+    assertMalformed("<a x='1'y='2'/>", "Expected whitespace", 1, 9);
+    assertMalformed("<a x/>", "Expected '=' after attribute name", 1, 5);
+    assertMalformed("<a x='<'/>", "Unexpected '<' in attribute value", 1, 7);
+    assertMalformed("<1a/>", "Illegal character at start of name", 1, 2);
+    // Non-ASCII name characters are only checked for UTF-16 units
+    final String xml = "<a\n  b\u00d7='1'/>";
+    assertMalformed(xml, "Illegal character in name", 2, 4, new CharBlockReader(new StringReader(xml)));
+  }
+
+  @Test
+  public void testStrictSkip() throws IOException, SAXParseException {
+    final FasterSAXHandler handler = new FasterSAXHandler() {
+      @Override
+      public boolean skipElement() {
+        return true;
+      }
+    };
+
+    FastSAXParser.parse(new CharBlockReader(new StringReader("<a><b></b>")), handler, false);
+    for (final BlockReader in : new BlockReader[] {new CharBlockReader(new StringReader("<a><b></b>"), 4), new Utf8BlockReader("<a><b></b>".getBytes(StandardCharsets.UTF_8))}) {
+      try {
+        FastSAXParser.parse(in, handler, true);
+        fail("Expected SAXParseException");
+      }
+      catch (final SAXParseException e) {
+        assertEquals("Expected end tag </a>", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testRequiresBlockReader() throws IOException, SAXParseException {
+    for (final boolean requiresBlockReader : new boolean[] {false, true}) {
+      final List<String> names = new ArrayList<>();
+      FastSAXParser.parse(new StringReader("<a><b:c/></a>"), new FasterSAXHandler() {
+        @Override
+        public boolean requiresBlockReader() {
+          return requiresBlockReader;
+        }
+
+        @Override
+        public boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+          names.add(in.toString(off, prefixLen + localPartLen));
+          return true;
+        }
+      });
+
+      assertEquals(requiresBlockReader ? Arrays.asList("a", "b:c") : Arrays.asList(), names);
+    }
+  }
+}
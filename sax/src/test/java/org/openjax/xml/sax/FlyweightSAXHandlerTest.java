@@ -0,0 +1,117 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class FlyweightSAXHandlerTest {
+  private static final String xml = "<?xml version=\"1.0\"?><!-- c --><\u00e4:r\u00f6\u00f6t xmlns:\u00e4=\"urn:\u00e4\" id='\u20ac\ud83d\ude00'><x a=\"b\"/></\u00e4:r\u00f6\u00f6t>";
+  private static final List<String> expected = Arrays.asList("?xml", "! c ", "\u00e4:r\u00f6\u00f6t", "@xmlns:\u00e4=urn:\u00e4", "@:id=\u20ac\ud83d\ude00", ">", ":x", "@:a=b", ">", "/", "/");
+
+  private static final class TestHandler extends FlyweightSAXHandler {
+    private final List<String> events = new ArrayList<>();
+    private final List<CharSequence> views = new ArrayList<>();
+
+    private void view(final CharSequence view) {
+      if (!views.contains(view))
+        views.add(view);
+    }
+
+    @Override
+    public boolean startDeclaration(final CharSequence name) {
+      view(name);
+      events.add("?" + name);
+      return true;
+    }
+
+    @Override
+    public boolean comment(final CharSequence comment) {
+      view(comment);
+      events.add("!" + comment);
+      return true;
+    }
+
+    @Override
+    public boolean attribute(final CharSequence prefix, final CharSequence localName, final CharSequence value) {
+      view(prefix);
+      view(localName);
+      view(value);
+      assertEquals(value.toString().length(), value.length());
+      assertTrue(((BlockSequence)localName).contentEquals(localName.toString()));
+      events.add("@" + prefix + ":" + localName + "=" + value);
+      return true;
+    }
+
+    @Override
+    public boolean startElement(final CharSequence prefix, final CharSequence localName) {
+      view(prefix);
+      view(localName);
+      final StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < localName.length(); ++i)
+        builder.append(localName.charAt(i));
+
+      events.add(prefix + ":" + builder);
+      return true;
+    }
+
+    @Override
+    public boolean startElement() {
+      events.add(">");
+      return true;
+    }
+
+    @Override
+    public boolean endElement() {
+      events.add("/");
+      return true;
+    }
+  }
+
+  @Test
+  public void testCharBlockReader() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler();
+    FastSAXParser.parse(new CharBlockReader(new StringReader(xml), 7), handler);
+    assertEquals(expected, handler.events);
+    assertEquals(3, handler.views.size());
+  }
+
+  @Test
+  public void testUtf8BlockReader() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler();
+    FastSAXParser.parse(xml.getBytes(StandardCharsets.UTF_8), handler);
+    assertEquals(expected, handler.events);
+    assertEquals(3, handler.views.size());
+  }
+
+  @Test
+  public void testReader() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler();
+    FastSAXParser.parse(new StringReader(xml), handler);
+    assertEquals(expected, handler.events);
+    assertEquals(3, handler.views.size());
+  }
+}
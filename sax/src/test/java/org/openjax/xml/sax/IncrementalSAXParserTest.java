@@ -0,0 +1,228 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class IncrementalSAXParserTest {
+  private static final String xml = "<?xml version=\"1.0\"?>\n<!DOCTYPE r>\n<r:root xmlns:r=\"urn:r\" a='1'>\n  <item id=\"1\" name=\"a&amp;b \u00e9\">caf\u00e9 &lt;\ud83d\ude00&gt;</item>\n  <skip><x><skip/></x><!-- </skip> --></skip><![CDATA[<c>]]><!-- comment -->\n  <empty/>\n</r:root>\n";
+
+  private static class TraceHandler implements FasterSAXHandler {
+    final StringBuilder trace = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+
+    private StringBuilder flush() {
+      if (text.length() > 0) {
+        trace.append('[').append(text).append(']');
+        text.setLength(0);
+      }
+
+      return trace;
+    }
+
+    @Override
+    public boolean startDocument() {
+      flush().append('^');
+      return true;
+    }
+
+    @Override
+    public boolean startDeclaration(final BlockReader in, final int off, final int nameLen) {
+      flush().append("<?").append(in.toString(off, nameLen));
+      return true;
+    }
+
+    @Override
+    public boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+      flush().append('<').append(in.toString(off, prefixLen + localPartLen));
+      return true;
+    }
+
+    @Override
+    public boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) {
+      trace.append(' ').append(in.toString(off, prefixLen + localPartLen)).append('=').append(in.toUnescapedString(off + prefixLen + localPartLen + skip, valueLen));
+      return true;
+    }
+
+    @Override
+    public boolean startElement() {
+      trace.append('>');
+      return true;
+    }
+
+    @Override
+    public boolean endElement() {
+      flush().append("</>");
+      return true;
+    }
+
+    @Override
+    public boolean characters(final BlockReader in, final int off, final int len) {
+      in.unescape(off, len, text);
+      return true;
+    }
+
+    @Override
+    public boolean cdata(final BlockReader in, final int off, final int len) {
+      flush().append("CDATA:").append(in.toString(off, len));
+      return true;
+    }
+
+    @Override
+    public boolean comment(final BlockReader in, final int off, final int len) {
+      flush().append("!--").append(in.toString(off, len));
+      return true;
+    }
+
+    @Override
+    public boolean doctype(final BlockReader in, final int off, final int len) {
+      flush().append('!').append(in.toString(off, len));
+      return true;
+    }
+
+    @Override
+    public boolean endDocument() {
+      flush().append('$');
+      return true;
+    }
+  }
+
+  private static final class SkipHandler extends TraceHandler {
+    private boolean skip;
+
+    @Override
+    public boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+      skip = in.regionMatches(off, prefixLen + localPartLen, "skip");
+      return super.startElement(in, off, prefixLen, localPartLen);
+    }
+
+    @Override
+    public boolean skipElement() {
+      return skip;
+    }
+  }
+
+  private static String feed(final TraceHandler handler, final byte[] bytes, final Random random, final boolean direct) throws IOException, SAXParseException {
+    final IncrementalSAXParser parser = new IncrementalSAXParser(handler);
+    final ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(16) : ByteBuffer.allocate(16);
+    for (int i = 0; i < bytes.length;) {
+      final int len = Math.min(bytes.length - i, 1 + random.nextInt(16));
+      buffer.clear();
+      buffer.put(bytes, i, len).flip();
+      assertTrue(parser.feed(buffer));
+      assertFalse(buffer.hasRemaining());
+      assertFalse(parser.isDone());
+      i += len;
+    }
+
+    parser.endOfInput();
+    assertTrue(parser.isDone());
+    return handler.trace.toString();
+  }
+
+  @Test
+  public void testFeed() throws IOException, SAXParseException {
+    final byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+    final TraceHandler expected = new TraceHandler();
+    FastSAXParser.parse(bytes, expected);
+    assertTrue(expected.trace.indexOf("<item id=1 name=a&b \u00e9>[caf\u00e9 <\ud83d\ude00>]</>") > 0);
+
+    final SkipHandler skipExpected = new SkipHandler();
+    FastSAXParser.parse(bytes, skipExpected);
+    assertTrue(skipExpected.trace.indexOf("<skip></>CDATA:<c>") > 0);
+
+    final Random random = new Random(1);
+    for (int n = 0; n < 200; ++n) {
+      assertEquals(expected.trace.toString(), feed(new TraceHandler(), bytes, random, n % 2 == 0));
+      assertEquals(skipExpected.trace.toString(), feed(new SkipHandler(), bytes, random, n % 2 == 0));
+    }
+  }
+
+  @Test
+  public void testStop() throws IOException, SAXParseException {
+    final TraceHandler handler = new TraceHandler() {
+      @Override
+      public boolean endElement() {
+        super.endElement();
+        return false;
+      }
+    };
+
+    final IncrementalSAXParser parser = new IncrementalSAXParser(handler);
+    assertTrue(parser.feed(ByteBuffer.wrap("<a>te".getBytes(StandardCharsets.UTF_8))));
+    assertEquals("^<a>", handler.trace.toString());
+    assertFalse(parser.feed(ByteBuffer.wrap("xt</a><b/>".getBytes(StandardCharsets.UTF_8))));
+    assertTrue(parser.isDone());
+    final ByteBuffer buffer = ByteBuffer.wrap("<c/>".getBytes(StandardCharsets.UTF_8));
+    assertFalse(parser.feed(buffer));
+    assertEquals(4, buffer.remaining());
+    parser.endOfInput();
+    assertEquals("^<a>[text]</>", handler.trace.toString());
+    try {
+      parser.feed(buffer);
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void testReset() throws IOException, SAXParseException {
+    final TraceHandler handler = new TraceHandler();
+    final IncrementalSAXParser parser = new IncrementalSAXParser(handler);
+    assertTrue(parser.feed(ByteBuffer.wrap("<a>x</".getBytes(StandardCharsets.UTF_8))));
+    parser.reset();
+    assertFalse(parser.isDone());
+    assertTrue(parser.feed(ByteBuffer.wrap("<b/>".getBytes(StandardCharsets.UTF_8))));
+    parser.endOfInput();
+    assertEquals("^<a>[x]^<b></>$", handler.trace.toString());
+  }
+
+  @Test
+  public void testMultiDocument() throws IOException, SAXParseException {
+    final String xml = "<?xml version=\"1.0\"?>\n<a>1<skip><a/></skip></a>\n<b/><!--c--><c>3</c>\n<?pi?><?xml version=\"1.0\"?><d/>\n";
+    final String expected = "^<?xml version=1.0[\n]<a>[1]<skip></></>$^<b></>$^!--c<c>[3]</>$^<?pi$^<?xml version=1.0<d></>$";
+    final byte[] bytes = xml.getBytes(StandardCharsets.UTF_8);
+
+    final SkipHandler handler = new SkipHandler();
+    FastSAXParser.parseDocuments(new ByteArrayInputStream(bytes), handler);
+    assertEquals(expected, handler.trace.toString());
+
+    final Random random = new Random(1);
+    for (int n = 0; n < 50; ++n) {
+      final SkipHandler fed = new SkipHandler();
+      final IncrementalSAXParser parser = new IncrementalSAXParser(fed, true);
+      for (int i = 0; i < bytes.length;) {
+        final int len = Math.min(bytes.length - i, 1 + random.nextInt(8));
+        assertTrue(parser.feed(ByteBuffer.wrap(bytes, i, len)));
+        i += len;
+      }
+
+      parser.endOfInput();
+      assertEquals(expected, fed.trace.toString());
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class ParallelSAXParserTest {
+  private static final int RECORDS = 10000;
+
+  private static class RecordHandler implements FasterSAXHandler {
+    final List<Integer> ids = new ArrayList<>();
+    private int depth;
+
+    @Override
+    public boolean startElement(final BlockReader in, final int off, final int prefixLen, final int localPartLen) {
+      ++depth;
+      return true;
+    }
+
+    @Override
+    public boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) {
+      if (depth == 1 && in.regionMatches(off, prefixLen + localPartLen, "id"))
+        ids.add(Integer.valueOf(in.toString(off + prefixLen + localPartLen + skip, valueLen)));
+
+      return true;
+    }
+
+    @Override
+    public boolean endElement() {
+      --depth;
+      return true;
+    }
+  }
+
+  private static Path createFile() throws IOException {
+    final Path path = Files.createTempFile("records", ".xml");
+    path.toFile().deleteOnExit();
+    try (final Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      out.write("<?xml version=\"1.0\"?>\n<!-- records -->\n<r:records xmlns:r=\"urn:records\">\n");
+      for (int i = 0; i < RECORDS; ++i)
+        out.write("  <r:record id=\"" + i + "\"><r:name>n" + i + "</r:name><r:empty/><!-- c --></r:record>\n");
+
+      out.write("</r:records>\n");
+    }
+
+    return path;
+  }
+
+  @Test
+  public void testOrdered() throws IOException, SAXParseException {
+    final List<RecordHandler> handlers = ParallelSAXParser.parse(createFile(), 1, RecordHandler::new, new ForkJoinPool(4), true);
+    assertTrue(handlers.size() > 1);
+    int expected = 0;
+    for (final RecordHandler handler : handlers) {
+      assertEquals(0, handler.depth);
+      for (final Integer id : handler.ids)
+        assertEquals(expected++, id.intValue());
+    }
+
+    assertEquals(RECORDS, expected);
+  }
+
+  @Test
+  public void testUnordered() throws IOException, SAXParseException {
+    final List<RecordHandler> handlers = ParallelSAXParser.parse(createFile(), 1, RecordHandler::new, new ForkJoinPool(4), false);
+    assertTrue(handlers.size() <= 4);
+    final boolean[] seen = new boolean[RECORDS];
+    for (final RecordHandler handler : handlers) {
+      for (final Integer id : handler.ids) {
+        assertFalse(seen[id]);
+        seen[id] = true;
+      }
+    }
+
+    for (final boolean s : seen)
+      assertTrue(s);
+  }
+
+  private static final class NamespaceHandler extends FastSAXHandler {
+    private final List<QName> names = new ArrayList<>();
+
+    @Override
+    public boolean startElement(final QName name, final Map<QName,String> attributes) {
+      names.add(name);
+      return true;
+    }
+  }
+
+  @Test
+  public void testNamespaces() throws IOException, SAXParseException {
+    final Path path = Files.createTempFile("namespaces", ".xml");
+    path.toFile().deleteOnExit();
+    final StringBuilder xml = new StringBuilder("<feed xmlns=\"urn:feed\" xmlns:e=\"urn:entry\"><head xmlns:h=\"urn:other\"/><entries version=\"1\">");
+    for (int i = 0; i < 1000; ++i)
+      xml.append("<entry><e:title>").append(i).append("</e:title></entry>");
+
+    Files.write(path, xml.append("</entries></feed>").toString().getBytes(StandardCharsets.UTF_8));
+    final List<NamespaceHandler> handlers = ParallelSAXParser.parse(path, 2, NamespaceHandler::new, new ForkJoinPool(4), true);
+    assertTrue(handlers.size() > 1);
+    int count = 0;
+    for (final NamespaceHandler handler : handlers) {
+      for (final QName name : handler.names) {
+        assertEquals(name.getLocalPart(), "entry".equals(name.getLocalPart()) ? "urn:feed" : "urn:entry", name.getNamespaceURI());
+        ++count;
+      }
+    }
+
+    assertEquals(2000, count);
+  }
+
+  @Test
+  public void testGroupNamespaces() throws IOException {
+    // The declaration on the first group is seen when the file is split, and that on the second group when its chunk is parsed
+    for (final int first : new int[] {0, 1}) {
+      final Path path = Files.createTempFile("groups", ".xml");
+      path.toFile().deleteOnExit();
+      final StringBuilder xml = new StringBuilder("<groups>");
+      for (int g = 0; g < 2; ++g) {
+        xml.append(g < first ? "<group>" : "<group xmlns:a=\"urn:group" + g + "\">");
+        for (int i = 0; i < 1000; ++i)
+          xml.append("<a:entry>").append(i).append("</a:entry>");
+
+        xml.append("</group>");
+      }
+
+      Files.write(path, xml.append("</groups>").toString().getBytes(StandardCharsets.UTF_8));
+      try {
+        ParallelSAXParser.parse(path, 2, NamespaceHandler::new, new ForkJoinPool(4), true);
+        fail("Expected SAXParseException");
+      }
+      catch (final SAXParseException e) {
+        assertEquals(path.toString(), e.getSystemId());
+        assertTrue(e.getMessage(), e.getMessage().contains("<group>"));
+      }
+    }
+  }
+
+  @Test
+  public void testFailure() throws IOException, SAXParseException {
+    final AtomicInteger running = new AtomicInteger();
+    final class FailingHandler extends RecordHandler {
+      @Override
+      public boolean startDocument() {
+        running.incrementAndGet();
+        return true;
+      }
+
+      @Override
+      public boolean attribute(final BlockReader in, final int off, final int prefixLen, final int localPartLen, final int skip, final int valueLen) {
+        super.attribute(in, off, prefixLen, localPartLen, skip, valueLen);
+        if (ids.contains(0)) {
+          running.decrementAndGet();
+          throw new IllegalStateException();
+        }
+
+        return true;
+      }
+
+      @Override
+      public boolean endDocument() {
+        try {
+          Thread.sleep(10);
+        }
+        catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+
+        running.decrementAndGet();
+        return true;
+      }
+    }
+
+    try {
+      ParallelSAXParser.parse(createFile(), 1, FailingHandler::new, new ForkJoinPool(4), true);
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+      assertEquals(0, running.get());
+    }
+  }
+
+  @Test(expected = SAXParseException.class)
+  public void testUnsafeSplit() throws IOException, SAXParseException {
+    final Path path = Files.createTempFile("nested", ".xml");
+    path.toFile().deleteOnExit();
+    final StringBuilder xml = new StringBuilder("<root>");
+    for (int i = 0; i < 1000; ++i)
+      xml.append("<a><a>").append(i).append("</a></a>");
+
+    Files.write(path, xml.append("</root>").toString().getBytes(StandardCharsets.UTF_8));
+    ParallelSAXParser.parse(path, 1, RecordHandler::new, new ForkJoinPool(4), true);
+  }
+}
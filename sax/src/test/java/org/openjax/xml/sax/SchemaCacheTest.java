@@ -0,0 +1,177 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.libj.net.URLs;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class SchemaCacheTest {
+  static {
+    URLs.disableRemote();
+  }
+
+  private static final SchemaCache cache = Validator.getSchemaCache();
+
+  private static URL getResource(final String name) {
+    return ClassLoader.getSystemClassLoader().getResource(name);
+  }
+
+  @Test
+  public void testReuse() throws IOException, SAXException {
+    cache.clear();
+    Validator.validate(getResource("valid.xml"));
+    assertEquals(1, cache.size());
+    Validator.validate(getResource("valid.xml"));
+    assertEquals(1, cache.size());
+
+    try {
+      Validator.validate(getResource("invalid.xml"));
+      fail("Expected SAXException");
+    }
+    catch (final SAXException e) {
+      if (!e.getMessage().startsWith("cvc-datatype-valid.1.2.1: 'a' is not a valid value for 'integer'."))
+        fail(e.getMessage());
+    }
+
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testInvalidate() throws IOException, SAXException {
+    cache.clear();
+    Validator.validate(getResource("valid.xml"));
+    Validator.validate(getResource("noNamespace.xsd"));
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.invalidate(getResource("test.xsd")));
+    assertEquals(1, cache.size());
+    assertEquals(0, cache.invalidate(getResource("test.xsd")));
+  }
+
+  @Test
+  public void testEviction() throws IOException, SAXException {
+    final SchemaCache cache = new SchemaCache(1);
+    final XmlPreview valid = XmlPreviewParser.parse(getResource("valid.xml"), new CachedInputSource(null, getResource("valid.xml").toString(), null, getResource("valid.xml").openStream()));
+    final XmlPreview schema = XmlPreviewParser.parse(getResource("noNamespace.xsd"), new CachedInputSource(null, getResource("noNamespace.xsd").toString(), null, getResource("noNamespace.xsd").openStream()));
+    assertNotNull(cache.getValidatorPool(valid, getResource("valid.xml").toString()));
+    assertNotNull(cache.getValidatorPool(schema, getResource("noNamespace.xsd").toString()));
+    assertEquals(1, cache.size());
+    assertEquals(0, cache.invalidate(getResource("test.xsd")));
+    assertNull(new SchemaCache(0).getValidatorPool(valid, getResource("valid.xml").toString()));
+  }
+
+  @Test
+  public void testConcurrentCompilation() throws Exception {
+    final SchemaCache cache = new SchemaCache(2);
+    final String[] names = {"valid.xml", "noNamespace.xsd"};
+    final XmlPreview[] previews = new XmlPreview[names.length];
+    for (int i = 0; i < names.length; ++i)
+      previews[i] = XmlPreviewParser.parse(getResource(names[i]), new CachedInputSource(null, getResource(names[i]).toString(), null, getResource(names[i]).openStream()));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      final List<Future<ValidatorPool>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; ++i) {
+        final int index = i % names.length;
+        futures.add(executor.submit(() -> {
+          start.await();
+          return cache.getValidatorPool(previews[index], getResource(names[index]).toString());
+        }));
+      }
+
+      start.countDown();
+      for (int i = 0; i < futures.size(); ++i) {
+        // Each key is compiled once, whereby the requests of a key share its pool
+        assertNotNull(futures.get(i).get());
+        assertSame(futures.get(i % names.length).get(), futures.get(i).get());
+      }
+
+      assertNotSame(futures.get(0).get(), futures.get(1).get());
+      assertEquals(2, cache.size());
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void validate(final String name, final String namespace) throws IOException, SAXException {
+    final URL url = getResource(name);
+    try (final InputStream in = url.openStream()) {
+      final InputSource inputSource = new InputSource(in);
+      inputSource.setSystemId(url.toString());
+      Validator.validate(inputSource, namespace, new DefaultHandler());
+    }
+  }
+
+  @Test
+  public void testNamespace() throws IOException, SAXException {
+    cache.clear();
+    final String namespace = "http://www.openjax.org/xml/test.xsd";
+    final AtomicInteger previews = new AtomicInteger();
+    final XmlMetrics previous = XmlMetrics.install(new XmlMetrics() {
+      @Override
+      public void schemasResolved(final Object context, final String systemId, final int documents, final long nanos) {
+        previews.incrementAndGet();
+      }
+    });
+
+    try {
+      validate("valid.xml", namespace);
+      assertEquals(1, previews.get());
+      validate("valid.xml", namespace);
+      assertEquals(1, previews.get());
+      try {
+        validate("invalid.xml", namespace);
+        fail("Expected SAXException");
+      }
+      catch (final SAXException e) {
+        if (!e.getMessage().startsWith("cvc-datatype-valid.1.2.1: 'a' is not a valid value for 'integer'."))
+          fail(e.getMessage());
+      }
+
+      assertEquals(1, previews.get());
+      cache.invalidate(getResource("test.xsd"));
+      validate("valid.xml", namespace);
+      assertEquals(2, previews.get());
+    }
+    finally {
+      XmlMetrics.install(previous);
+    }
+  }
+
+  @Test
+  public void testXInclude() throws IOException, SAXException {
+    Validator.validate(getResource("xinclude.xml"));
+    Validator.validate(getResource("xinclude.xml"));
+  }
+}
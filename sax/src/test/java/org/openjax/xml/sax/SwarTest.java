@@ -0,0 +1,58 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SwarTest {
+  private static int indexOf(final byte[] bytes, final int from, final int to, final int ... bs) {
+    for (int i = from; i < to; ++i)
+      for (final int b : bs)
+        if (bytes[i] == (byte)b)
+          return i;
+
+    return to;
+  }
+
+  @Test
+  public void testIndexOf() {
+    final Random random = new Random(1);
+    final byte[] alphabet = {'a', '<', '>', '"', '\'', (byte)0xBC, (byte)0x3C, (byte)0xFF, 0};
+    for (int n = 0; n < 2000; ++n) {
+      final byte[] bytes = new byte[random.nextInt(40)];
+      for (int i = 0; i < bytes.length; ++i)
+        bytes[i] = random.nextInt(4) == 0 ? alphabet[random.nextInt(alphabet.length)] : (byte)random.nextInt(256);
+
+      final int from = bytes.length == 0 ? 0 : random.nextInt(bytes.length);
+      final int to = from + random.nextInt(bytes.length - from + 1);
+      final ByteBuffer heap = ByteBuffer.wrap(bytes);
+      final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+      direct.put(bytes);
+      for (final ByteBuffer buffer : new ByteBuffer[] {heap, direct}) {
+        assertEquals(indexOf(bytes, from, to, '<'), Swar.indexOf(buffer, '<', from, to));
+        assertEquals(indexOf(bytes, from, to, 0xBC), Swar.indexOf(buffer, 0xBC, from, to));
+        assertEquals(indexOf(bytes, from, to, '>', '"', '\''), Swar.indexOf(buffer, '>', '"', '\'', from, to));
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class SymbolTableTest {
+  private static final String xml = "<a:r\u00f6\u00f6t xmlns:a=\"urn:a\"><a:r\u00f6\u00f6t a:id=\"1\"/><a:r\u00f6\u00f6t a:id=\"2\"/></a:r\u00f6\u00f6t>";
+
+  @Test
+  public void testSymbols() {
+    final SymbolTable symbols = new SymbolTable(1);
+    final String name = symbols.getSymbol("r\u00f6\u00f6t");
+    assertEquals("r\u00f6\u00f6t", name);
+    assertSame(name, symbols.getSymbol(new String("r\u00f6\u00f6t")));
+    assertSame(name, symbols.getSymbol(new Utf8BlockReader("<r\u00f6\u00f6t>".getBytes(StandardCharsets.UTF_8)), 1, 6));
+    assertSame(name, symbols.getSymbol("r\u00f6\u00f6t".toCharArray(), 0, 4));
+    assertEquals("r\u00c3\u00b6\u00c3\u00b6t", symbols.getSymbol("r\u00c3\u00b6\u00c3\u00b6t"));
+
+    for (int i = 0; i < 1000; ++i)
+      assertSame(symbols.getSymbol("n" + i), symbols.getSymbol("n" + i));
+
+    assertSame(name, symbols.getSymbol("r\u00f6\u00f6t"));
+    final QName qName = symbols.getQName("urn:a", name, "a");
+    assertSame(qName, symbols.getQName(new String("urn:a"), name, "a"));
+    assertNotSame(qName, symbols.getQName("urn:a", name, null));
+    assertSame(symbols.getQName(null, name, null), symbols.getQName("", name, ""));
+  }
+
+  @Test
+  public void testHandler() throws IOException, SAXParseException {
+    final SymbolTable symbols = new SymbolTable();
+    final List<QName> names = new ArrayList<>();
+    final FastSAXHandler handler = new FastSAXHandler(symbols) {
+      @Override
+      public boolean startElement(final QName name, final Map<QName,String> attributes) {
+        names.add(name);
+        if (attributes != null)
+          names.addAll(attributes.keySet());
+
+        return true;
+      }
+    };
+
+    FastSAXParser.parse(xml.getBytes(StandardCharsets.UTF_8), handler);
+    handler.reset();
+    FastSAXParser.parse(new CharBlockReader(new StringReader(xml)), handler);
+    assertEquals(12, names.size());
+    final QName root = names.get(0);
+    assertEquals(new QName("urn:a", "r\u00f6\u00f6t", "a"), root);
+    for (final QName name : names)
+      if (name.getLocalPart().equals(root.getLocalPart()))
+        assertSame(root, name);
+  }
+}
@@ -0,0 +1,60 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ValidatorPoolTest {
+  @Test
+  public void testPool() throws Exception {
+    final ValidatorPool pool = new ValidatorPool(SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(new StringReader("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"><xs:element name=\"a\" type=\"xs:integer\"/></xs:schema>"))), 1);
+    final Validator a = pool.acquire();
+    final Validator b = pool.acquire();
+    assertNotSame(a, b);
+
+    a.setErrorHandler(new DefaultHandler());
+    a.validate(new StreamSource(new StringReader("<a>1</a>")));
+    assertTrue(pool.release(a));
+    assertFalse(pool.release(b));
+    assertEquals(1, pool.size());
+
+    final Validator c = pool.acquire();
+    assertSame(a, c);
+    assertNull(c.getErrorHandler());
+    assertEquals(0, pool.size());
+    try {
+      c.validate(new StreamSource(new StringReader("<a>b</a>")));
+      fail("Expected SAXException");
+    }
+    catch (final SAXException e) {
+    }
+
+    assertTrue(pool.release(c));
+    pool.acquire().validate(new StreamSource(new StringReader("<a>2</a>")));
+  }
+}
@@ -19,11 +19,16 @@ package org.openjax.xml.sax;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.xml.transform.stream.StreamSource;
+
 import org.junit.Test;
 import org.libj.net.URLs;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -77,6 +82,16 @@ public class ValidatorTest {
     Validator.validate(ClassLoader.getSystemClassLoader().getResource("valid.xml"));
   }
 
+  @Test
+  public void testInputSource() throws IOException, SAXException {
+    final URL url = ClassLoader.getSystemClassLoader().getResource("valid.xml");
+    try (final InputStream in = url.openStream()) {
+      final InputSource inputSource = new InputSource(in);
+      inputSource.setSystemId(url.toString());
+      Validator.validate(inputSource);
+    }
+  }
+
   @Test
   public void testXmlXsd() throws IOException, SAXException {
     Validator.validate(ClassLoader.getSystemClassLoader().getResource("xmlschema/xml.xsd"));
@@ -98,6 +113,22 @@ public class ValidatorTest {
     Validator.validate(ClassLoader.getSystemClassLoader().getResource("override.xml"));
   }
 
+  @Test
+  public void testNestedSchemaLocation() throws IOException, SAXException {
+    Validator.validate(ClassLoader.getSystemClassLoader().getResource("nested.xml"));
+  }
+
+  @Test
+  public void testGrammarPool() throws IOException, SAXException {
+    // original.xml and extension.xml use different schemas of the same target namespace
+    final XmlGrammarPool pool = new XmlGrammarPool(8);
+    for (final String resource : new String[] {"original.xml", "extension.xml", "original.xml"}) {
+      final XmlGrammarPool.Stage stage = pool.stage();
+      Validator.newSchema(stage).newValidator().validate(new StreamSource(ClassLoader.getSystemClassLoader().getResource(resource).toString()));
+      stage.commit();
+    }
+  }
+
   @Test
   public void testXInclude() throws IOException, SAXException {
     Validator.validate(ClassLoader.getSystemClassLoader().getResource("xinclude.xml"));
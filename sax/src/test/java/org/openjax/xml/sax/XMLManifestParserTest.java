@@ -19,9 +19,16 @@ package org.openjax.xml.sax;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.libj.net.MemoryURLStreamHandler;
 import org.libj.net.URLs;
 import org.xml.sax.SAXParseException;
 
@@ -90,6 +97,111 @@ public class XMLManifestParserTest {
     assertNull(preview.getImports());
   }
 
+  @Test
+  public void testRootSchemaLocation() throws IOException, SAXParseException {
+    final String schema = ClassLoader.getSystemClassLoader().getResource("test.xsd").toString();
+    final StringBuilder xml = new StringBuilder("<test xmlns=\"http://www.openjax.org/xml/test.xsd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"http://www.openjax.org/xml/test.xsd ").append(schema).append("\">");
+    for (int i = 0; i < 100000; ++i)
+      xml.append("<a>text</a>");
+
+    xml.append("</test>");
+    final AtomicInteger read = new AtomicInteger();
+    final Reader reader = new StringReader(xml.toString()) {
+      @Override
+      public int read() throws IOException {
+        read.incrementAndGet();
+        return super.read();
+      }
+
+      @Override
+      public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        final int n = super.read(cbuf, off, len);
+        read.addAndGet(Math.max(n, 0));
+        return n;
+      }
+    };
+
+    final XmlPreview preview = XmlPreviewParser.parse(new URL(schema), new CachedInputSource(null, "memory:test.xml", null, reader), true);
+    assertEquals(schema, preview.getImports().get("http://www.openjax.org/xml/test.xsd").toString());
+    assertTrue(String.valueOf(read.get()), read.get() < xml.length() / 100);
+  }
+
+  @Test
+  public void testNestedSchemaLocation() throws IOException, SAXParseException {
+    final XmlPreview preview = testXml("nested.xml");
+    assertEquals("nested.xsd", URLs.getName(preview.getImports().get("http://www.openjax.org/xml/nested.xsd")));
+    assertEquals("original.xsd", URLs.getName(preview.getImports().get("http://www.openjax.org/xml/original.xsd")));
+  }
+
+  @Test
+  public void testNestedXInclude() throws IOException, SAXParseException {
+    final XmlPreview preview = testXml("xinclude-nested.xml");
+    assertNotNull(preview.getCatalog().getEntity("xinclude-section.xml"));
+    assertNotNull(preview.getCatalog().getEntity("valid.xml"));
+    assertNotNull(preview.getCatalog().getEntity("http://www.openjax.org/xml/test.xsd"));
+  }
+
+  @Test
+  public void testAnnotatedXsd() throws IOException, SAXParseException {
+    final String schema = ClassLoader.getSystemClassLoader().getResource("test.xsd").toString();
+    final String xsd = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:annotated\"><xs:annotation><xs:documentation>doc</xs:documentation></xs:annotation><xs:import namespace=\"http://www.openjax.org/xml/test.xsd\" schemaLocation=\"" + schema + "\"/><xs:element name=\"a\"/><xs:import namespace=\"urn:ignored\" schemaLocation=\"ignored.xsd\"/></xs:schema>";
+    final XmlPreview preview = XmlPreviewParser.parse(MemoryURLStreamHandler.createURL(xsd.getBytes()));
+    assertTrue(preview.isSchema());
+    assertEquals("urn:annotated", preview.getTargetNamespace());
+    assertEquals(1, preview.getImports().size());
+    assertEquals(schema, preview.getImports().get("http://www.openjax.org/xml/test.xsd").toString());
+  }
+
+  @Test
+  public void testSiblingImports() throws IOException, SAXParseException {
+    final String[] namespaces = {"http://www.openjax.org/xml/test.xsd", "http://www.openjax.org/xml/local.xsd", "http://www.openjax.org/xml/original.xsd"};
+    final String[] locations = {"test.xsd", "local.xsd", "original.xsd"};
+    final StringBuilder xsd = new StringBuilder("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:siblings\">");
+    for (int i = 0; i < namespaces.length; ++i)
+      xsd.append("<xs:import namespace=\"").append(namespaces[i]).append("\" schemaLocation=\"").append(ClassLoader.getSystemClassLoader().getResource(locations[i])).append("\"/>");
+
+    xsd.append("</xs:schema>");
+    final XmlPreview preview = XmlPreviewParser.parse(MemoryURLStreamHandler.createURL(xsd.toString().getBytes()));
+    for (int i = 0; i < namespaces.length; ++i) {
+      final XmlEntity entity = preview.getCatalog().getEntity(namespaces[i]);
+      assertNotNull(entity);
+      assertEquals(locations[i], URLs.getName(entity.getLocation()));
+    }
+  }
+
+  @Test
+  public void testLargeSiblingImports() throws IOException, SAXParseException {
+    // Documents that extend beyond the prefetched prefix are read in full from the open stream
+    final String[] documents = new String[2];
+    final StringBuilder xsd = new StringBuilder("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:large\">");
+    for (int i = 0; i < documents.length; ++i) {
+      final StringBuilder large = new StringBuilder("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:large" + i + "\">");
+      for (int j = 0; large.length() < 100000; ++j)
+        large.append("<xs:element name=\"e").append(j).append("\"/>");
+
+      documents[i] = large.append("</xs:schema>").toString();
+      final Path path = Files.createTempFile("large", ".xsd");
+      path.toFile().deleteOnExit();
+      Files.write(path, documents[i].getBytes(StandardCharsets.UTF_8));
+      xsd.append("<xs:import namespace=\"urn:large").append(i).append("\" schemaLocation=\"").append(path.toUri().toURL()).append("\"/>");
+    }
+
+    xsd.append("</xs:schema>");
+    final XmlPreview preview = XmlPreviewParser.parse(MemoryURLStreamHandler.createURL(xsd.toString().getBytes()));
+    for (int i = 0; i < documents.length; ++i) {
+      final XmlEntity entity = preview.getCatalog().getEntity("urn:large" + i);
+      assertNotNull(entity);
+      final Reader reader = entity.getInputSource().getCharacterStream();
+      // Replays the cached content from the start
+      reader.close();
+      final StringBuilder content = new StringBuilder();
+      for (int ch; (ch = reader.read()) != -1;)
+        content.append((char)ch);
+
+      assertEquals(documents[i], content.toString());
+    }
+  }
+
   @Test
   public void testDoctypeXml() throws Exception {
     final URL url = ClassLoader.getSystemClassLoader().getResource("doctype.xml");
@@ -0,0 +1,134 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class XmlCursorTest {
+  private static final String xml = "<?xml version=\"1.0\"?><p:root xmlns:p=\"urn:p\"><item id=\"1\" name=\"a&amp;b\"/><item id=\"2\">text &lt;2&gt;</item><!--c--></p:root>";
+
+  private static void assertCursor(final XmlCursor cursor) throws IOException, SAXParseException {
+    assertEquals(START_DOCUMENT, cursor.getEventType());
+    assertEquals(PROCESSING_INSTRUCTION, cursor.next());
+    assertEquals("xml", cursor.getLocalName());
+
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals(1, cursor.getDepth());
+    assertEquals("p", cursor.getPrefix());
+    assertEquals("root", cursor.getLocalName());
+    assertEquals(1, cursor.getAttributeCount());
+    assertEquals("xmlns", cursor.getAttributePrefix(0));
+    assertEquals("p", cursor.getAttributeLocalName(0));
+    assertEquals("urn:p", cursor.getAttributeValue(0));
+
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals(2, cursor.getDepth());
+    assertTrue(cursor.isLocalName("item"));
+    assertEquals("", cursor.getPrefix());
+    assertEquals("a&b", cursor.getAttributeValue("name"));
+    assertNull(cursor.getAttributeValue("none"));
+    assertEquals(END_ELEMENT, cursor.next());
+    assertEquals(2, cursor.getDepth());
+    assertEquals("item", cursor.getLocalName());
+
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals("2", cursor.getAttributeValue(0));
+    final StringBuilder text = new StringBuilder();
+    while (cursor.next() == CHARACTERS)
+      text.append(cursor.getText());
+
+    assertEquals("text <2>", text.toString());
+    assertEquals(END_ELEMENT, cursor.getEventType());
+    assertEquals(2, cursor.getDepth());
+
+    assertEquals(COMMENT, cursor.next());
+    assertEquals(1, cursor.getDepth());
+    assertEquals("c", cursor.getText());
+
+    assertEquals(END_ELEMENT, cursor.next());
+    assertEquals(1, cursor.getDepth());
+    assertTrue(cursor.isLocalName("root"));
+    assertTrue(cursor.hasNext());
+    assertEquals(END_DOCUMENT, cursor.next());
+    assertFalse(cursor.hasNext());
+  }
+
+  @Test
+  public void testCursor() throws IOException, SAXParseException {
+    try (final XmlCursor cursor = new XmlCursor(new CharBlockReader(new StringReader(xml), 8))) {
+      assertCursor(cursor);
+    }
+
+    try (final XmlCursor cursor = new XmlCursor(new Utf8BlockReader(xml.getBytes(StandardCharsets.UTF_8)))) {
+      assertCursor(cursor);
+    }
+  }
+
+  @Test
+  public void testIllegalState() throws IOException, SAXParseException {
+    final XmlCursor cursor = new XmlCursor(new Utf8BlockReader("<a>b</a>".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(START_ELEMENT, cursor.next());
+    try {
+      cursor.getText();
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+
+    assertEquals(CHARACTERS, cursor.next());
+    try {
+      cursor.getAttributeCount();
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+
+    assertEquals(END_ELEMENT, cursor.next());
+    assertEquals(END_DOCUMENT, cursor.next());
+    try {
+      cursor.next();
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void testSkipElement() throws IOException, SAXParseException {
+    final XmlCursor cursor = new XmlCursor(new CharBlockReader(new StringReader("<a><b><b/><!--</b>--></b><c/></a>"), 4));
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals(END_ELEMENT, cursor.skipElement());
+    assertEquals("b", cursor.getLocalName());
+    assertEquals(2, cursor.getDepth());
+    assertEquals(START_ELEMENT, cursor.next());
+    assertEquals("c", cursor.getLocalName());
+    assertEquals(END_ELEMENT, cursor.skipElement());
+    assertEquals(END_ELEMENT, cursor.next());
+    assertEquals("a", cursor.getLocalName());
+    assertEquals(1, cursor.getDepth());
+    assertEquals(END_DOCUMENT, cursor.next());
+  }
+}
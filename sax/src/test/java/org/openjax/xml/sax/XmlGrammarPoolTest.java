@@ -0,0 +1,107 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import org.apache.xerces.impl.xs.XSDDescription;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.junit.Test;
+
+public class XmlGrammarPoolTest {
+  private static XSDDescription newDescription(final String namespace, final String location) {
+    final XSDDescription description = new XSDDescription();
+    description.setNamespace(namespace);
+    description.setExpandedSystemId(location);
+    return description;
+  }
+
+  private static Grammar newGrammar(final String namespace, final String location) {
+    final XSDDescription description = newDescription(namespace, location);
+    return () -> description;
+  }
+
+  @Test
+  public void testRetrieve() {
+    final XmlGrammarPool pool = new XmlGrammarPool(2);
+    final Grammar a = newGrammar("a", "file:/a.xsd");
+    pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {a, newGrammar(null, "file:/none.xsd")});
+    pool.cacheGrammars(XMLGrammarDescription.XML_DTD, new Grammar[] {newGrammar("d", "file:/d.dtd")});
+    assertEquals(2, pool.size());
+    assertSame(a, pool.retrieveGrammar(newDescription("a", "file:/a.xsd")));
+    assertSame(a, pool.retrieveGrammar(newDescription("a", null)));
+    assertNull(pool.retrieveGrammar(newDescription("a", "file:/override.xsd")));
+    assertNotNull(pool.retrieveGrammar(newDescription(null, null)));
+    assertEquals(0, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+    assertEquals(0, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_DTD).length);
+
+    pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {newGrammar("b", "file:/b.xsd")});
+    assertEquals(2, pool.size());
+    assertNull(pool.retrieveGrammar(newDescription("b", null)));
+
+    assertSame(a, pool.remove("a"));
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void testStage() {
+    final XmlGrammarPool pool = new XmlGrammarPool(8);
+    final XmlGrammarPool.Stage stage = pool.stage();
+    final Grammar a = newGrammar("a", "file:/a.xsd");
+    stage.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {a});
+    assertSame(a, stage.retrieveGrammar(newDescription("a", null)));
+    assertEquals(0, pool.size());
+
+    stage.commit();
+    assertEquals(1, pool.size());
+    assertSame(a, pool.retrieveGrammar(newDescription("a", null)));
+    assertEquals(0, pool.stage().retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+  }
+
+  @Test
+  public void testLockAndSeal() {
+    final XmlGrammarPool pool = new XmlGrammarPool(8);
+    pool.lockPool();
+    pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {newGrammar("a", "file:/a.xsd")});
+    assertEquals(0, pool.size());
+
+    pool.unlockPool();
+    pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {newGrammar("a", "file:/a.xsd")});
+    assertEquals(1, pool.size());
+
+    pool.seal();
+    assertTrue(pool.isLocked());
+    pool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, new Grammar[] {newGrammar("b", "file:/b.xsd")});
+    assertEquals(1, pool.size());
+    try {
+      pool.unlockPool();
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+
+    try {
+      pool.clear();
+      fail("Expected IllegalStateException");
+    }
+    catch (final IllegalStateException e) {
+    }
+
+    assertNotNull(pool.retrieveGrammar(newDescription("a", "file:/a.xsd")));
+  }
+}
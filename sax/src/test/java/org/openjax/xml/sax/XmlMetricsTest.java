@@ -0,0 +1,170 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.libj.net.URLs;
+import org.xml.sax.SAXException;
+
+public class XmlMetricsTest {
+  static {
+    URLs.disableRemote();
+  }
+
+  private static class TestMetrics implements XmlMetrics {
+    private final List<String> events = new ArrayList<>();
+    private volatile boolean enabled = true;
+
+    @Override
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    @Override
+    public Object beginParse() {
+      return "parse";
+    }
+
+    @Override
+    public void parsed(final Object context, final long units, final long events, final long elements, final long nanos) {
+      assertEquals("parse", context);
+      assertTrue(nanos >= 0);
+      this.events.add("parsed " + units + " " + events + " " + elements);
+    }
+
+    @Override
+    public Object beginValidation() {
+      return "validation";
+    }
+
+    @Override
+    public void validated(final Object context, final String systemId, final boolean valid, final long nanos) {
+      assertEquals("validation", context);
+      assertTrue(nanos >= 0);
+      events.add("validated " + systemId.substring(systemId.lastIndexOf('/') + 1) + " " + valid);
+    }
+
+    @Override
+    public Object beginSchemaResolution() {
+      return "resolution";
+    }
+
+    @Override
+    public void schemasResolved(final Object context, final String systemId, final int documents, final long nanos) {
+      assertEquals("resolution", context);
+      assertTrue(nanos >= 0);
+      events.add("resolved " + systemId.substring(systemId.lastIndexOf('/') + 1) + " " + documents);
+    }
+
+    @Override
+    public void catalogLookup(final String systemId, final boolean hit) {
+      events.add("lookup " + systemId.substring(systemId.lastIndexOf('/') + 1) + " " + hit);
+    }
+  }
+
+  private static final FasterSAXHandler handler = new FasterSAXHandler() {
+    @Override
+    public boolean startElement() {
+      return true;
+    }
+  };
+
+  @Test
+  public void testParse() throws IOException, SAXException {
+    final TestMetrics metrics = new TestMetrics();
+    final XmlMetrics previous = XmlMetrics.install(metrics);
+    try {
+      assertSame(metrics, XmlMetrics.get());
+      final String xml = "<a x=\"1\"><b>text</b><!--c--><b/></a>";
+      FastSAXParser.parse(new CharBlockReader(new StringReader(xml), 4), handler);
+      FastSAXParser.parse(xml.getBytes(StandardCharsets.UTF_8), handler);
+      FastSAXParser.parse("<a><b/></a>".getBytes(StandardCharsets.UTF_8), new FasterSAXHandler() {
+        @Override
+        public boolean startElement() {
+          return false;
+        }
+      });
+
+      final String parsed = "parsed " + xml.length() + " 7 3";
+      assertEquals(parsed, metrics.events.get(0));
+      assertEquals(parsed, metrics.events.get(1));
+      assertEquals("parsed 3 1 1", metrics.events.get(2));
+    }
+    finally {
+      XmlMetrics.install(previous);
+    }
+
+    FastSAXParser.parse("<a/>".getBytes(StandardCharsets.UTF_8), handler);
+    assertEquals(3, metrics.events.size());
+  }
+
+  @Test
+  public void testDisabled() throws IOException, SAXException {
+    final TestMetrics metrics = new TestMetrics();
+    metrics.enabled = false;
+    final XmlMetrics previous = XmlMetrics.install(metrics);
+    try {
+      FastSAXParser.parse("<a><b/></a>".getBytes(StandardCharsets.UTF_8), handler);
+      Validator.validate(ClassLoader.getSystemClassLoader().getResource("valid.xml"));
+      assertEquals(0, metrics.events.size());
+
+      metrics.enabled = true;
+      FastSAXParser.parse("<a><b/></a>".getBytes(StandardCharsets.UTF_8), handler);
+      assertEquals("parsed 11 3 2", metrics.events.get(0));
+    }
+    finally {
+      XmlMetrics.install(previous);
+    }
+  }
+
+  @Test
+  public void testSchemasResolved() throws IOException, SAXException {
+    final TestMetrics metrics = new TestMetrics();
+    final XmlMetrics previous = XmlMetrics.install(metrics);
+    try {
+      final URL url = ClassLoader.getSystemClassLoader().getResource("valid.xml");
+      XmlPreviewParser.parse(url);
+      assertTrue(metrics.events.toString(), metrics.events.contains("lookup test.xsd false"));
+      assertEquals("resolved valid.xml 2", metrics.events.get(metrics.events.size() - 1));
+    }
+    finally {
+      XmlMetrics.install(previous);
+    }
+  }
+
+  @Test
+  public void testValidated() throws IOException, SAXException {
+    final TestMetrics metrics = new TestMetrics();
+    final XmlMetrics previous = XmlMetrics.install(metrics);
+    try {
+      Validator.validate(ClassLoader.getSystemClassLoader().getResource("valid.xml"));
+      assertEquals("validated valid.xml true", metrics.events.get(metrics.events.size() - 1));
+    }
+    finally {
+      XmlMetrics.install(previous);
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/* Copyright (c) 2019 OpenJAX
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * You should have received a copy of The MIT License (MIT) along with this
+ * program. If not, see <http://opensource.org/licenses/MIT/>.
+ */
+
+package org.openjax.xml.sax;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+public class XmlPathHandlerTest {
+  private static final String order = "<o:order xmlns:o=\"urn:order\" id=\"42\"><o:header><customerId>c-7</customerId><note>a &amp; <![CDATA[<b>]]></note></o:header><items><item type=\"a\"><sku>s1</sku></item><item type=\"b\"><sku>s2</sku><note>n</note></item><item type=\"a\" id=\"3\"><sku>s3</sku></item></items></o:order>";
+
+  private static class TestHandler extends XmlPathHandler {
+    private final List<String> matches = new ArrayList<>();
+    private int limit = Integer.MAX_VALUE;
+
+    private TestHandler(final XmlPathMatcher matcher) {
+      super(matcher, new SymbolTable());
+    }
+
+    @Override
+    public boolean match(final int expression, final String value) {
+      matches.add(expression + "=" + value);
+      return matches.size() < limit;
+    }
+  }
+
+  private static List<String> parse(final TestHandler handler, final String xml) throws IOException, SAXParseException {
+    handler.reset();
+    handler.matches.clear();
+    FastSAXParser.parse(new CharBlockReader(new StringReader(xml), 7), handler);
+    final List<String> matches = new ArrayList<>(handler.matches);
+
+    handler.reset();
+    handler.matches.clear();
+    FastSAXParser.parse(new Utf8BlockReader(xml.getBytes(StandardCharsets.UTF_8)), handler);
+    assertEquals(matches, handler.matches);
+
+    handler.reset();
+    handler.matches.clear();
+    FastSAXParser.parse(new StringReader(xml), handler);
+    assertEquals(matches, handler.matches);
+    return matches;
+  }
+
+  @Test
+  public void testMatch() throws IOException, SAXParseException {
+    final XmlPathMatcher matcher = XmlPathMatcher.compile(Collections.singletonMap("p", "urn:order"), "/order/header/customerId", "/p:order/@id", "//item[@type='a']/sku", "//note", "/order/p:*/note", "//item[@id]/@*", "/order/missing");
+    assertEquals(7, matcher.size());
+    assertEquals("//note", matcher.getExpression(3));
+
+    final TestHandler handler = new TestHandler(matcher);
+    assertEquals(Arrays.asList("1=42", "0=c-7", "3=a & <b>", "4=a & <b>", "2=s1", "3=n", "5=3", "5=a", "2=s3"), sort(parse(handler, order), 6, 8));
+
+    // The matcher and handler are reused for another document
+    assertEquals(Arrays.asList("1=43", "0=c-8"), parse(handler, "<order xmlns=\"urn:order\" id=\"43\"><header><customerId>c-8</customerId></header></order>"));
+    assertEquals(Collections.emptyList(), parse(handler, "<other><header><customerId>c-9</customerId></header></other>"));
+  }
+
+  private static List<String> sort(final List<String> list, final int from, final int to) {
+    Collections.sort(list.subList(from, to));
+    return list;
+  }
+
+  @Test
+  public void testNested() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler(XmlPathMatcher.compile("//a", "/a//a", "//a/b"));
+    assertEquals(Arrays.asList("0=y", "1=y", "2=z", "0=xyz", "1=xyz", "0=xyz"), parse(handler, "<a><a>x<a>y</a><b>z</b></a></a>"));
+  }
+
+  @Test
+  public void testStop() throws IOException, SAXParseException {
+    final TestHandler handler = new TestHandler(XmlPathMatcher.compile("//sku"));
+    handler.limit = 1;
+    assertEquals(Collections.singletonList("0=s1"), parse(handler, order));
+  }
+
+  private static void assertIllegal(final String expression) {
+    try {
+      XmlPathMatcher.compile(expression);
+      fail("Expected IllegalArgumentException: " + expression);
+    }
+    catch (final IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testCompile() {
+    assertIllegal("");
+    assertIllegal("order");
+    assertIllegal("/order/");
+    assertIllegal("/@id");
+    assertIllegal("/order/@id/item");
+    assertIllegal("/order[1]");
+    assertIllegal("/order[@id='1]");
+    assertIllegal("/p:order");
+    assertEquals(2, XmlPathMatcher.compile("/a[ @id = \"x\" ][@y]/b", "//*").size());
+  }
+}